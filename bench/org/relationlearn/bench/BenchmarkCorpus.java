@@ -0,0 +1,155 @@
+package org.relationlearn.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.relationlearn.filters.AnalyzedFilterGroup;
+import org.relationlearn.filters.CommonWordsFilter;
+import org.relationlearn.filters.FilterGroup;
+import org.relationlearn.filters.KeywordSearchFilter;
+import org.relationlearn.filters.ParallelFilterGroup;
+import org.relationlearn.filters.PunctuationClassFilter;
+import org.relationlearn.filters.PunctuationCounterFilter;
+import org.relationlearn.filters.SequentialFilterGroup;
+import org.relationlearn.filters.WordOcurrenceFilter;
+import org.relationlearn.filters.WordRatioFilter;
+import org.relationlearn.filters.WordSearchFilter;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.util.io.XMLFileParser;
+
+/**
+ * JMH state shared by all the benchmarks of this package, which holds a
+ * synthetic corpus generated by {@link NoDECorpusGenerator} and the graphs
+ * parsed from it.
+ * 
+ * <p>
+ * The corpus size is controlled with the {@code topics}, 
+ * {@code pairsPerTopic} and {@code wordsPerText} parameters, which can be
+ * overriden from the JMH command line with {@code -p}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class BenchmarkCorpus {
+    
+    /**
+     * Seed used to generate every corpus, so results are repeatable.
+     */
+    public static final long SEED = 42L;
+    
+    @Param({"10"})
+    public int topics;
+    
+    @Param({"100"})
+    public int pairsPerTopic;
+    
+    @Param({"40"})
+    public int wordsPerText;
+    
+    private NoDECorpusGenerator generator;
+    private File corpusFile;
+    private Map<String, RelationDigraph> graphs;
+    private List<String[]> pairs;
+    
+    @Setup(Level.Trial)
+    public void generateCorpus() throws IOException {
+        generator = new NoDECorpusGenerator(topics, pairsPerTopic, 
+                wordsPerText, SEED);
+        corpusFile = File.createTempFile("node-corpus-", ".xml");
+        generator.generate(corpusFile);
+        graphs = new XMLFileParser().parseInput(corpusFile.getAbsolutePath());
+        pairs = new ArrayList<>();
+        for(RelationDigraph graph : graphs.values()) {
+            for(ArgumentNode node : graph) {
+                if(node.getTargetRelation() != null) {
+                    pairs.add(new String[] { node.getArgumentNodeText(),
+                        node.getTargetRelation().getTarget()
+                                .getArgumentNodeText() });
+                }
+            }
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void deleteCorpus() {
+        if(corpusFile != null && !corpusFile.delete()) {
+            corpusFile.deleteOnExit();
+        }
+    }
+    
+    /**
+     * Returns the file where the corpus has been written.
+     * 
+     * @return the corpus file
+     */
+    public File getCorpusFile() {
+        return corpusFile;
+    }
+    
+    /**
+     * Returns the graphs parsed from the corpus, one for each topic.
+     * 
+     * @return a Map with the graph of each topic
+     */
+    public Map<String, RelationDigraph> getGraphs() {
+        return graphs;
+    }
+    
+    /**
+     * Returns the texts of every argument pair of the corpus, with the 
+     * response text in the first position and the target text in the 
+     * second.
+     * 
+     * @return a List with all the argument pairs
+     */
+    public List<String[]> getPairs() {
+        return pairs;
+    }
+    
+    /**
+     * Returns the generator used to create the corpus.
+     * 
+     * @return the corpus generator
+     */
+    public NoDECorpusGenerator getGenerator() {
+        return generator;
+    }
+    
+    /**
+     * Creates a FilterGroup containing one instance of every built-in 
+     * filter and the default class attribute.
+     * 
+     * @param name the dataset name of the group
+     * @param parallel true to create a ParallelFilterGroup, false to create
+     * a SequentialFilterGroup
+     * @return the new FilterGroup
+     */
+    public FilterGroup createFilterGroup(String name, boolean parallel) {
+        AnalyzedFilterGroup group;
+        if(parallel) {
+            group = new ParallelFilterGroup(name);
+        } else {
+            group = new SequentialFilterGroup(name);
+        }
+        group.addFilter(new CommonWordsFilter());
+        group.addFilter(new WordRatioFilter());
+        group.addFilter(new PunctuationCounterFilter());
+        group.addFilter(new PunctuationClassFilter());
+        group.addFilter(new WordSearchFilter("however"));
+        group.addFilter(new WordOcurrenceFilter("word-ocurrence", 
+                generator.getVocabulary().subList(0, 50)));
+        group.addFilter(new KeywordSearchFilter("cue-", 
+                NoDECorpusGenerator.getCueWords()));
+        group.addClassAttribute(null);
+        return group;
+    }
+
+}
@@ -0,0 +1,228 @@
+package org.relationlearn.bench;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.util.ClassificationServer;
+import org.relationlearn.util.io.ParallelCorpusParser;
+
+/**
+ * Load generator for a {@link ClassificationServer} listening on a local
+ * port, which sends the argument pairs of a corpus as classification jobs
+ * from several connections at the same time and reports the throughput and
+ * the latency of the answers.
+ *
+ * <p>
+ * Each connection keeps up to {@code window} jobs sent and not yet
+ * answered, so the latency includes the time jobs wait in the server. The
+ * call parameters are: &ltport&gt &ltcorpus&gt &ltconnections&gt
+ * &ltjobs-per-connection&gt [&ltwindow&gt]
+ * </p>
+ * <pre>
+ * java -cp &ltclasspath&gt org.relationlearn.util.GraphClassifier -server configs/ models/ 7070
+ * java -cp &ltclasspath&gt org.relationlearn.bench.ClassificationLoadClient 7070 corpus.xml 8 10000
+ * </pre>
+ *
+ * @see ClassificationServer
+ */
+public class ClassificationLoadClient {
+
+    private static final int DEFAULT_WINDOW = 16;
+
+    private static class ConnectionResult {
+
+        private final long[] LATENCIES;
+        private final int ERRORS;
+
+        public ConnectionResult(long[] latencies, int errors) {
+            this.LATENCIES = latencies;
+            this.ERRORS = errors;
+        }
+    }
+
+    private final int PORT;
+    private final List<String> JOBS;
+    private final int WINDOW;
+
+    /**
+     * Constructs a new ClassificationLoadClient which sends the jobs in
+     * {@code jobs} to the server listening on {@code port}.
+     *
+     * @param port the local port of the server
+     * @param jobs the encoded jobs to send, they're sent in a loop
+     * @param window the maximum amount of jobs waiting for an answer in each
+     * connection
+     */
+    public ClassificationLoadClient(int port, List<String> jobs, int window) {
+        if(jobs.isEmpty()) {
+            throw new IllegalArgumentException("There are no jobs to send");
+        }
+        this.PORT = port;
+        this.JOBS = jobs;
+        this.WINDOW = window;
+    }
+
+    /**
+     * Returns a job for every argument pair of the RelationDigraph objects
+     * of {@code graphs}, encoded for a ClassificationServer.
+     *
+     * @param graphs the RelationDigraph objects, by topic
+     * @return the encoded jobs
+     */
+    public static List<String> createJobs(Map<String, RelationDigraph> graphs) {
+        List<String> jobs = new ArrayList<>();
+        for(Map.Entry<String, RelationDigraph> graph : graphs.entrySet()) {
+            for(ArgumentNode node : graph.getValue()) {
+                if(node.getTargetRelation() != null) {
+                    jobs.add(ClassificationServer.encodeField(graph.getKey())
+                            + ClassificationServer.FIELD_SEPARATOR
+                            + ClassificationServer.encodeField(
+                                    node.getArgumentNodeText())
+                            + ClassificationServer.FIELD_SEPARATOR
+                            + ClassificationServer.encodeField(node
+                                    .getTargetRelation().getTarget()
+                                    .getArgumentNodeText()));
+                }
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Sends {@code jobsPerConnection} jobs from each one of
+     * {@code connections} connections and prints the results to the
+     * standard output.
+     *
+     * @param connections the amount of simultaneous connections
+     * @param jobsPerConnection the amount of jobs sent by each connection
+     * @throws Exception if any connection fails
+     */
+    public void run(int connections, final int jobsPerConnection)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        List<Future<ConnectionResult>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for(int c = 0; c < connections; c++) {
+                final int offset = c * (JOBS.size() / connections);
+                futures.add(executor.submit(new Callable<ConnectionResult>() {
+                    @Override
+                    public ConnectionResult call() throws Exception {
+                        return runConnection(offset, jobsPerConnection);
+                    }
+                }));
+            }
+            long[] latencies = new long[connections * jobsPerConnection];
+            int errors = 0;
+            int position = 0;
+            for(Future<ConnectionResult> future : futures) {
+                ConnectionResult result = future.get();
+                System.arraycopy(result.LATENCIES, 0, latencies, position,
+                        result.LATENCIES.length);
+                position += result.LATENCIES.length;
+                errors += result.ERRORS;
+            }
+            long elapsed = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            System.out.printf("jobs: %d, errors: %d, time: %.1f ms, "
+                    + "throughput: %.0f jobs/s%n", latencies.length, errors,
+                    elapsed / 1e6, latencies.length / (elapsed / 1e9));
+            System.out.printf("latency (us) p50: %.1f, p95: %.1f, "
+                    + "p99: %.1f, max: %.1f%n",
+                    percentile(latencies, 50) / 1e3,
+                    percentile(latencies, 95) / 1e3,
+                    percentile(latencies, 99) / 1e3,
+                    latencies[latencies.length - 1] / 1e3);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private ConnectionResult runConnection(final int offset, final int jobs)
+            throws Exception {
+        final AtomicLongArray sent = new AtomicLongArray(jobs);
+        long[] latencies = new long[jobs];
+        final Semaphore window = new Semaphore(WINDOW);
+        int errors = 0;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                PORT)) {
+            socket.setTcpNoDelay(true);
+            final Writer out = new BufferedWriter(new OutputStreamWriter(
+                    socket.getOutputStream(), StandardCharsets.UTF_8));
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.UTF_8));
+            Thread sender = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for(int i = 0; i < jobs; i++) {
+                            window.acquire();
+                            sent.set(i, System.nanoTime());
+                            out.write(JOBS.get((offset + i) % JOBS.size()));
+                            out.write('\n');
+                            out.flush();
+                        }
+                    } catch (IOException | InterruptedException ex) {
+                        System.err.println("Error sending jobs: "
+                                + ex.getMessage());
+                    }
+                }
+            });
+            sender.start();
+            for(int i = 0; i < jobs; i++) {
+                String answer = in.readLine();
+                if(answer == null) {
+                    throw new IOException("Connection closed after " + i
+                            + " answers");
+                }
+                latencies[i] = System.nanoTime() - sent.get(i);
+                window.release();
+                if(answer.startsWith(ClassificationServer.ERROR_PREFIX)) {
+                    errors++;
+                }
+            }
+            sender.join();
+        }
+        return new ConnectionResult(latencies, errors);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public static void main(String args[]) throws Exception {
+        if(args.length < 4) {
+            System.err.println("Error in parameters, usage: <port> "
+                    + "<input-file.xml|input-dir|glob> <connections> "
+                    + "<jobs-per-connection> [<window>]");
+        } else {
+            List<String> jobs = createJobs(
+                    new ParallelCorpusParser().parseInput(args[1]));
+            int window = args.length > 4 ?
+                    Integer.parseInt(args[4]) : DEFAULT_WINDOW;
+            new ClassificationLoadClient(Integer.parseInt(args[0]), jobs,
+                    window).run(Integer.parseInt(args[2]),
+                            Integer.parseInt(args[3]));
+        }
+    }
+
+}
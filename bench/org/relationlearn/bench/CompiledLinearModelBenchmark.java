@@ -0,0 +1,103 @@
+package org.relationlearn.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.relationlearn.classifiers.CompiledLinearModel;
+import org.relationlearn.classifiers.SVMClassifier;
+import org.relationlearn.filters.FilterGroup;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.util.InstanceGenerator;
+import weka.classifiers.functions.LibSVM;
+import weka.core.Instances;
+
+/**
+ * Benchmarks the classification of all the instances generated from the
+ * corpus with a linear kernel model trained with those same instances,
+ * comparing the LibSVM wrapper, which evaluates the kernel with every
+ * support vector, and {@link SVMClassifier#classifyBatch(Instances)}, which
+ * calls the same LibSVM model directly, against the 
+ * {@link CompiledLinearModel} of the model, both over the Instance objects
+ * and over arrays of values.
+ *
+ * <p>
+ * Scores are given per pass over the whole corpus.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledLinearModelBenchmark {
+
+    private static final String[] LINEAR_OPTIONS = {"-K", "0"};
+
+    private LibSVM libSVM;
+    private SVMClassifier classifier;
+    private CompiledLinearModel compiled;
+    private Instances instances;
+    private double[][] values;
+
+    @Setup(Level.Trial)
+    public void trainClassifiers(BenchmarkCorpus corpus) throws Exception {
+        FilterGroup group = corpus.createFilterGroup("bench-dataset", false);
+        instances = group.getGroupDataset();
+        for(RelationDigraph graph : corpus.getGraphs().values()) {
+            Instances graphInstances =
+                    new InstanceGenerator(graph, group).getGraphInstances();
+            for(int i = 0; i < graphInstances.numInstances(); i++) {
+                instances.add(graphInstances.instance(i));
+            }
+        }
+        libSVM = new LibSVM();
+        libSVM.setOptions(LINEAR_OPTIONS.clone());
+        libSVM.buildClassifier(instances);
+        classifier = new SVMClassifier();
+        classifier.setOptions(LINEAR_OPTIONS.clone());
+        classifier.trainClassifier(instances);
+        compiled = classifier.compileLinearModel();
+        values = new double[instances.numInstances()][];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = instances.instance(i).toDoubleArray();
+        }
+    }
+
+    @Benchmark
+    public void libSVMClassifyInstance(Blackhole bh) throws Exception {
+        for(int i = 0; i < instances.numInstances(); i++) {
+            bh.consume(libSVM.classifyInstance(instances.instance(i)));
+        }
+    }
+
+    @Benchmark
+    public double[] libSVMClassifyBatch() throws Exception {
+        return classifier.classifyBatch(instances);
+    }
+
+    @Benchmark
+    public void compiledClassifyInstances(Blackhole bh) {
+        for(int i = 0; i < instances.numInstances(); i++) {
+            bh.consume(compiled.classify(instances.instance(i)));
+        }
+    }
+
+    @Benchmark
+    public void compiledClassifyValues(Blackhole bh) {
+        for(double[] row : values) {
+            bh.consume(compiled.classify(row));
+        }
+    }
+
+}
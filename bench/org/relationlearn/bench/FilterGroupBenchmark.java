@@ -0,0 +1,56 @@
+package org.relationlearn.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.relationlearn.filters.FilterGroup;
+
+/**
+ * Benchmarks {@link FilterGroup#createInstanceUsingFilters(String, String)}
+ * with a group containing every built-in filter, applied to all the 
+ * argument pairs of the corpus.
+ * 
+ * <p>
+ * The {@code parallel} parameter selects between a SequentialFilterGroup 
+ * and a ParallelFilterGroup. Scores are given per pass over the whole 
+ * corpus.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterGroupBenchmark {
+    
+    @Param({"false", "true"})
+    public boolean parallel;
+    
+    private FilterGroup group;
+    
+    @Setup(Level.Trial)
+    public void createGroup(BenchmarkCorpus corpus) {
+        group = corpus.createFilterGroup("bench-dataset", parallel);
+    }
+    
+    @Benchmark
+    public void createInstanceUsingFilters(BenchmarkCorpus corpus, 
+            Blackhole bh) {
+        for(String[] pair : corpus.getPairs()) {
+            bh.consume(group.createInstanceUsingFilters(pair[0], pair[1]));
+        }
+    }
+
+}
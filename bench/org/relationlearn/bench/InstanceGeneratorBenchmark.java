@@ -0,0 +1,77 @@
+package org.relationlearn.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.relationlearn.filters.FilterGroup;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.util.InstanceGenerator;
+
+/**
+ * Benchmarks {@link InstanceGenerator#getGraphInstances()} over every graph
+ * of the corpus, with a SequentialFilterGroup containing every built-in 
+ * filter.
+ * 
+ * <p>
+ * A new InstanceGenerator is created for each graph, so the node analysis
+ * cache starts empty as it would in a real run. The {@code parallel} 
+ * parameter selects between sequential generation and generation in a 
+ * ForkJoinPool. Scores are given per pass over the whole corpus.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstanceGeneratorBenchmark {
+    
+    @Param({"false", "true"})
+    public boolean parallel;
+    
+    private FilterGroup group;
+    private ForkJoinPool pool;
+    
+    @Setup(Level.Trial)
+    public void createGroup(BenchmarkCorpus corpus) {
+        group = corpus.createFilterGroup("bench-dataset", false);
+        if(parallel) {
+            pool = new ForkJoinPool();
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        if(pool != null) {
+            pool.shutdown();
+        }
+    }
+    
+    @Benchmark
+    public void getGraphInstances(BenchmarkCorpus corpus, Blackhole bh) {
+        for(RelationDigraph graph : corpus.getGraphs().values()) {
+            InstanceGenerator generator;
+            if(pool == null) {
+                generator = new InstanceGenerator(graph, group);
+            } else {
+                generator = new InstanceGenerator(graph, group, pool);
+            }
+            bh.consume(generator.getGraphInstances());
+        }
+    }
+
+}
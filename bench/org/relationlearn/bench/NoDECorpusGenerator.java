@@ -0,0 +1,261 @@
+package org.relationlearn.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Utility class that generates synthetic corpora written in the
+ * <a href="http://www-sop.inria.fr/NoDE/NoDE-xml.html">NoDE</a> format, used
+ * as input by the benchmarks of this package.
+ * 
+ * <p>
+ * Every topic of the corpus is a tree of arguments: the first argument is 
+ * the root and each new argument replies to one of the arguments generated
+ * before it, either supporting or attacking it. Texts are built from a small
+ * English vocabulary mixed with a set of random words, punctuation and the
+ * cue words returned by {@link #getCueWords()}. Texts can also be made
+ * entity-heavy, mixing in symbols that must be escaped in XML, so parsers
+ * receive each text in many small chunks. The same seed always 
+ * generates the same corpus, so benchmark results can be compared between
+ * runs.
+ * </p>
+ * 
+ * The call parameters are: &lt;output-file&gt; [&lt;topics&gt; 
+ * &lt;pairs-per-topic&gt; &lt;words-per-text&gt; &lt;seed&gt;]
+ */
+public class NoDECorpusGenerator {
+    
+    private static final String[] COMMON_WORDS = {
+        "the", "a", "of", "to", "and", "in", "is", "it", "that", "for", 
+        "this", "not", "be", "are", "with", "as", "on", "they", "we", "you",
+        "people", "should", "would", "could", "more", "think", "because", 
+        "law", "government", "freedom", "right", "money", "children", "work"
+    };
+    
+    private static final String[] CUE_WORDS = {
+        "however", "but", "agree", "disagree", "although", "indeed", 
+        "therefore", "nevertheless"
+    };
+    
+    private static final String[] PUNCTUATION = {
+        ".", ",", "!", "?", ";", "..."
+    };
+    
+    private static final String[] ENTITY_SYMBOLS = {
+        "&", "<", ">", "&&", "<->"
+    };
+    
+    private static final int RANDOM_WORDS = 2000;
+    
+    private static final String DOCUMENT_ENC = "UTF-8";
+    private static final String XML_VERSION = "1.0";
+    
+    private final int TOPICS;
+    private final int PAIRS_PER_TOPIC;
+    private final int WORDS_PER_TEXT;
+    private final long SEED;
+    private final boolean ENTITIES;
+    
+    private final String[] VOCABULARY;
+    
+    /**
+     * Constructs a new NoDECorpusGenerator.
+     * 
+     * @param topics the amount of topics, each one a separate argument tree
+     * @param pairsPerTopic the amount of argument pairs of each topic
+     * @param wordsPerText the average amount of words of each argument text
+     * @param seed the seed of the random generator
+     * 
+     * @throws IllegalArgumentException if any of the sizes is not positive
+     */
+    public NoDECorpusGenerator(int topics, int pairsPerTopic, 
+            int wordsPerText, long seed) {
+        this(topics, pairsPerTopic, wordsPerText, seed, false);
+    }
+    
+    /**
+     * Constructs a new NoDECorpusGenerator which, if {@code entities} is 
+     * true, generates texts full of characters that are written as XML
+     * entities.
+     * 
+     * @param topics the amount of topics, each one a separate argument tree
+     * @param pairsPerTopic the amount of argument pairs of each topic
+     * @param wordsPerText the average amount of words of each argument text
+     * @param seed the seed of the random generator
+     * @param entities true to generate entity-heavy texts
+     * 
+     * @throws IllegalArgumentException if any of the sizes is not positive
+     */
+    public NoDECorpusGenerator(int topics, int pairsPerTopic, 
+            int wordsPerText, long seed, boolean entities) {
+        if(topics < 1 || pairsPerTopic < 1 || wordsPerText < 1) {
+            throw new IllegalArgumentException("Corpus sizes must be "
+                    + "positive");
+        }
+        this.TOPICS = topics;
+        this.PAIRS_PER_TOPIC = pairsPerTopic;
+        this.WORDS_PER_TEXT = wordsPerText;
+        this.SEED = seed;
+        this.ENTITIES = entities;
+        this.VOCABULARY = buildVocabulary(new Random(seed));
+    }
+    
+    /**
+     * Returns the cue words mixed into the generated texts, meant to be
+     * searched by keyword based filters.
+     * 
+     * @return an unmodifiable List with the cue words
+     */
+    public static List<String> getCueWords() {
+        return Collections.unmodifiableList(Arrays.asList(CUE_WORDS));
+    }
+    
+    /**
+     * Returns the words used to build the generated texts, excluding
+     * punctuation.
+     * 
+     * @return an unmodifiable List with the vocabulary of the corpus
+     */
+    public List<String> getVocabulary() {
+        return Collections.unmodifiableList(Arrays.asList(VOCABULARY));
+    }
+    
+    /**
+     * Generates the corpus and writes it to the file {@code output}.
+     * 
+     * @param output the file where the corpus will be written
+     * @throws IOException if the file can't be written
+     */
+    public void generate(File output) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(
+                new FileOutputStream(output))) {
+            generate(out);
+        }
+    }
+    
+    /**
+     * Generates the corpus and writes it to the stream {@code out}, the
+     * stream is not closed.
+     * 
+     * @param out the stream where the corpus will be written
+     * @throws IOException if the stream can't be written
+     */
+    public void generate(OutputStream out) throws IOException {
+        Random random = new Random(SEED);
+        try {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance()
+                    .createXMLStreamWriter(out, DOCUMENT_ENC);
+            writer.writeStartDocument(DOCUMENT_ENC, XML_VERSION);
+            writer.writeStartElement("entailment-corpus");
+            int pairId = 1;
+            for(int topic = 0; topic < TOPICS; topic++) {
+                String topicName = "topic-" + topic;
+                List<String> texts = new ArrayList<>(PAIRS_PER_TOPIC + 1);
+                texts.add(generateText(random));
+                for(int node = 1; node <= PAIRS_PER_TOPIC; node++) {
+                    int target = random.nextInt(node);
+                    texts.add(generateText(random));
+                    writer.writeStartElement("pair");
+                    writer.writeAttribute("task", "ARG");
+                    writer.writeAttribute("id", String.valueOf(pairId++));
+                    writer.writeAttribute("topic", topicName);
+                    writer.writeAttribute("entailment", 
+                            random.nextBoolean() ? "YES" : "NO");
+                    writeNode(writer, "t", node, texts.get(node));
+                    writeNode(writer, "h", target, texts.get(target));
+                    writer.writeEndElement();
+                }
+            }
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException xmlsex) {
+            throw new IOException("Error in XML stream: " 
+                    + xmlsex.getMessage(), xmlsex);
+        }
+    }
+    
+    private void writeNode(XMLStreamWriter writer, String tag, int id, 
+            String text) throws XMLStreamException {
+        writer.writeStartElement(tag);
+        writer.writeAttribute("id", String.valueOf(id));
+        writer.writeAttribute("weight", "1");
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+    
+    private String generateText(Random random) {
+        int words = WORDS_PER_TEXT / 2 + random.nextInt(WORDS_PER_TEXT) + 1;
+        StringBuilder text = new StringBuilder(words * 7);
+        boolean sentenceStart = true;
+        for(int i = 0; i < words; i++) {
+            String word;
+            if(random.nextInt(20) == 0) {
+                word = CUE_WORDS[random.nextInt(CUE_WORDS.length)];
+            } else if(random.nextBoolean()) {
+                word = COMMON_WORDS[random.nextInt(COMMON_WORDS.length)];
+            } else {
+                word = VOCABULARY[random.nextInt(VOCABULARY.length)];
+            }
+            if(i > 0) {
+                text.append(' ');
+            }
+            if(sentenceStart) {
+                text.append(Character.toUpperCase(word.charAt(0)))
+                        .append(word, 1, word.length());
+            } else {
+                text.append(word);
+            }
+            if(ENTITIES && random.nextInt(4) == 0) {
+                text.append(' ').append(
+                        ENTITY_SYMBOLS[random.nextInt(ENTITY_SYMBOLS.length)]);
+            }
+            sentenceStart = random.nextInt(12) == 0 || i == words - 1;
+            if(sentenceStart) {
+                text.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+            }
+        }
+        return text.toString();
+    }
+    
+    private static String[] buildVocabulary(Random random) {
+        String[] vocabulary = 
+                Arrays.copyOf(COMMON_WORDS, COMMON_WORDS.length + RANDOM_WORDS);
+        char[] word = new char[12];
+        for(int i = COMMON_WORDS.length; i < vocabulary.length; i++) {
+            int length = 3 + random.nextInt(word.length - 3);
+            for(int j = 0; j < length; j++) {
+                word[j] = (char) ('a' + random.nextInt(26));
+            }
+            vocabulary[i] = new String(word, 0, length);
+        }
+        return vocabulary;
+    }
+    
+    public static void main(String args[]) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Error in parameters, usage: <output-file.xml> "
+                    + "[<topics> <pairs-per-topic> <words-per-text> <seed>]");
+        } else {
+            int topics = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+            int pairs = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+            int words = args.length > 3 ? Integer.parseInt(args[3]) : 40;
+            long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+            new NoDECorpusGenerator(topics, pairs, words, seed)
+                    .generate(new File(args[0]));
+        }
+    }
+
+}
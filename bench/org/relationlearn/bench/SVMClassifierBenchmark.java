@@ -0,0 +1,85 @@
+package org.relationlearn.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.relationlearn.classifiers.SVMClassifier;
+import org.relationlearn.filters.FilterGroup;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.util.InstanceGenerator;
+import weka.core.Instances;
+
+/**
+ * Benchmarks {@link SVMClassifier#classifyInstance(weka.core.Instance)} and
+ * {@link SVMClassifier#classifyBatch(Instances, ForkJoinPool)}, both
+ * sequentially and in parallel, over all the instances generated from the
+ * corpus, using a classifier trained with those same instances and the 
+ * default LibSVM options.
+ * 
+ * <p>
+ * Scores are given per pass over the whole corpus.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SVMClassifierBenchmark {
+    
+    private SVMClassifier classifier;
+    private Instances instances;
+    private ForkJoinPool pool;
+    
+    @Setup(Level.Trial)
+    public void trainClassifier(BenchmarkCorpus corpus) throws Exception {
+        FilterGroup group = corpus.createFilterGroup("bench-dataset", false);
+        instances = group.getGroupDataset();
+        for(RelationDigraph graph : corpus.getGraphs().values()) {
+            Instances graphInstances = 
+                    new InstanceGenerator(graph, group).getGraphInstances();
+            for(int i = 0; i < graphInstances.numInstances(); i++) {
+                instances.add(graphInstances.instance(i));
+            }
+        }
+        classifier = new SVMClassifier();
+        classifier.trainClassifier(instances);
+        pool = new ForkJoinPool();
+    }
+    
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+    
+    @Benchmark
+    public void classifyInstance(Blackhole bh) throws Exception {
+        for(int i = 0; i < instances.numInstances(); i++) {
+            bh.consume(classifier.classifyInstance(instances.instance(i)));
+        }
+    }
+    
+    @Benchmark
+    public double[] classifyBatch() throws Exception {
+        return classifier.classifyBatch(instances);
+    }
+    
+    @Benchmark
+    public double[] classifyBatchParallel() throws Exception {
+        return classifier.classifyBatch(instances, pool);
+    }
+
+}
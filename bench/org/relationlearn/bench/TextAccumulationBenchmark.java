@@ -0,0 +1,184 @@
+package org.relationlearn.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.ArgumentRelation;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.util.io.PairHandler;
+import org.relationlearn.util.io.StreamingInputParser;
+import org.relationlearn.util.io.XMLFileParser;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Benchmarks the way SAX handlers accumulate the text of an element, over a
+ * corpus with long, entity-heavy texts that SAX delivers in many chunks.
+ * 
+ * <p>
+ * {@code stringPerChunk} is the baseline, it creates a String on every 
+ * {@code characters} callback, as XMLFileParser used to do, and 
+ * concatenates it to the text read so far, since keeping only the last 
+ * chunk loses the text of the element. {@code reusableBuffer} appends the
+ * chunks to a single StringBuilder that is only turned into a String at 
+ * the end of the element, as {@link XMLFileParser} and 
+ * {@link StreamingInputParser} do now. {@code parseInput} and {@code streamInput} measure both parsers over
+ * the same corpus. Running them with the JMH GC profiler, 
+ * {@code -prof gc}, shows the difference in allocation per operation in 
+ * the {@code gc.alloc.rate.norm} metric.
+ * </p>
+ * 
+ * @see XMLFileParserBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextAccumulationBenchmark {
+    
+    private static final String TEXT_TAG = "t";
+    private static final String HYPOTHESIS_TAG = "h";
+    
+    private static class StringPerChunkHandler extends DefaultHandler {
+        
+        private String text;
+        
+        public String lastText;
+        
+        @Override
+        public void startElement(String uri, String localName, String qName, 
+                Attributes attributes) {
+            if(TEXT_TAG.equals(qName) || HYPOTHESIS_TAG.equals(qName)) {
+                text = "";
+            }
+        }
+        
+        @Override
+        public void characters(char[] ac, int i, int j) {
+            if(text != null) {
+                text = text + new String(ac, i, j);
+            }
+        }
+        
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if(text != null) {
+                lastText = text;
+                text = null;
+            }
+        }
+        
+    }
+    
+    private static class ReusableBufferHandler extends DefaultHandler {
+        
+        private final StringBuilder textBuffer = new StringBuilder(256);
+        private boolean readingText;
+        
+        public String lastText;
+        
+        @Override
+        public void startElement(String uri, String localName, String qName, 
+                Attributes attributes) {
+            if(TEXT_TAG.equals(qName) || HYPOTHESIS_TAG.equals(qName)) {
+                textBuffer.setLength(0);
+                readingText = true;
+            }
+        }
+        
+        @Override
+        public void characters(char[] ac, int i, int j) {
+            if(readingText) {
+                textBuffer.append(ac, i, j);
+            }
+        }
+        
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if(readingText) {
+                lastText = textBuffer.toString();
+                readingText = false;
+            }
+        }
+        
+    }
+    
+    @Param({"20"})
+    public int pairs;
+    
+    @Param({"2000"})
+    public int wordsPerText;
+    
+    private File corpusFile;
+    private SAXParserFactory factory;
+    
+    @Setup(Level.Trial)
+    public void generateCorpus() throws IOException {
+        corpusFile = File.createTempFile("node-entity-corpus-", ".xml");
+        new NoDECorpusGenerator(1, pairs, wordsPerText, 
+                BenchmarkCorpus.SEED, true).generate(corpusFile);
+        factory = SAXParserFactory.newInstance();
+    }
+    
+    @TearDown(Level.Trial)
+    public void deleteCorpus() {
+        if(corpusFile != null && !corpusFile.delete()) {
+            corpusFile.deleteOnExit();
+        }
+    }
+    
+    @Benchmark
+    public String stringPerChunk() throws Exception {
+        StringPerChunkHandler handler = new StringPerChunkHandler();
+        SAXParser parser = factory.newSAXParser();
+        parser.parse(corpusFile, handler);
+        return handler.lastText;
+    }
+    
+    @Benchmark
+    public String reusableBuffer() throws Exception {
+        ReusableBufferHandler handler = new ReusableBufferHandler();
+        SAXParser parser = factory.newSAXParser();
+        parser.parse(corpusFile, handler);
+        return handler.lastText;
+    }
+    
+    @Benchmark
+    public RelationDigraph parseInput() {
+        return new XMLFileParser().parseInput(corpusFile.getAbsolutePath())
+                .values().iterator().next();
+    }
+    
+    @Benchmark
+    public void streamInput(final Blackhole bh) {
+        new StreamingInputParser().parseInput(corpusFile.getAbsolutePath(), 
+                new PairHandler() {
+            @Override
+            public void handlePair(String topic, ArgumentNode response, 
+                    ArgumentNode target, ArgumentRelation relation) {
+                bh.consume(response.getArgumentNodeText());
+                bh.consume(target.getArgumentNodeText());
+            }
+        });
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.relationlearn.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.relationlearn.filters.CommonWordsFilter;
+import org.relationlearn.filters.KeywordSearchFilter;
+import org.relationlearn.filters.MultiTextFilter;
+import org.relationlearn.filters.PunctuationClassFilter;
+import org.relationlearn.filters.PunctuationCounterFilter;
+import org.relationlearn.filters.TextFilter;
+import org.relationlearn.filters.WordOcurrenceFilter;
+import org.relationlearn.filters.WordRatioFilter;
+import org.relationlearn.filters.WordSearchFilter;
+
+/**
+ * Benchmarks every built-in TextFilter and MultiTextFilter, applying each
+ * one to all the argument pairs of the corpus through the String based
+ * {@code filter} method, so the cost of analyzing both texts is included.
+ * 
+ * <p>
+ * Scores are given per pass over the whole corpus.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextFilterBenchmark {
+    
+    private TextFilter commonWords;
+    private TextFilter wordRatio;
+    private TextFilter punctuationCounter;
+    private TextFilter wordSearch;
+    private TextFilter wordOcurrence;
+    private MultiTextFilter punctuationClass;
+    private MultiTextFilter keywordSearch;
+    
+    @Setup(Level.Trial)
+    public void createFilters(BenchmarkCorpus corpus) {
+        commonWords = new CommonWordsFilter();
+        wordRatio = new WordRatioFilter();
+        punctuationCounter = new PunctuationCounterFilter();
+        wordSearch = new WordSearchFilter("however");
+        wordOcurrence = new WordOcurrenceFilter("word-ocurrence", 
+                corpus.getGenerator().getVocabulary().subList(0, 50));
+        punctuationClass = new PunctuationClassFilter();
+        keywordSearch = new KeywordSearchFilter("cue-", 
+                NoDECorpusGenerator.getCueWords());
+    }
+    
+    @Benchmark
+    public void commonWordsFilter(BenchmarkCorpus corpus, Blackhole bh) {
+        applyFilter(commonWords, corpus, bh);
+    }
+    
+    @Benchmark
+    public void wordRatioFilter(BenchmarkCorpus corpus, Blackhole bh) {
+        applyFilter(wordRatio, corpus, bh);
+    }
+    
+    @Benchmark
+    public void punctuationCounterFilter(BenchmarkCorpus corpus, 
+            Blackhole bh) {
+        applyFilter(punctuationCounter, corpus, bh);
+    }
+    
+    @Benchmark
+    public void wordSearchFilter(BenchmarkCorpus corpus, Blackhole bh) {
+        applyFilter(wordSearch, corpus, bh);
+    }
+    
+    @Benchmark
+    public void wordOcurrenceFilter(BenchmarkCorpus corpus, Blackhole bh) {
+        applyFilter(wordOcurrence, corpus, bh);
+    }
+    
+    @Benchmark
+    public void punctuationClassFilter(BenchmarkCorpus corpus, 
+            Blackhole bh) {
+        applyFilter(punctuationClass, corpus, bh);
+    }
+    
+    @Benchmark
+    public void keywordSearchFilter(BenchmarkCorpus corpus, Blackhole bh) {
+        applyFilter(keywordSearch, corpus, bh);
+    }
+    
+    private void applyFilter(TextFilter filter, BenchmarkCorpus corpus, 
+            Blackhole bh) {
+        for(String[] pair : corpus.getPairs()) {
+            bh.consume(filter.filter(pair[0], pair[1]));
+        }
+    }
+    
+    private void applyFilter(MultiTextFilter filter, BenchmarkCorpus corpus, 
+            Blackhole bh) {
+        for(String[] pair : corpus.getPairs()) {
+            bh.consume(filter.filter(pair[0], pair[1]));
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.relationlearn.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.ArgumentRelation;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.util.io.PairHandler;
+import org.relationlearn.util.io.StreamingInputParser;
+import org.relationlearn.util.io.XMLFileParser;
+
+/**
+ * Benchmarks {@link XMLFileParser#parseInput(String)} and the streaming
+ * {@link StreamingInputParser#parseInput(String, PairHandler)} reading the
+ * whole corpus file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XMLFileParserBenchmark {
+    
+    @Benchmark
+    public Map<String, RelationDigraph> parseInput(BenchmarkCorpus corpus) {
+        return new XMLFileParser().parseInput(
+                corpus.getCorpusFile().getAbsolutePath());
+    }
+
+    
+    @Benchmark
+    public void streamInput(BenchmarkCorpus corpus, final Blackhole bh) {
+        new StreamingInputParser().parseInput(
+                corpus.getCorpusFile().getAbsolutePath(), new PairHandler() {
+            @Override
+            public void handlePair(String topic, ArgumentNode response, 
+                    ArgumentNode target, ArgumentRelation relation) {
+                bh.consume(relation);
+            }
+        });
+    }
+
+}
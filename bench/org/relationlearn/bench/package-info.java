@@ -0,0 +1,14 @@
+/**
+ * Provides <a href="http://openjdk.java.net/projects/code-tools/jmh/">JMH</a>
+ * benchmarks for the filters, instance generation, input parsing and 
+ * classification of the library, together with a synthetic corpus generator
+ * in the NoDE format and a load generator for the classification server.
+ * 
+ * <p>
+ * The benchmarks must be compiled with the JMH annotation processor and 
+ * the library dependencies on the classpath, and can then be run with the
+ * JMH runner, for example: {@code java -cp <classpath> org.openjdk.jmh.Main
+ * TextFilterBenchmark -p wordsPerText=200}.
+ * </p>
+ */
+package org.relationlearn.bench;
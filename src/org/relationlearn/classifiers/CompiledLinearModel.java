@@ -0,0 +1,199 @@
+package org.relationlearn.classifiers;
+
+import libsvm.svm_model;
+import libsvm.svm_node;
+import libsvm.svm_parameter;
+import weka.core.Instance;
+
+/**
+ * Class used to classify with a trained linear kernel SVM computing a single
+ * dot product per pair of classes, instead of a kernel evaluation per
+ * support vector.
+ *
+ * <p>
+ * With a linear kernel the decision function of each pair of classes of
+ * the one-against-one scheme LibSVM uses is a weighted sum of the support
+ * vectors, so it collapses to a weight vector and a bias. The weights of
+ * all the pairs are kept in a single array, ordered by Attribute index, so
+ * each value of the Instance is read once and multiplied by the weights
+ * of every pair stored next to each other. The votes of the pairs are
+ * counted as LibSVM does, so the predicted labels are the same ones, apart
+ * from rounding differences for points lying on a decision boundary.
+ * </p>
+ * <p>
+ * The values given to {@link #classify(double[])} are the ones the LibSVM
+ * model receives, so they can't contain missing values and must already
+ * be normalized if the classifier normalizes its input.
+ * </p>
+ *
+ * @see SVMClassifier#compileLinearModel()
+ */
+public class CompiledLinearModel {
+
+    private final int NUM_CLASSES;
+    private final int NUM_PAIRS;
+    private final int DIMENSION;
+    private final int CLASS_INDEX;
+    private final double[] WEIGHTS;
+    private final double[] BIASES;
+    private final int[] LABELS;
+
+    private CompiledLinearModel(int numClasses, int dimension,
+            int classIndex, double[] weights, double[] biases, int[] labels) {
+        this.NUM_CLASSES = numClasses;
+        this.NUM_PAIRS = biases.length;
+        this.DIMENSION = dimension;
+        this.CLASS_INDEX = classIndex;
+        this.WEIGHTS = weights;
+        this.BIASES = biases;
+        this.LABELS = labels;
+    }
+
+    /**
+     * Compiles the trained LibSVM model {@code model}, if it's a linear
+     * kernel classification model.
+     *
+     * @param model the trained LibSVM model
+     * @param classIndex the index of the class Attribute in the dataset
+     * the model was trained with, whose value is ignored by
+     * {@link #classify(double[])}
+     * @return the compiled model, or null if the model can't be compiled
+     */
+    static CompiledLinearModel compile(svm_model model, int classIndex) {
+        svm_parameter param = model.param;
+        if(param == null || param.kernel_type != svm_parameter.LINEAR
+                || (param.svm_type != svm_parameter.C_SVC
+                && param.svm_type != svm_parameter.NU_SVC)
+                || model.nSV == null || model.label == null) {
+            return null;
+        }
+        int numClasses = model.nr_class;
+        int numPairs = numClasses * (numClasses - 1) / 2;
+        int dimension = 0;
+        for(int i = 0; i < model.l; i++) {
+            for(svm_node node : model.SV[i]) {
+                dimension = Math.max(dimension, node.index);
+            }
+        }
+        int[] start = new int[numClasses];
+        for(int i = 1; i < numClasses; i++) {
+            start[i] = start[i - 1] + model.nSV[i - 1];
+        }
+        // svm_node indexes start at 1, Attribute indexes at 0
+        double[] weights = new double[dimension * numPairs];
+        double[] biases = new double[numPairs];
+        int pair = 0;
+        for(int i = 0; i < numClasses; i++) {
+            for(int j = i + 1; j < numClasses; j++) {
+                addVectors(model, start[i], model.nSV[i],
+                        model.sv_coef[j - 1], weights, pair, numPairs);
+                addVectors(model, start[j], model.nSV[j],
+                        model.sv_coef[i], weights, pair, numPairs);
+                biases[pair] = -model.rho[pair];
+                pair++;
+            }
+        }
+        return new CompiledLinearModel(numClasses, dimension, classIndex,
+                weights, biases, model.label.clone());
+    }
+
+    /**
+     * Returns the prediction for the Attribute values {@code values}.
+     *
+     * @param values the value of each Attribute, with the layout of the
+     * training dataset, the value of the class Attribute is ignored
+     * @return the prediction value, the same one LibSVM returns
+     */
+    public double classify(double[] values) {
+        double[] decisions = BIASES.clone();
+        int length = Math.min(values.length, DIMENSION);
+        for(int a = 0; a < length; a++) {
+            double value = values[a];
+            if(a != CLASS_INDEX && value != 0) {
+                addWeights(decisions, a, value);
+            }
+        }
+        return vote(decisions);
+    }
+
+    /**
+     * Returns the prediction for {@code instance}, reading only its non
+     * zero values and ignoring the value of its class Attribute.
+     *
+     * @param instance the Instance to be classified, with the layout of the
+     * training dataset
+     * @return the prediction value, the same one LibSVM returns
+     */
+    public double classify(Instance instance) {
+        double[] decisions = BIASES.clone();
+        int classIndex = instance.classIndex();
+        int numValues = instance.numValues();
+        for(int i = 0; i < numValues; i++) {
+            int index = instance.index(i);
+            double value = instance.valueSparse(i);
+            if(index < DIMENSION && index != classIndex && value != 0) {
+                addWeights(decisions, index, value);
+            }
+        }
+        return vote(decisions);
+    }
+
+    /**
+     * Returns the amount of classes of the model.
+     *
+     * @return the number of classes
+     */
+    public int getNumClasses() {
+        return NUM_CLASSES;
+    }
+
+    /**
+     * Returns the amount of Attribute values the weight vectors cover,
+     * values beyond it have no weight in any decision.
+     *
+     * @return the length of the weight vectors
+     */
+    public int getDimension() {
+        return DIMENSION;
+    }
+
+    private void addWeights(double[] decisions, int index, double value) {
+        int offset = index * NUM_PAIRS;
+        for(int p = 0; p < NUM_PAIRS; p++) {
+            decisions[p] += WEIGHTS[offset + p] * value;
+        }
+    }
+
+    private double vote(double[] decisions) {
+        int[] votes = new int[NUM_CLASSES];
+        int pair = 0;
+        for(int i = 0; i < NUM_CLASSES; i++) {
+            for(int j = i + 1; j < NUM_CLASSES; j++) {
+                if(decisions[pair++] > 0) {
+                    votes[i]++;
+                } else {
+                    votes[j]++;
+                }
+            }
+        }
+        int best = 0;
+        for(int i = 1; i < NUM_CLASSES; i++) {
+            if(votes[i] > votes[best]) {
+                best = i;
+            }
+        }
+        return LABELS[best];
+    }
+
+    private static void addVectors(svm_model model, int start, int count,
+            double[] coefficients, double[] weights, int pair, int numPairs) {
+        for(int k = start; k < start + count; k++) {
+            double coefficient = coefficients[k];
+            for(svm_node node : model.SV[k]) {
+                weights[(node.index - 1) * numPairs + pair] +=
+                        coefficient * node.value;
+            }
+        }
+    }
+
+}
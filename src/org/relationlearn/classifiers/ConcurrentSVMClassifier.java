@@ -0,0 +1,296 @@
+package org.relationlearn.classifiers;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import weka.core.Instance;
+
+/**
+ * Class used to classify Instance objects with a trained SVM classifier
+ * from many threads at the same time.
+ *
+ * <p>
+ * A single {@link SVMClassifier} can't be shared between threads, since the
+ * Weka filters applied before each prediction keep state between calls.
+ * This class loads the model once and creates several replicas of its
+ * filters, all of them sharing the trained LibSVM model: Instance objects
+ * that don't need any filter are classified against the shared model
+ * without any lock, and the rest take a replica for themselves until their
+ * prediction is done.
+ * </p>
+ * <p>
+ * When the LibSVM model can't be accessed directly every prediction takes
+ * a replica, and each replica is a full in-memory copy of the classifier,
+ * support vectors included, so every replica adds the size of the model
+ * to the memory used. The training dataset is shared by all the replicas
+ * in both cases.
+ * </p>
+ * <p>
+ * The amount of threads waiting for a replica, the amount of predictions
+ * in progress and their latency are recorded, and can be checked at any
+ * time while the classifier is being used.
+ * </p>
+ *
+ * @see SVMClassifier
+ */
+public class ConcurrentSVMClassifier {
+
+    private static final int LATENCY_BUCKETS = 64;
+
+    /*
+     * Either a copy of the filters of the shared predictor, or a copy of
+     * the whole classifier when the model can't be accessed directly.
+     */
+    private static class Replica {
+
+        private final LibSVMPredictor PREDICTOR;
+        private final SVMClassifier CLASSIFIER;
+
+        public Replica(LibSVMPredictor predictor, SVMClassifier classifier) {
+            this.PREDICTOR = predictor;
+            this.CLASSIFIER = classifier;
+        }
+
+        public double classify(Instance instance) throws Exception {
+            if(PREDICTOR != null) {
+                return PREDICTOR.predict(PREDICTOR.prepareInstance(instance));
+            } else {
+                return CLASSIFIER.classifyInstance(instance);
+            }
+        }
+    }
+
+    private final BlockingQueue<Replica> REPLICAS;
+    private final int REPLICA_COUNT;
+    private final LibSVMPredictor SHARED;
+
+    private final AtomicInteger WAITING;
+    private final AtomicInteger ACTIVE;
+    private final AtomicLong REQUESTS;
+    private final AtomicLong TOTAL_LATENCY;
+    private final AtomicLong MAX_LATENCY;
+    private final AtomicLongArray LATENCY_HISTOGRAM;
+
+    /**
+     * Constructs a new ConcurrentSVMClassifier using the trained classifier
+     * stored in the {@code model} file, with a replica for each available
+     * processor.
+     *
+     * @param model the File containing the trained classifier and its dataset
+     * @throws Exception if any error regarding file reading or object
+     * deserialization happens
+     *
+     * @see SVMClassifier#storeModel(String)
+     */
+    public ConcurrentSVMClassifier(File model) throws Exception {
+        this(model, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new ConcurrentSVMClassifier using the trained classifier
+     * stored in the {@code model} file, with {@code replicas} replicas of
+     * it.
+     *
+     * @param model the File containing the trained classifier and its dataset
+     * @param replicas the amount of replicas of the model filters, which 
+     * limits how many predictions that need the Weka filters can run at 
+     * once
+     * @throws Exception if any error regarding file reading or object
+     * deserialization happens
+     * @throws IllegalArgumentException if {@code replicas} is lower than 1
+     */
+    public ConcurrentSVMClassifier(File model, int replicas)
+            throws Exception {
+        if(replicas < 1) {
+            throw new IllegalArgumentException("The number of replicas must "
+                    + "be greater than 0");
+        }
+        this.REPLICAS = new ArrayBlockingQueue<>(replicas);
+        this.REPLICA_COUNT = replicas;
+        SVMClassifier classifier = new SVMClassifier(model);
+        this.SHARED = classifier.getPredictor();
+        for(int i = 0; i < replicas; i++) {
+            if(SHARED.isDirect()) {
+                REPLICAS.add(new Replica(i == 0 ? SHARED : 
+                        SHARED.copyFilters(), null));
+            } else {
+                REPLICAS.add(new Replica(null, i == 0 ? classifier : 
+                        classifier.copyClassifier()));
+            }
+        }
+        this.WAITING = new AtomicInteger();
+        this.ACTIVE = new AtomicInteger();
+        this.REQUESTS = new AtomicLong();
+        this.TOTAL_LATENCY = new AtomicLong();
+        this.MAX_LATENCY = new AtomicLong();
+        this.LATENCY_HISTOGRAM = new AtomicLongArray(LATENCY_BUCKETS);
+    }
+
+    /**
+     * Classifies the Instance {@code instance} and returns its prediction
+     * value. This method can be called by several threads at the same time.
+     *
+     * @param instance the Instance to be classified
+     * @return the prediction value for this Instance
+     * @throws Exception if any error related to the classification happens
+     * or if the thread is interrupted while waiting for a replica
+     *
+     * @see SVMClassifier#classifyInstance(Instance)
+     */
+    public double classifyInstance(Instance instance) throws Exception {
+        long start = System.nanoTime();
+        ACTIVE.incrementAndGet();
+        try {
+            if(SHARED.isDirect() && !SHARED.needsPreparation(instance)) {
+                return SHARED.predict(instance);
+            } else {
+                return classifyWithReplica(instance);
+            }
+        } finally {
+            ACTIVE.decrementAndGet();
+            recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the amount of replicas of the model filters this classifier
+     * holds.
+     *
+     * @return the number of replicas
+     */
+    public int getReplicaCount() {
+        return REPLICA_COUNT;
+    }
+
+    /**
+     * Returns the amount of threads currently waiting for a replica of the
+     * model to be available.
+     *
+     * @return the number of queued predictions
+     */
+    public int getQueueDepth() {
+        return WAITING.get();
+    }
+
+    /**
+     * Returns the amount of predictions currently in progress, including
+     * the ones waiting for a replica.
+     *
+     * @return the number of active predictions
+     */
+    public int getActiveRequests() {
+        return ACTIVE.get();
+    }
+
+    /**
+     * Returns the amount of predictions completed since this classifier was
+     * created or its metrics were reset.
+     *
+     * @return the number of completed predictions
+     */
+    public long getRequestCount() {
+        return REQUESTS.get();
+    }
+
+    /**
+     * Returns the mean latency of the completed predictions.
+     *
+     * @return the mean latency in nanoseconds, or 0 if no prediction was
+     * completed
+     */
+    public long getMeanLatency() {
+        long requests = REQUESTS.get();
+        return requests == 0 ? 0 : TOTAL_LATENCY.get() / requests;
+    }
+
+    /**
+     * Returns the highest latency of the completed predictions.
+     *
+     * @return the maximum latency in nanoseconds
+     */
+    public long getMaxLatency() {
+        return MAX_LATENCY.get();
+    }
+
+    /**
+     * Returns an upper bound of the latency of the {@code percentile}
+     * percent fastest predictions. Latencies are recorded in power of two
+     * buckets, so the value returned is at most twice the exact one.
+     *
+     * @param percentile the percentile requested, between 0 and 100
+     * @return the latency percentile in nanoseconds, or 0 if no prediction
+     * was completed
+     * @throws IllegalArgumentException if {@code percentile} is not
+     * between 0 and 100
+     */
+    public long getLatencyPercentile(double percentile) {
+        if(percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between "
+                    + "0 and 100");
+        }
+        long[] counts = new long[LATENCY_BUCKETS];
+        long total = 0;
+        for(int i = 0; i < LATENCY_BUCKETS; i++) {
+            counts[i] = LATENCY_HISTOGRAM.get(i);
+            total += counts[i];
+        }
+        long threshold = (long) Math.ceil(total * percentile / 100.0);
+        long accumulated = 0;
+        for(int i = 0; i < LATENCY_BUCKETS; i++) {
+            accumulated += counts[i];
+            if(accumulated >= threshold && accumulated > 0) {
+                long bound = (i < LATENCY_BUCKETS - 1) ? 
+                        (1L << i) - 1 : Long.MAX_VALUE;
+                return Math.min(bound, MAX_LATENCY.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Resets all the latency metrics and the amount of completed
+     * predictions.
+     */
+    public void resetMetrics() {
+        REQUESTS.set(0);
+        TOTAL_LATENCY.set(0);
+        MAX_LATENCY.set(0);
+        for(int i = 0; i < LATENCY_BUCKETS; i++) {
+            LATENCY_HISTOGRAM.set(i, 0);
+        }
+    }
+
+    private double classifyWithReplica(Instance instance) throws Exception {
+        Replica replica = REPLICAS.poll();
+        if(replica == null) {
+            WAITING.incrementAndGet();
+            try {
+                replica = REPLICAS.take();
+            } finally {
+                WAITING.decrementAndGet();
+            }
+        }
+        try {
+            return replica.classify(instance);
+        } finally {
+            REPLICAS.add(replica);
+        }
+    }
+
+    private void recordLatency(long latency) {
+        REQUESTS.incrementAndGet();
+        TOTAL_LATENCY.addAndGet(latency);
+        long max = MAX_LATENCY.get();
+        while(latency > max && !MAX_LATENCY.compareAndSet(max, latency)) {
+            max = MAX_LATENCY.get();
+        }
+        // bucket i holds latencies lower than 2^i nanoseconds
+        int bucket = LATENCY_BUCKETS - Long.numberOfLeadingZeros(latency);
+        LATENCY_HISTOGRAM.incrementAndGet(
+                Math.min(bucket, LATENCY_BUCKETS - 1));
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.relationlearn.classifiers;
+
+import java.util.Arrays;
+
+/**
+ * Class that represents the cross-validation result of a single point of
+ * the grid explored by a {@link SVMGridSearch}.
+ *
+ * @see SVMGridSearch
+ */
+public class GridSearchResult {
+
+    private final String[] OPTIONS;
+    private final int CORRECT;
+    private final int EVALUATED;
+    private final int FOLDS;
+    private final int TOTAL_FOLDS;
+    private final long MILLIS;
+
+    /**
+     * Constructs a new GridSearchResult for the LibSVM options
+     * {@code options}.
+     *
+     * @param options the LibSVM options of the grid point
+     * @param correct the amount of test instances correctly classified
+     * @param evaluated the amount of test instances classified
+     * @param folds the amount of folds evaluated
+     * @param totalFolds the amount of folds of the cross-validation
+     * @param millis the time spent evaluating the grid point
+     */
+    public GridSearchResult(String[] options, int correct, int evaluated,
+            int folds, int totalFolds, long millis) {
+        this.OPTIONS = options.clone();
+        this.CORRECT = correct;
+        this.EVALUATED = evaluated;
+        this.FOLDS = folds;
+        this.TOTAL_FOLDS = totalFolds;
+        this.MILLIS = millis;
+    }
+
+    /**
+     * Returns the LibSVM options of the grid point.
+     *
+     * @return the options array
+     */
+    public String[] getOptions() {
+        return OPTIONS.clone();
+    }
+
+    /**
+     * Returns the accuracy over the test instances of the folds evaluated.
+     *
+     * @return the fraction of test instances correctly classified, between
+     * 0 and 1
+     */
+    public double getAccuracy() {
+        return EVALUATED == 0 ? 0.0 : (double) CORRECT / EVALUATED;
+    }
+
+    /**
+     * Returns the amount of folds evaluated before the grid point finished.
+     *
+     * @return the number of folds evaluated
+     */
+    public int getEvaluatedFolds() {
+        return FOLDS;
+    }
+
+    /**
+     * Returns whether the evaluation of the grid point was stopped before
+     * all the folds were evaluated, because it couldn't reach the accuracy
+     * of the best grid point found.
+     *
+     * @return true if the evaluation was stopped early
+     */
+    public boolean isStoppedEarly() {
+        return FOLDS < TOTAL_FOLDS;
+    }
+
+    /**
+     * Returns the time spent evaluating the grid point.
+     *
+     * @return the evaluation time in milliseconds
+     */
+    public long getMillis() {
+        return MILLIS;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(OPTIONS) + " accuracy: " + getAccuracy()
+                + " folds: " + FOLDS + "/" + TOTAL_FOLDS;
+    }
+
+}
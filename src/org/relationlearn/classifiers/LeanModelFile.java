@@ -0,0 +1,454 @@
+package org.relationlearn.classifiers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import libsvm.svm_model;
+import libsvm.svm_node;
+import libsvm.svm_parameter;
+import weka.classifiers.functions.LibSVM;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Class used to store a trained LibSVM classifier without the Instance
+ * objects it was trained with, and to load it back.
+ *
+ * <p>
+ * A lean model file starts with a magic number and a format version,
+ * followed by the dataset header, that is the relation name, the Attribute
+ * objects with their nominal values and the class index, the total weight
+ * of the training Instance objects of each class value, and then by the
+ * classifier. The trained svm_model is written field by field, each
+ * support vector as its amount of values followed by index and value
+ * pairs, and the rest of the Weka wrapper, its options and its trained
+ * filters, is serialized apart without the model.
+ * </p>
+ * <p>
+ * If the internals of the wrapper can't be read the whole wrapper is
+ * serialized instead, which is larger but still doesn't contain the
+ * training Instance objects.
+ * </p>
+ *
+ * @see SVMClassifier#storeLeanModel(String)
+ * @see SVMClassifier#SVMClassifier(File)
+ */
+class LeanModelFile {
+
+    private static final int MAGIC = 0x524C534D; // "RLSM"
+    private static final int VERSION = 2;
+    // version 1 files don't have the class weights
+    private static final int FIRST_VERSION = 1;
+
+    private static final byte NUMERIC_ATTRIBUTE = 0;
+    private static final byte NOMINAL_ATTRIBUTE = 1;
+
+    private static final byte COMPACT_MODEL = 0;
+    private static final byte SERIALIZED_MODEL = 1;
+
+    private static final String MODEL_FIELD = "m_Model";
+
+    private final LibSVM CLASSIFIER;
+    private final Instances HEADER;
+    private final double[] CLASS_WEIGHTS;
+
+    private LeanModelFile(LibSVM classifier, Instances header,
+            double[] classWeights) {
+        this.CLASSIFIER = classifier;
+        this.HEADER = header;
+        this.CLASS_WEIGHTS = classWeights;
+    }
+
+    /**
+     * Returns the loaded classifier, ready to classify Instance objects.
+     *
+     * @return the trained LibSVM classifier
+     */
+    public LibSVM getClassifier() {
+        return CLASSIFIER;
+    }
+
+    /**
+     * Returns the header of the dataset the classifier was trained with.
+     *
+     * @return an empty Instances object with the training Attribute layout
+     * and class index
+     */
+    public Instances getHeader() {
+        return HEADER;
+    }
+
+    /**
+     * Returns the total weight of the training Instance objects of each
+     * class value, which an Evaluation needs as its class priors.
+     *
+     * @return the weight of each class value, or null if the class
+     * Attribute is not nominal or the file was written without them
+     */
+    public double[] getClassWeights() {
+        return CLASS_WEIGHTS;
+    }
+
+    /**
+     * Returns whether {@code file} starts like a lean model file or not.
+     *
+     * @param file the file to check
+     * @return true if the file is a lean model file, of any version
+     * @throws IOException if any error reading the file happens
+     */
+    public static boolean isLeanModel(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new FileInputStream(file))) {
+            return file.length() >= 4 && in.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Writes {@code classifier} and the header of {@code dataset} to
+     * {@code file}, together with the class weights {@code classWeights}
+     * or, if they're null, the ones of the Instance objects in 
+     * {@code dataset}.
+     *
+     * @param file the File where the model is written
+     * @param classifier the trained LibSVM classifier
+     * @param dataset the training dataset, only its header is written
+     * @param classWeights the weight of each class value, or null
+     * @throws IOException if any error writing the file happens
+     * @throws IllegalArgumentException if the dataset has an Attribute
+     * which is neither numeric nor nominal
+     */
+    public static void write(File file, LibSVM classifier, Instances dataset,
+            double[] classWeights) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeHeader(out, dataset);
+            writeDoubles(out, classWeights != null ? classWeights : 
+                    getClassWeights(dataset));
+            LibSVM wrapper = null;
+            Object model = null;
+            try {
+                model = getModelField().get(classifier);
+                if(model instanceof svm_model) {
+                    wrapper = copyWithoutModel(classifier);
+                }
+            } catch (ReflectiveOperationException | SecurityException ex) {
+                wrapper = null;
+            }
+            if(wrapper != null) {
+                out.writeByte(COMPACT_MODEL);
+                writeObject(out, wrapper);
+                writeModel(out, (svm_model) model);
+            } else {
+                out.writeByte(SERIALIZED_MODEL);
+                writeObject(out, classifier);
+            }
+        }
+    }
+
+    /**
+     * Reads the lean model file {@code file}.
+     *
+     * @param file the lean model file
+     * @return the loaded classifier and dataset header
+     * @throws IOException if any error reading the file happens, or if the
+     * file is not a lean model file of a supported version
+     */
+    public static LeanModelFile read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if(in.readInt() != MAGIC) {
+                throw new IOException("File is not a lean model: " + file);
+            }
+            int version = in.readInt();
+            if(version < FIRST_VERSION || version > VERSION) {
+                throw new IOException("Unsupported lean model version "
+                        + version + " in " + file);
+            }
+            Instances header = readHeader(in);
+            double[] classWeights = null;
+            if(version > FIRST_VERSION) {
+                classWeights = readDoubles(in);
+            }
+            byte type = in.readByte();
+            LibSVM classifier = (LibSVM) readObject(in);
+            if(type == COMPACT_MODEL) {
+                svm_model model = readModel(in);
+                try {
+                    getModelField().set(classifier, model);
+                } catch (ReflectiveOperationException | SecurityException ex) {
+                    throw new IOException("Can't restore the model of "
+                            + file, ex);
+                }
+            } else if(type != SERIALIZED_MODEL) {
+                throw new IOException("Unknown model type " + type + " in "
+                        + file);
+            }
+            return new LeanModelFile(classifier, header, classWeights);
+        }
+    }
+
+    /*
+     * The header layout is shared with the checkpoints of SGDClassifier.
+     */
+    static void writeHeader(DataOutputStream out, Instances dataset)
+            throws IOException {
+        out.writeUTF(dataset.relationName());
+        out.writeInt(dataset.numAttributes());
+        for(int a = 0; a < dataset.numAttributes(); a++) {
+            Attribute attr = dataset.attribute(a);
+            out.writeUTF(attr.name());
+            if(attr.isNominal()) {
+                out.writeByte(NOMINAL_ATTRIBUTE);
+                out.writeInt(attr.numValues());
+                for(int v = 0; v < attr.numValues(); v++) {
+                    out.writeUTF(attr.value(v));
+                }
+            } else if(attr.isNumeric()) {
+                out.writeByte(NUMERIC_ATTRIBUTE);
+            } else {
+                throw new IllegalArgumentException("Attribute " + attr.name()
+                        + " is neither numeric nor nominal");
+            }
+        }
+        out.writeInt(dataset.classIndex());
+    }
+
+    static Instances readHeader(DataInputStream in) throws IOException {
+        String relation = in.readUTF();
+        int numAttributes = in.readInt();
+        FastVector attributes = new FastVector(numAttributes);
+        for(int a = 0; a < numAttributes; a++) {
+            String name = in.readUTF();
+            byte type = in.readByte();
+            if(type == NOMINAL_ATTRIBUTE) {
+                int numValues = in.readInt();
+                FastVector values = new FastVector(numValues);
+                for(int v = 0; v < numValues; v++) {
+                    values.addElement(in.readUTF());
+                }
+                attributes.addElement(new Attribute(name, values));
+            } else if(type == NUMERIC_ATTRIBUTE) {
+                attributes.addElement(new Attribute(name));
+            } else {
+                throw new IOException("Unknown attribute type " + type);
+            }
+        }
+        Instances header = new Instances(relation, attributes, 0);
+        header.setClassIndex(in.readInt());
+        return header;
+    }
+
+    private static double[] getClassWeights(Instances dataset) {
+        if(dataset.classIndex() < 0 || !dataset.classAttribute().isNominal()) {
+            return null;
+        }
+        double[] weights = new double[dataset.numClasses()];
+        for(int i = 0; i < dataset.numInstances(); i++) {
+            Instance instance = dataset.instance(i);
+            if(!instance.classIsMissing()) {
+                weights[(int) instance.classValue()] += instance.weight();
+            }
+        }
+        return weights;
+    }
+
+    private static void writeModel(DataOutputStream out, svm_model model)
+            throws IOException {
+        svm_parameter param = model.param;
+        out.writeInt(param.svm_type);
+        out.writeInt(param.kernel_type);
+        out.writeInt(param.degree);
+        out.writeDouble(param.gamma);
+        out.writeDouble(param.coef0);
+        out.writeDouble(param.cache_size);
+        out.writeDouble(param.eps);
+        out.writeDouble(param.C);
+        out.writeDouble(param.nu);
+        out.writeDouble(param.p);
+        out.writeInt(param.shrinking);
+        out.writeInt(param.probability);
+        out.writeInt(param.nr_weight);
+        writeInts(out, param.weight_label);
+        writeDoubles(out, param.weight);
+        out.writeInt(model.nr_class);
+        out.writeInt(model.l);
+        for(int i = 0; i < model.l; i++) {
+            svm_node[] vector = model.SV[i];
+            out.writeInt(vector.length);
+            for(svm_node node : vector) {
+                out.writeInt(node.index);
+                out.writeDouble(node.value);
+            }
+        }
+        out.writeInt(model.sv_coef.length);
+        for(double[] coefficients : model.sv_coef) {
+            writeDoubles(out, coefficients);
+        }
+        writeDoubles(out, model.rho);
+        writeDoubles(out, model.probA);
+        writeDoubles(out, model.probB);
+        writeInts(out, model.label);
+        writeInts(out, model.nSV);
+    }
+
+    private static svm_model readModel(DataInputStream in)
+            throws IOException {
+        svm_parameter param = new svm_parameter();
+        param.svm_type = in.readInt();
+        param.kernel_type = in.readInt();
+        param.degree = in.readInt();
+        param.gamma = in.readDouble();
+        param.coef0 = in.readDouble();
+        param.cache_size = in.readDouble();
+        param.eps = in.readDouble();
+        param.C = in.readDouble();
+        param.nu = in.readDouble();
+        param.p = in.readDouble();
+        param.shrinking = in.readInt();
+        param.probability = in.readInt();
+        param.nr_weight = in.readInt();
+        param.weight_label = readInts(in);
+        param.weight = readDoubles(in);
+        svm_model model = new svm_model();
+        model.param = param;
+        model.nr_class = in.readInt();
+        model.l = in.readInt();
+        model.SV = new svm_node[model.l][];
+        for(int i = 0; i < model.l; i++) {
+            svm_node[] vector = new svm_node[in.readInt()];
+            for(int j = 0; j < vector.length; j++) {
+                vector[j] = new svm_node();
+                vector[j].index = in.readInt();
+                vector[j].value = in.readDouble();
+            }
+            model.SV[i] = vector;
+        }
+        model.sv_coef = new double[in.readInt()][];
+        for(int i = 0; i < model.sv_coef.length; i++) {
+            model.sv_coef[i] = readDoubles(in);
+        }
+        model.rho = readDoubles(in);
+        model.probA = readDoubles(in);
+        model.probB = readDoubles(in);
+        model.label = readInts(in);
+        model.nSV = readInts(in);
+        return model;
+    }
+
+    /*
+     * Copies every instance field of the wrapper but the model, so the
+     * options and the trained filters are kept without the support vectors.
+     */
+    private static LibSVM copyWithoutModel(LibSVM classifier)
+            throws ReflectiveOperationException {
+        LibSVM copy = classifier.getClass().newInstance();
+        for(Class<?> type = classifier.getClass(); type != null;
+                type = type.getSuperclass()) {
+            for(Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if(!Modifier.isStatic(modifiers)
+                        && !MODEL_FIELD.equals(field.getName())) {
+                    field.setAccessible(true);
+                    field.set(copy, field.get(classifier));
+                }
+            }
+        }
+        return copy;
+    }
+
+    private static Field getModelField() throws ReflectiveOperationException {
+        Field field = LibSVM.class.getDeclaredField(MODEL_FIELD);
+        field.setAccessible(true);
+        return field;
+    }
+
+    private static void writeObject(DataOutputStream out, Object object)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(object);
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private static Object readObject(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try (ObjectInputStream objects = new ObjectInputStream(
+                new ByteArrayInputStream(bytes))) {
+            return objects.readObject();
+        } catch (ClassNotFoundException cnfex) {
+            throw new IOException("Unknown class in model: "
+                    + cnfex.getMessage(), cnfex);
+        }
+    }
+
+    /*
+     * Arrays are prefixed by their length, null is written as -1.
+     */
+    private static void writeDoubles(DataOutputStream out, double[] values)
+            throws IOException {
+        if(values == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(values.length);
+            for(double value : values) {
+                out.writeDouble(value);
+            }
+        }
+    }
+
+    private static double[] readDoubles(DataInputStream in)
+            throws IOException {
+        int length = in.readInt();
+        if(length < 0) {
+            return null;
+        }
+        double[] values = new double[length];
+        for(int i = 0; i < length; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values)
+            throws IOException {
+        if(values == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(values.length);
+            for(int value : values) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if(length < 0) {
+            return null;
+        }
+        int[] values = new int[length];
+        for(int i = 0; i < length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,313 @@
+package org.relationlearn.classifiers;
+
+import java.lang.reflect.Field;
+import libsvm.svm;
+import libsvm.svm_model;
+import libsvm.svm_node;
+import weka.classifiers.functions.LibSVM;
+import weka.core.Instance;
+import weka.filters.Filter;
+
+/**
+ * Class used to obtain the predictions of a trained LibSVM classifier
+ * calling the LibSVM library directly, instead of going through the Weka
+ * wrapper for each Instance.
+ *
+ * <p>
+ * The Weka wrapper builds a new svm_node array through reflection for every
+ * Instance it classifies. This class reads the trained svm_model and the
+ * filters of the wrapper once, including the conversion of nominal
+ * attributes to binary ones, and fills svm_node arrays that are reused by
+ * each thread between predictions. The svm_predict function only reads the
+ * model, so several threads can predict at the same time, while the Weka
+ * filters are not thread-safe and must be applied with
+ * {@link #prepareInstance(Instance)} by a single thread at a time.
+ * </p>
+ * <p>
+ * If the internals of the wrapper can't be read, or the classifier outputs
+ * probability estimates, {@link #isDirect()} returns false and the
+ * predictions must be obtained from the wrapper itself.
+ * </p>
+ *
+ * @see SVMClassifier#classifyBatch(weka.core.Instances)
+ */
+class LibSVMPredictor {
+
+    /*
+     * LibSVM reads the whole svm_node array, so buffers are kept by length
+     * and only returned for exactly the amount of values needed. Only the
+     * short lengths are kept, since a wide sparse dataset would need one
+     * buffer for each amount of values different from zero.
+     */
+    private static class NodeBuffer {
+
+        private static final int MAX_CACHED_LENGTH = 128;
+
+        private svm_node[][] nodesByLength = new svm_node[16][];
+
+        public svm_node[] getNodes(int length) {
+            if(length > MAX_CACHED_LENGTH) {
+                return createNodes(length);
+            }
+            if(length >= nodesByLength.length) {
+                svm_node[][] grown = new svm_node[
+                        Math.min(MAX_CACHED_LENGTH + 1, Math.max(length + 1, 
+                        nodesByLength.length * 2))][];
+                System.arraycopy(nodesByLength, 0, grown, 0,
+                        nodesByLength.length);
+                nodesByLength = grown;
+            }
+            svm_node[] nodes = nodesByLength[length];
+            if(nodes == null) {
+                nodes = createNodes(length);
+                nodesByLength[length] = nodes;
+            }
+            return nodes;
+        }
+
+        private static svm_node[] createNodes(int length) {
+            svm_node[] nodes = new svm_node[length];
+            for(int i = 0; i < length; i++) {
+                nodes[i] = new svm_node();
+            }
+            return nodes;
+        }
+    }
+
+    private final svm_model MODEL;
+    private final Filter REPLACE_MISSING;
+    private final Filter FILTER;
+    private final Filter NOMINAL_TO_BINARY;
+    private final int BINARY_ATTRIBUTES;
+
+    private final ThreadLocal<NodeBuffer> BUFFERS =
+            new ThreadLocal<NodeBuffer>() {
+                @Override
+                protected NodeBuffer initialValue() {
+                    return new NodeBuffer();
+                }
+            };
+
+    /**
+     * Constructs a new LibSVMPredictor for the trained classifier
+     * {@code svm}.
+     *
+     * @param svm the trained LibSVM classifier
+     */
+    public LibSVMPredictor(LibSVM svm) {
+        Object model, replaceMissing, filter, nominalToBinary;
+        try {
+            model = readField(svm, "m_Model");
+            replaceMissing = readField(svm, "m_ReplaceMissingValues");
+            filter = readField(svm, "m_Filter");
+            nominalToBinary = readField(svm, "m_NominalToBinary");
+        } catch (ReflectiveOperationException | SecurityException ex) {
+            model = replaceMissing = filter = nominalToBinary = null;
+        }
+        if(model instanceof svm_model && !svm.getProbabilityEstimates()
+                && (replaceMissing == null || replaceMissing instanceof Filter)
+                && (filter == null || filter instanceof Filter)
+                && (nominalToBinary == null 
+                        || nominalToBinary instanceof Filter)) {
+            this.MODEL = (svm_model) model;
+            this.REPLACE_MISSING = svm.getDoNotReplaceMissingValues() ?
+                    null : (Filter) replaceMissing;
+            this.FILTER = (Filter) filter;
+            this.NOMINAL_TO_BINARY = (Filter) nominalToBinary;
+            this.BINARY_ATTRIBUTES = countOutputAttributes(NOMINAL_TO_BINARY);
+        } else {
+            this.MODEL = null;
+            this.REPLACE_MISSING = null;
+            this.FILTER = null;
+            this.NOMINAL_TO_BINARY = null;
+            this.BINARY_ATTRIBUTES = -1;
+        }
+    }
+
+    private LibSVMPredictor(svm_model model, Filter replaceMissing, Filter filter, Filter nominalToBinary,
+            int binaryAttributes) {
+        this.MODEL = model;
+        this.REPLACE_MISSING = replaceMissing;
+        this.FILTER = filter;
+        this.NOMINAL_TO_BINARY = nominalToBinary;
+        this.BINARY_ATTRIBUTES = binaryAttributes;
+    }
+
+    /*
+     * A predictor sharing the svm_model of this one, with its own copy of
+     * the filters so both can prepare Instance objects at the same time.
+     */
+    LibSVMPredictor copyFilters() throws Exception {
+        return new LibSVMPredictor(MODEL,
+                REPLACE_MISSING == null ? null : 
+                        Filter.makeCopy(REPLACE_MISSING),
+                FILTER == null ? null : Filter.makeCopy(FILTER),
+                NOMINAL_TO_BINARY == null ? null : 
+                        Filter.makeCopy(NOMINAL_TO_BINARY),
+                BINARY_ATTRIBUTES);
+    }
+
+    /**
+     * Returns whether the predictions are computed calling LibSVM directly
+     * or not.
+     *
+     * @return true if {@link #predict(Instance)} can be used, false if the
+     * predictions must be obtained from the Weka wrapper
+     */
+    public boolean isDirect() {
+        return MODEL != null;
+    }
+
+    /**
+     * Returns whether the classifier applies a filter other than the
+     * replacement of missing values to each Instance or not.
+     *
+     * @return true if the classifier filters its input
+     */
+    public boolean usesFilter() {
+        return FILTER != null;
+    }
+
+    /**
+     * Returns the trained LibSVM model compiled to weight vectors, when its
+     * kernel is linear.
+     *
+     * @param classIndex the index of the class Attribute of the training
+     * dataset
+     * @return a new CompiledLinearModel, or null if the model can't be
+     * compiled
+     */
+    public CompiledLinearModel compileLinearModel(int classIndex) {
+        return isDirect() ? CompiledLinearModel.compile(MODEL, classIndex)
+                : null;
+    }
+
+    /**
+     * Returns whether {@code instance} must go through
+     * {@link #prepareInstance(Instance)} before calling
+     * {@link #predict(Instance)} or not.
+     *
+     * @param instance the Instance to be classified
+     * @return true if any filter of the classifier must be applied to the
+     * Instance
+     */
+    public boolean needsPreparation(Instance instance) {
+        return FILTER != null
+                || (REPLACE_MISSING != null && hasMissingValues(instance))
+                || changesAttributes(instance.numAttributes());
+    }
+
+    /**
+     * Returns whether the conversion of nominal attributes to binary ones 
+     * the classifier was trained with changes the indexes of the attributes
+     * of a dataset or not. Nominal attributes with two values are converted
+     * to a single binary attribute with the same value, so the conversion
+     * only needs to be applied when any nominal attribute has more values.
+     *
+     * @param numAttributes the amount of attributes of the dataset
+     * @return true if the attributes given to LibSVM are not the ones of the
+     * dataset
+     */
+    public boolean changesAttributes(int numAttributes) {
+        return NOMINAL_TO_BINARY != null 
+                && BINARY_ATTRIBUTES != numAttributes;
+    }
+
+    /**
+     * Applies the filters the classifier was trained with to
+     * {@code instance}, the same way the Weka wrapper does before each
+     * prediction. This method must not be called by several threads at the
+     * same time.
+     *
+     * @param instance the Instance to be classified
+     * @return the filtered Instance
+     * @throws Exception if any error related to the filters happens
+     */
+    public Instance prepareInstance(Instance instance) throws Exception {
+        Instance prepared = instance;
+        if(REPLACE_MISSING != null) {
+            prepared = applyFilter(REPLACE_MISSING, prepared);
+        }
+        if(FILTER != null) {
+            prepared = applyFilter(FILTER, prepared);
+        }
+        if(changesAttributes(prepared.numAttributes())) {
+            prepared = applyFilter(NOMINAL_TO_BINARY, prepared);
+        }
+        return prepared;
+    }
+
+    /**
+     * Returns the prediction of the classifier for {@code instance}, which
+     * must have been prepared if {@link #needsPreparation(Instance)}
+     * returns true for it. This method can be called by several threads at
+     * the same time.
+     *
+     * @param instance the Instance to be classified
+     * @return the prediction value for this Instance
+     */
+    public double predict(Instance instance) {
+        int classIndex = instance.classIndex();
+        int numValues = instance.numValues();
+        int count = 0;
+        for(int i = 0; i < numValues; i++) {
+            if(instance.index(i) != classIndex
+                    && instance.valueSparse(i) != 0) {
+                count++;
+            }
+        }
+        svm_node[] nodes = BUFFERS.get().getNodes(count);
+        int position = 0;
+        for(int i = 0; i < numValues; i++) {
+            int index = instance.index(i);
+            double value = instance.valueSparse(i);
+            if(index != classIndex && value != 0) {
+                nodes[position].index = index + 1;
+                nodes[position].value = value;
+                position++;
+            }
+        }
+        return svm.svm_predict(MODEL, nodes);
+    }
+
+    private boolean hasMissingValues(Instance instance) {
+        int classIndex = instance.classIndex();
+        for(int i = 0; i < instance.numValues(); i++) {
+            if(instance.index(i) != classIndex
+                    && Double.isNaN(instance.valueSparse(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Instance applyFilter(Filter filter, Instance instance)
+            throws Exception {
+        filter.input(instance);
+        filter.batchFinished();
+        return filter.output();
+    }
+
+    /*
+     * The amount of attributes given to LibSVM, or -1 if it is unknown, in
+     * which case the conversion is always applied.
+     */
+    private static int countOutputAttributes(Filter filter) {
+        if(filter != null) {
+            try {
+                return filter.getOutputFormat().numAttributes();
+            } catch (RuntimeException ex) {
+                // the output format is missing
+            }
+        }
+        return -1;
+    }
+
+    private static Object readField(LibSVM svm, String name)
+            throws ReflectiveOperationException {
+        Field field = LibSVM.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(svm);
+    }
+
+}
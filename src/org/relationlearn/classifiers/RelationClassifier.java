@@ -0,0 +1,80 @@
+package org.relationlearn.classifiers;
+
+import java.util.concurrent.ForkJoinPool;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Interface that defines the operations shared by the classifiers used to
+ * assign a relation type to the Instance objects generated from argument
+ * pairs.
+ *
+ * @see SVMClassifier
+ * @see SGDClassifier
+ */
+public interface RelationClassifier {
+
+    /**
+     * Sets specific classifier options.
+     *
+     * @param options option array to be passed to the classifier
+     * @throws Exception if option parsing fails
+     */
+    void setOptions(String options[]) throws Exception;
+
+    /**
+     * Trains this classifier from scratch with the data found in
+     * {@code trainData}.
+     *
+     * @param trainData the data to be used for this classifier training
+     * @throws Exception if any problem related to the training happens
+     */
+    void trainClassifier(Instances trainData) throws Exception;
+
+    /**
+     * Classifies the Instance {@code instance} and returns its prediction
+     * value.
+     *
+     * @param instance the Instance to be classified
+     * @return the prediction value for this Instance
+     * @throws Exception if any error related to the classification happens
+     * or if the classifier is not trained
+     */
+    double classifyInstance(Instance instance) throws Exception;
+
+    /**
+     * Classifies all the Instance objects of {@code instances} and returns
+     * their prediction values, in the same order.
+     *
+     * @param instances the Instances to be classified
+     * @return the array of prediction values
+     * @throws Exception if any error related to the classification happens
+     * or if the classifier is not trained
+     */
+    double[] classifyBatch(Instances instances) throws Exception;
+
+    /**
+     * Classifies all the Instance objects of {@code instances} and returns
+     * their prediction values, in the same order, using {@code pool} to
+     * classify them in parallel.
+     *
+     * @param instances the Instances to be classified
+     * @param pool the ForkJoinPool used to classify the Instance objects, or
+     * null to classify them in the calling thread
+     * @return the array of prediction values
+     * @throws Exception if any error related to the classification happens
+     * or if the classifier is not trained
+     */
+    double[] classifyBatch(Instances instances, ForkJoinPool pool)
+            throws Exception;
+
+    /**
+     * Stores the trained classifier in the path {@code path}, in the format
+     * its constructor taking a File reads.
+     *
+     * @param path the path where the classifier will be stored
+     * @throws Exception if any error related to the storage process happens
+     */
+    void storeModel(String path) throws Exception;
+
+}
@@ -0,0 +1,517 @@
+package org.relationlearn.classifiers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.relationlearn.exception.ClassifierNotTrainedException;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Class used to classify Instance objects with a multinomial logistic
+ * regression model trained by stochastic gradient descent, which can be
+ * updated with new Instance objects at any time instead of being trained
+ * again from scratch.
+ *
+ * <p>
+ * Each Instance updates the weights of every class once, with a learning
+ * rate adapted to each weight (AdaGrad), so Attribute objects with very
+ * different scales, such as counts and ratios, don't need to be normalized.
+ * The weights are kept small with an L2 penalty. Missing values are
+ * treated as zeros and Instance objects with a missing class value are
+ * ignored.
+ * </p>
+ * <p>
+ * The state of the model, including the adaptive learning rates, is
+ * written by {@link #storeModel(String)}, so a stored model can be loaded
+ * and updated later exactly as if it had never been stopped. The options
+ * are:
+ * </p>
+ * <ul>
+ * <li>{@code -sgd-rate <rate>} the base learning rate, by default
+ * {@value #DEFAULT_LEARNING_RATE}</li>
+ * <li>{@code -sgd-lambda <lambda>} the L2 penalty, by default
+ * {@value #DEFAULT_LAMBDA}</li>
+ * <li>{@code -sgd-epochs <epochs>} the passes over the data done by
+ * {@link #trainClassifier(Instances)}, by default
+ * {@value #DEFAULT_EPOCHS}</li>
+ * <li>{@code -sgd-seed <seed>} the seed used to shuffle the data of each
+ * pass, by default 1</li>
+ * </ul>
+ *
+ * @see RelationClassifier
+ */
+public class SGDClassifier implements RelationClassifier {
+
+    /**
+     * Default base learning rate.
+     */
+    public static final double DEFAULT_LEARNING_RATE = 0.1;
+
+    /**
+     * Default L2 penalty.
+     */
+    public static final double DEFAULT_LAMBDA = 1e-4;
+
+    /**
+     * Default amount of passes over the training data.
+     */
+    public static final int DEFAULT_EPOCHS = 5;
+
+    private static final int MAGIC = 0x524C5347; // "RLSG"
+    private static final int VERSION = 1;
+
+    private static final double EPSILON = 1e-8;
+
+    private class BatchTask extends RecursiveAction {
+
+        private final Instances BATCH;
+        private final double[] RESULTS;
+        private final int START;
+        private final int END;
+
+        public BatchTask(Instances batch, double[] results, int start,
+                int end) {
+            this.BATCH = batch;
+            this.RESULTS = results;
+            this.START = start;
+            this.END = end;
+        }
+
+        @Override
+        protected void compute() {
+            if((END - START) <= SVMClassifier.DEFAULT_CHUNK_SIZE) {
+                double[] scores = new double[numClasses];
+                for(int i = START; i < END; i++) {
+                    RESULTS[i] = maxIndex(score(BATCH.instance(i), scores));
+                }
+            } else {
+                int middle = (START + END) >>> 1;
+                invokeAll(new BatchTask(BATCH, RESULTS, START, middle),
+                        new BatchTask(BATCH, RESULTS, middle, END));
+            }
+        }
+    }
+
+    private double learningRate;
+    private double lambda;
+    private int epochs;
+    private long seed;
+
+    private Instances header;
+    private int numClasses;
+    private int numAttributes;
+    private double[][] weights;
+    private double[][] squaredGradients;
+    private long updates;
+
+    /**
+     * Constructs a new untrained SGD classifier with the default options.
+     */
+    public SGDClassifier() {
+        this.learningRate = DEFAULT_LEARNING_RATE;
+        this.lambda = DEFAULT_LAMBDA;
+        this.epochs = DEFAULT_EPOCHS;
+        this.seed = 1L;
+    }
+
+    /**
+     * Constructs a new trained SGD classifier using the state stored in the
+     * {@code model} file, which can be used to classify and can be updated.
+     *
+     * @param model the File written by {@link #storeModel(String)}
+     * @throws IOException if any error reading the file happens, or if the
+     * file is not a model of a supported version
+     */
+    public SGDClassifier(File model) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(model)))) {
+            if(in.readInt() != MAGIC) {
+                throw new IOException("File is not an SGD model: " + model);
+            }
+            int version = in.readInt();
+            if(version != VERSION) {
+                throw new IOException("Unsupported SGD model version "
+                        + version + " in " + model);
+            }
+            this.learningRate = in.readDouble();
+            this.lambda = in.readDouble();
+            this.epochs = in.readInt();
+            this.seed = in.readLong();
+            this.updates = in.readLong();
+            initialize(LeanModelFile.readHeader(in));
+            for(int c = 0; c < numClasses; c++) {
+                for(int a = 0; a <= numAttributes; a++) {
+                    weights[c][a] = in.readDouble();
+                    squaredGradients[c][a] = in.readDouble();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether {@code file} was written by
+     * {@link #storeModel(String)} or not.
+     *
+     * @param file the file to check
+     * @return true if the file is an SGD model, of any version
+     * @throws IOException if any error reading the file happens
+     */
+    public static boolean isSGDModel(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new FileInputStream(file))) {
+            return file.length() >= 4 && in.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Sets the options of the SGD training, which apply to the updates
+     * done from now on. Empty entries are skipped. The array is not 
+     * modified.
+     *
+     * @param options option array with the options described in the class
+     * documentation
+     * @throws IllegalArgumentException if an option is unknown or its 
+     * value is missing or not valid
+     */
+    @Override
+    public void setOptions(String options[]) {
+        for(int i = 0; i < options.length; i++) {
+            String option = options[i];
+            if(option.isEmpty()) {
+                continue;
+            }
+            if(!"-sgd-rate".equals(option) && !"-sgd-lambda".equals(option)
+                    && !"-sgd-epochs".equals(option) 
+                    && !"-sgd-seed".equals(option)) {
+                throw new IllegalArgumentException("Unknown SGD option: "
+                        + option);
+            }
+            if(i + 1 == options.length) {
+                throw new IllegalArgumentException("Missing value for "
+                        + option);
+            }
+            String value = options[++i];
+            try {
+                switch(option) {
+                    case "-sgd-rate":
+                        learningRate = Double.parseDouble(value);
+                        break;
+                    case "-sgd-lambda":
+                        lambda = Double.parseDouble(value);
+                        break;
+                    case "-sgd-epochs":
+                        epochs = Integer.parseInt(value);
+                        break;
+                    default:
+                        seed = Long.parseLong(value);
+                }
+            } catch (NumberFormatException nfex) {
+                throw new IllegalArgumentException("Wrong value for "
+                        + option + ": " + value);
+            }
+        }
+        if(learningRate <= 0 || lambda < 0 || epochs < 1) {
+            throw new IllegalArgumentException("The learning rate and the "
+                    + "epochs must be greater than 0 and lambda can't be "
+                    + "negative");
+        }
+    }
+
+    /**
+     * Trains this classifier from scratch, doing the configured amount of
+     * passes over {@code trainData}, each one in a different random order.
+     *
+     * @param trainData the data to be used for this classifier training,
+     * with a nominal class Attribute, it's not modified
+     * @throws IllegalArgumentException if the class Attribute of
+     * {@code trainData} is not nominal
+     */
+    @Override
+    public void trainClassifier(Instances trainData) {
+        initialize(new Instances(trainData, 0));
+        updates = 0;
+        Instances shuffled = new Instances(trainData);
+        Random random = new Random(seed);
+        for(int e = 0; e < epochs; e++) {
+            shuffled.randomize(random);
+            update(shuffled);
+        }
+    }
+
+    /**
+     * Updates the model with every Instance object of {@code instances}, in
+     * order, in a single pass. An untrained classifier takes the Attribute
+     * layout of {@code instances}.
+     *
+     * @param instances the new training data
+     * @throws IllegalArgumentException if the Attribute layout of
+     * {@code instances} is not the one this classifier was trained with
+     */
+    public void update(Instances instances) {
+        if(header == null) {
+            initialize(new Instances(instances, 0));
+        }
+        checkLayout(instances);
+        double[] scores = new double[numClasses];
+        for(int i = 0; i < instances.numInstances(); i++) {
+            updateInstance(instances.instance(i), scores);
+        }
+    }
+
+    /**
+     * Updates the model with {@code instance}. An untrained classifier takes
+     * the Attribute layout of the dataset of {@code instance}.
+     *
+     * @param instance the new training Instance, with its dataset set
+     * @throws IllegalArgumentException if the Instance has no dataset or
+     * its Attribute layout is not the one this classifier was trained with
+     */
+    public void update(Instance instance) {
+        Instances dataset = instance.dataset();
+        if(dataset == null) {
+            throw new IllegalArgumentException("The Instance has no "
+                    + "dataset");
+        }
+        if(header == null) {
+            initialize(new Instances(dataset, 0));
+        }
+        checkLayout(dataset);
+        updateInstance(instance, new double[numClasses]);
+    }
+
+    /**
+     * Returns the amount of Instance objects used to update this classifier
+     * since it was trained from scratch.
+     *
+     * @return the number of updates
+     */
+    public long getUpdateCount() {
+        return updates;
+    }
+
+    /**
+     * Returns the probability of each class for {@code instance}.
+     *
+     * @param instance the Instance to be classified
+     * @return the probability of each class value
+     * @throws ClassifierNotTrainedException if the classifier is not trained
+     */
+    public double[] distributionForInstance(Instance instance)
+            throws ClassifierNotTrainedException {
+        checkTrained();
+        return softmax(score(instance, new double[numClasses]));
+    }
+
+    @Override
+    public double classifyInstance(Instance instance)
+            throws ClassifierNotTrainedException {
+        checkTrained();
+        return maxIndex(score(instance, new double[numClasses]));
+    }
+
+    @Override
+    public double[] classifyBatch(Instances instances)
+            throws ClassifierNotTrainedException {
+        return classifyBatch(instances, null);
+    }
+
+    /**
+     * Classifies all the Instance objects of {@code instances} and returns
+     * their prediction values, in the same order, splitting the batch in
+     * chunks of {@link SVMClassifier#DEFAULT_CHUNK_SIZE} Instance objects
+     * classified in parallel using {@code pool}. The classifier must not be
+     * updated at the same time.
+     *
+     * @param instances the Instances to be classified
+     * @param pool the ForkJoinPool used to classify the Instance objects, or
+     * null to classify them in the calling thread
+     * @return the array of prediction values
+     * @throws ClassifierNotTrainedException if the classifier is not trained
+     */
+    @Override
+    public double[] classifyBatch(Instances instances, ForkJoinPool pool)
+            throws ClassifierNotTrainedException {
+        checkTrained();
+        double[] results = new double[instances.numInstances()];
+        if(pool == null || results.length <= SVMClassifier.DEFAULT_CHUNK_SIZE) {
+            double[] scores = new double[numClasses];
+            for(int i = 0; i < results.length; i++) {
+                results[i] = maxIndex(score(instances.instance(i), scores));
+            }
+        } else {
+            pool.invoke(new BatchTask(instances, results, 0, 
+                    results.length));
+        }
+        return results;
+    }
+
+    /**
+     * Stores the state of the classifier in the path {@code path}. The file
+     * is written to a temporary file first and then renamed, so a previous
+     * model in the same path is only replaced once the new one is complete.
+     *
+     * @param path the path where the model will be stored
+     * @throws IOException if any error writing the file happens
+     * @throws ClassifierNotTrainedException if the classifier is not trained
+     *
+     * @see #SGDClassifier(File)
+     */
+    @Override
+    public void storeModel(String path) throws IOException,
+            ClassifierNotTrainedException {
+        checkTrained();
+        File target = new File(path).getAbsoluteFile();
+        File temp = File.createTempFile(target.getName(), ".tmp",
+                target.getParentFile());
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeDouble(learningRate);
+                out.writeDouble(lambda);
+                out.writeInt(epochs);
+                out.writeLong(seed);
+                out.writeLong(updates);
+                LeanModelFile.writeHeader(out, header);
+                for(int c = 0; c < numClasses; c++) {
+                    for(int a = 0; a <= numAttributes; a++) {
+                        out.writeDouble(weights[c][a]);
+                        out.writeDouble(squaredGradients[c][a]);
+                    }
+                }
+            }
+            try {
+                Files.move(temp.toPath(), target.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnsex) {
+                Files.move(temp.toPath(), target.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    private void initialize(Instances dataset) {
+        if(dataset.classIndex() < 0 || !dataset.classAttribute().isNominal()) {
+            throw new IllegalArgumentException("The class Attribute must be "
+                    + "nominal");
+        }
+        this.header = dataset;
+        this.numClasses = dataset.numClasses();
+        this.numAttributes = dataset.numAttributes();
+        // the last weight of each class is its bias
+        this.weights = new double[numClasses][numAttributes + 1];
+        this.squaredGradients = new double[numClasses][numAttributes + 1];
+    }
+
+    private void checkLayout(Instances dataset) {
+        if(dataset.numAttributes() != numAttributes
+                || dataset.classIndex() != header.classIndex()
+                || dataset.numClasses() != numClasses) {
+            throw new IllegalArgumentException("The Attribute layout of "
+                    + dataset.relationName() + " is not the one the "
+                    + "classifier was trained with");
+        }
+    }
+
+    private void checkTrained() throws ClassifierNotTrainedException {
+        if(header == null) {
+            throw new ClassifierNotTrainedException();
+        }
+    }
+
+    /*
+     * One AdaGrad step over the cross-entropy loss of the Instance plus the
+     * L2 penalty of the weights it touches, the bias is not penalized.
+     */
+    private void updateInstance(Instance instance, double[] scores) {
+        int classIndex = header.classIndex();
+        double classValue = instance.value(classIndex);
+        if(Double.isNaN(classValue)) {
+            return;
+        }
+        double[] probabilities = softmax(score(instance, scores));
+        double weight = instance.weight();
+        int numValues = instance.numValues();
+        for(int c = 0; c < numClasses; c++) {
+            double error = weight * (probabilities[c]
+                    - (c == (int) classValue ? 1.0 : 0.0));
+            double[] w = weights[c];
+            double[] g2 = squaredGradients[c];
+            for(int i = 0; i < numValues; i++) {
+                int a = instance.index(i);
+                double value = instance.valueSparse(i);
+                if(a != classIndex && value != 0 && !Double.isNaN(value)) {
+                    double gradient = error * value + lambda * w[a];
+                    g2[a] += gradient * gradient;
+                    w[a] -= learningRate * gradient
+                            / (Math.sqrt(g2[a]) + EPSILON);
+                }
+            }
+            g2[numAttributes] += error * error;
+            w[numAttributes] -= learningRate * error
+                    / (Math.sqrt(g2[numAttributes]) + EPSILON);
+        }
+        updates++;
+    }
+
+    private double[] score(Instance instance, double[] scores) {
+        int classIndex = header.classIndex();
+        int numValues = instance.numValues();
+        for(int c = 0; c < numClasses; c++) {
+            double[] w = weights[c];
+            double sum = w[numAttributes];
+            for(int i = 0; i < numValues; i++) {
+                int a = instance.index(i);
+                double value = instance.valueSparse(i);
+                if(a != classIndex && a < numAttributes
+                        && !Double.isNaN(value)) {
+                    sum += w[a] * value;
+                }
+            }
+            scores[c] = sum;
+        }
+        return scores;
+    }
+
+    private static double[] softmax(double[] scores) {
+        double max = scores[0];
+        for(double score : scores) {
+            max = Math.max(max, score);
+        }
+        double total = 0;
+        for(int c = 0; c < scores.length; c++) {
+            scores[c] = Math.exp(scores[c] - max);
+            total += scores[c];
+        }
+        for(int c = 0; c < scores.length; c++) {
+            scores[c] /= total;
+        }
+        return scores;
+    }
+
+    private static int maxIndex(double[] scores) {
+        int best = 0;
+        for(int c = 1; c < scores.length; c++) {
+            if(scores[c] > scores[best]) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+}
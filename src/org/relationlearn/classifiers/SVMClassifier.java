@@ -1,7 +1,10 @@
 package org.relationlearn.classifiers;
 
 import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import org.relationlearn.exception.ClassifierNotTrainedException;
+import weka.classifiers.Classifier;
 import weka.classifiers.Evaluation;
 import weka.classifiers.functions.LibSVM;
 import weka.core.Instance;
@@ -16,10 +19,52 @@ import weka.core.SerializationHelper;
  * @see org.relationlearn.util.InstanceGenerator
  * @see weka.classifiers.functions.LibSVM
  */
-public class SVMClassifier {
+public class SVMClassifier implements RelationClassifier {
+    
+    /**
+     * Default amount of Instance objects classified by each task when a
+     * batch is classified in parallel.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+    
+    private static class BatchTask extends RecursiveAction {
+        
+        private final LibSVMPredictor PREDICTOR;
+        private final Instance[] BATCH;
+        private final double[] RESULTS;
+        private final int START;
+        private final int END;
+        
+        public BatchTask(LibSVMPredictor predictor, Instance[] batch, 
+                double[] results, int start, int end) {
+            this.PREDICTOR = predictor;
+            this.BATCH = batch;
+            this.RESULTS = results;
+            this.START = start;
+            this.END = end;
+        }
+
+        @Override
+        protected void compute() {
+            if((END - START) <= DEFAULT_CHUNK_SIZE) {
+                for(int i = START; i < END; i++) {
+                    RESULTS[i] = PREDICTOR.predict(BATCH[i]);
+                }
+            } else {
+                int middle = (START + END) >>> 1;
+                invokeAll(new BatchTask(PREDICTOR, BATCH, RESULTS, 
+                        START, middle),
+                        new BatchTask(PREDICTOR, BATCH, RESULTS, 
+                                middle, END));
+            }
+        }
+    }
     
     private final LibSVM SVM;
     private Instances TRAIN_INS;
+    // class priors of lean models, whose TRAIN_INS is only a header
+    private double[] classWeights;
+    private volatile LibSVMPredictor predictor;
     
     /**
      * Constructs a new untrained SVM classifier.
@@ -30,16 +75,32 @@ public class SVMClassifier {
     
     /**
      * Constructs a new trained SVM classifier using the data stored in the
-     * {@code model} parameter.
+     * {@code model} parameter, either by {@link #storeModel(String)} or by
+     * {@link #storeLeanModel(String)}.
      * 
      * @param model the File containing the trained classifier and its dataset
      * @throws Exception if any error regarding file reading or object
      * deserialization happens
      */
     public SVMClassifier(File model) throws Exception {
-        Object objs[] = SerializationHelper.readAll(model.getAbsolutePath());
-        SVM = tryCastObject(objs[0], LibSVM.class);
-        TRAIN_INS = tryCastObject(objs[1], Instances.class);
+        if(LeanModelFile.isLeanModel(model)) {
+            LeanModelFile lean = LeanModelFile.read(model);
+            SVM = lean.getClassifier();
+            TRAIN_INS = lean.getHeader();
+            classWeights = lean.getClassWeights();
+        } else {
+            Object objs[] = SerializationHelper.readAll(
+                    model.getAbsolutePath());
+            SVM = tryCastObject(objs[0], LibSVM.class);
+            TRAIN_INS = tryCastObject(objs[1], Instances.class);
+        }
+    }
+    
+    private SVMClassifier(LibSVM svm, Instances trainData, 
+            double[] classWeights) {
+        SVM = svm;
+        TRAIN_INS = trainData;
+        this.classWeights = classWeights;
     }
     
     /**
@@ -54,6 +115,7 @@ public class SVMClassifier {
      */
     public void setOptions(String options[]) throws Exception {
         this.SVM.setOptions(options);
+        this.predictor = null;
     }
     
     /**
@@ -65,6 +127,8 @@ public class SVMClassifier {
     public void trainClassifier(Instances trainData) throws Exception {
         SVM.buildClassifier(trainData);
         TRAIN_INS = trainData;
+        classWeights = null;
+        predictor = null;
     }
     
     /**
@@ -82,6 +146,25 @@ public class SVMClassifier {
         SerializationHelper.writeAll(path, objs);
     }
     
+    /**
+     * Tries to store the classifier and the header of the training dataset
+     * in the path {@code path}, without the training Instance objects. The
+     * file is smaller and faster to load than the one written by 
+     * {@link #storeModel(String)}, and is read by the same constructor.
+     * 
+     * @param path the path where the data will be stored
+     * @throws Exception if any error related to the storage process happens
+     * or if the classifier is not trained
+     * 
+     * @see #SVMClassifier(File)
+     */
+    public void storeLeanModel(String path) throws Exception {
+        if(TRAIN_INS == null) {
+            throw new ClassifierNotTrainedException();
+        }
+        LeanModelFile.write(new File(path), SVM, TRAIN_INS, classWeights);
+    }
+    
     /**
      * Classifies the Instance {@code instance} and returns its prediction
      * value.
@@ -101,6 +184,150 @@ public class SVMClassifier {
         }
     }
     
+    /**
+     * Classifies all the Instance objects of {@code instances} and returns
+     * their prediction values, in the same order.
+     * 
+     * @param instances the Instances to be classified
+     * @return the array of prediction values
+     * @throws Exception if any error related to the classification happens
+     * or if the classifier is not trained
+     * 
+     * @see #classifyBatch(Instances, ForkJoinPool)
+     */
+    public double[] classifyBatch(Instances instances) throws Exception {
+        return classifyBatch(instances, null);
+    }
+    
+    /**
+     * Classifies all the Instance objects of {@code instances} and returns
+     * their prediction values, in the same order, splitting the batch in
+     * chunks of {@link #DEFAULT_CHUNK_SIZE} Instance objects classified in 
+     * parallel using {@code pool}.
+     * 
+     * <p>
+     * The predictions are the same ones {@link #classifyInstance(Instance)}
+     * returns, but the trained LibSVM model is called directly and the 
+     * arrays it takes as input are reused between calls, which removes 
+     * most of the cost of classifying each Instance. The class values of
+     * the Instance objects are ignored, so they don't need to be set as
+     * missing.
+     * </p>
+     * 
+     * @param instances the Instances to be classified
+     * @param pool the ForkJoinPool used to classify the Instance objects, or
+     * null to classify them in the calling thread
+     * @return the array of prediction values
+     * @throws Exception if any error related to the classification happens
+     * or if the classifier is not trained
+     */
+    public double[] classifyBatch(Instances instances, ForkJoinPool pool) 
+            throws Exception {
+        Instance[] batch = new Instance[instances.numInstances()];
+        for(int i = 0; i < batch.length; i++) {
+            batch[i] = instances.instance(i);
+        }
+        return classify(batch, pool);
+    }
+    
+    /**
+     * Classifies each row of {@code values} and returns their prediction
+     * values, in the same order.
+     * 
+     * @param values the Attribute values of each Instance to classify, 
+     * with the layout of the training dataset
+     * @return the array of prediction values
+     * @throws Exception if any error related to the classification happens
+     * or if the classifier is not trained
+     * 
+     * @see #classifyAll(double[][], ForkJoinPool)
+     */
+    public double[] classifyAll(double[][] values) throws Exception {
+        return classifyAll(values, null);
+    }
+    
+    /**
+     * Classifies each row of {@code values} and returns their prediction
+     * values, in the same order, splitting the rows in chunks of 
+     * {@link #DEFAULT_CHUNK_SIZE} classified in parallel using {@code pool}.
+     * 
+     * <p>
+     * Each row must contain a value for every Attribute of the training 
+     * dataset, including the class Attribute, whose value is ignored. The
+     * rows are used as they are, without being copied.
+     * </p>
+     * 
+     * @param values the Attribute values of each Instance to classify, 
+     * with the layout of the training dataset
+     * @param pool the ForkJoinPool used to classify the rows, or null to
+     * classify them in the calling thread
+     * @return the array of prediction values
+     * @throws Exception if any error related to the classification happens
+     * or if the classifier is not trained
+     * @throws IllegalArgumentException if any row doesn't have as many 
+     * values as Attribute objects has the training dataset
+     * 
+     * @see #classifyBatch(Instances, ForkJoinPool)
+     */
+    public double[] classifyAll(double[][] values, ForkJoinPool pool) 
+            throws Exception {
+        if(TRAIN_INS == null) {
+            throw new ClassifierNotTrainedException();
+        }
+        Instance[] batch = new Instance[values.length];
+        for(int i = 0; i < batch.length; i++) {
+            if(values[i].length != TRAIN_INS.numAttributes()) {
+                throw new IllegalArgumentException("Row " + i + " has " 
+                        + values[i].length + " values instead of " 
+                        + TRAIN_INS.numAttributes());
+            }
+            batch[i] = new Instance(1.0, values[i]);
+            batch[i].setDataset(TRAIN_INS);
+        }
+        return classify(batch, pool);
+    }
+    
+    /**
+     * Compiles the trained model of this classifier to a weight vector per
+     * pair of classes, which classifies arrays of Attribute values with a
+     * dot product instead of evaluating the kernel with every support 
+     * vector. The compiled model adds up the values in a different order
+     * than LibSVM, so an Instance lying on a decision boundary may get a 
+     * different prediction than the one of 
+     * {@link #classifyInstance(Instance)}, which is why 
+     * {@link #classifyBatch(Instances)} and {@link #classifyAll(double[][])}
+     * never use it.
+     * 
+     * @return the compiled model
+     * @throws ClassifierNotTrainedException if the classifier is not trained
+     * @throws IllegalStateException if the kernel of the model is not 
+     * linear, the model can't be accessed or the classifier normalizes the
+     * Instance objects or converts their nominal attributes to several 
+     * binary ones before classifying them
+     * 
+     * @see CompiledLinearModel
+     */
+    public CompiledLinearModel compileLinearModel() 
+            throws ClassifierNotTrainedException {
+        if(TRAIN_INS == null) {
+            throw new ClassifierNotTrainedException();
+        }
+        LibSVMPredictor current = getPredictor();
+        CompiledLinearModel compiled = 
+                current.compileLinearModel(TRAIN_INS.classIndex());
+        if(compiled == null) {
+            throw new IllegalStateException("Only linear kernel "
+                    + "classification models can be compiled");
+        }
+        if(current.usesFilter()
+                || current.changesAttributes(TRAIN_INS.numAttributes())) {
+            throw new IllegalStateException("The classifier filters the "
+                    + "Instance objects, the compiled model would need the "
+                    + "filtered values");
+        }
+        return compiled;
+    }
+    
     /**
      * Evaluates this classifier using a the test Instances provided by
      * the parameter {@code test}.
@@ -112,11 +339,85 @@ public class SVMClassifier {
      */
     public double[] testClassifier(Instances test) throws Exception {
         if(TRAIN_INS != null) {
-            Evaluation eval = new Evaluation(TRAIN_INS);
-            return eval.evaluateModel(SVM, test);
+            return createEvaluation().evaluateModel(SVM, test);
+        } else {
+            throw new ClassifierNotTrainedException();
+        }
+    }
+    
+    private double[] classify(Instance[] batch, ForkJoinPool pool) 
+            throws Exception {
+        if(TRAIN_INS == null) {
+            throw new ClassifierNotTrainedException();
+        }
+        LibSVMPredictor current = getPredictor();
+        double[] results = new double[batch.length];
+        // Weka filters keep state between calls, so they're used by a 
+        // single thread at a time
+        synchronized(SVM) {
+            for(int i = 0; i < batch.length; i++) {
+                if(!current.isDirect()) {
+                    results[i] = SVM.classifyInstance(batch[i]);
+                } else if(current.needsPreparation(batch[i])) {
+                    batch[i] = current.prepareInstance(batch[i]);
+                }
+            }
+        }
+        if(!current.isDirect()) {
+            return results;
+        }
+        if(pool == null || batch.length <= DEFAULT_CHUNK_SIZE) {
+            for(int i = 0; i < batch.length; i++) {
+                results[i] = current.predict(batch[i]);
+            }
         } else {
+            pool.invoke(new BatchTask(current, batch, results, 
+                    0, batch.length));
+        }
+        return results;
+    }
+    
+    /*
+     * The predictor of the current model, created the first time it's
+     * needed and discarded whenever the model changes.
+     */
+    LibSVMPredictor getPredictor() {
+        LibSVMPredictor current = predictor;
+        if(current == null) {
+            current = new LibSVMPredictor(SVM);
+            predictor = current;
+        }
+        return current;
+    }
+    
+    /*
+     * An Evaluation with the class priors of the training dataset, which
+     * for lean models are the class weights stored with the header.
+     */
+    Evaluation createEvaluation() throws Exception {
+        Evaluation eval = new Evaluation(TRAIN_INS);
+        if(classWeights != null) {
+            for(int c = 0; c < classWeights.length; c++) {
+                Instance prior = new Instance(TRAIN_INS.numAttributes());
+                prior.setDataset(TRAIN_INS);
+                prior.setClassValue(c);
+                prior.setWeight(classWeights[c]);
+                eval.updatePriors(prior);
+            }
+        }
+        return eval;
+    }
+    
+    /*
+     * An in-memory copy of this trained classifier, which shares the 
+     * training dataset instead of copying it.
+     */
+    SVMClassifier copyClassifier() throws Exception {
+        if(TRAIN_INS == null) {
             throw new ClassifierNotTrainedException();
         }
+        return new SVMClassifier((LibSVM) Classifier.makeCopy(SVM), 
+                TRAIN_INS, classWeights);
     }
     
     private <T> T tryCastObject(Object objs, Class<T> type) 
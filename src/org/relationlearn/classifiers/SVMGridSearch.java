@@ -0,0 +1,340 @@
+package org.relationlearn.classifiers;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import weka.core.Instances;
+
+/**
+ * Class used to select the LibSVM options of an {@link SVMClassifier} by
+ * k-fold cross-validation over a grid of option values.
+ *
+ * <p>
+ * The grid is defined by the values of one or more options, for example
+ * {@code addParameter("-C", "0.1", "1", "10")}, and every combination of
+ * them is evaluated. The folds are built only once from the given Instances
+ * and shared by all the grid points, which are evaluated in parallel with
+ * the ExecutorService given to
+ * {@link #search(ExecutorService)}.
+ * </p>
+ * <p>
+ * The folds of each grid point are evaluated in order, and after each one
+ * the best accuracy the point could still reach is checked: if it's lower
+ * than the accuracy of the best grid point already completed, the point is
+ * stopped early, since it can't be selected anyway. The result is the same
+ * as if every point was fully evaluated: the grid point with the highest
+ * accuracy, or the first one in grid order if several share it.
+ * </p>
+ *
+ * @see GridSearchResult
+ * @see SVMClassifier
+ */
+public class SVMGridSearch {
+
+    /**
+     * Default amount of folds of the cross-validation.
+     */
+    public static final int DEFAULT_FOLDS = 5;
+
+    private class PointEvaluation implements Callable<GridSearchResult> {
+
+        private final String[] POINT;
+
+        public PointEvaluation(String[] point) {
+            this.POINT = point;
+        }
+
+        @Override
+        public GridSearchResult call() throws Exception {
+            long start = System.nanoTime();
+            int total = DATA.numInstances();
+            int correct = 0;
+            int evaluated = 0;
+            int folds = 0;
+            while(folds < FOLDS) {
+                SVMClassifier classifier = new SVMClassifier();
+                classifier.setOptions(getOptions(POINT));
+                classifier.trainClassifier(TRAIN_FOLDS[folds]);
+                double[] predictions =
+                        classifier.classifyBatch(TEST_FOLDS[folds]);
+                for(int i = 0; i < predictions.length; i++) {
+                    if(predictions[i] == TEST_CLASSES[folds][i]) {
+                        correct++;
+                    }
+                }
+                evaluated += predictions.length;
+                folds++;
+                int remaining = total - evaluated;
+                if(folds < FOLDS && (double) (correct + remaining) / total
+                        < getBestAccuracy()) {
+                    break;
+                }
+            }
+            if(folds == FOLDS) {
+                updateBestAccuracy((double) correct / total);
+            }
+            return new GridSearchResult(POINT, correct, evaluated, folds,
+                    FOLDS, (System.nanoTime() - start) / 1000000);
+        }
+    }
+
+    private final Instances DATA;
+    private final int FOLDS;
+    private final Instances[] TRAIN_FOLDS;
+    private final Instances[] TEST_FOLDS;
+    private final double[][] TEST_CLASSES;
+
+    private final List<String> PARAMETERS;
+    private final List<String[]> VALUES;
+
+    private String[] baseOptions;
+    private double bestAccuracy;
+
+    /**
+     * Constructs a new SVMGridSearch which evaluates each grid point with a
+     * {@link #DEFAULT_FOLDS}-fold cross-validation over {@code data}.
+     *
+     * @param data the Instances used to evaluate the grid, with a nominal
+     * class Attribute
+     *
+     * @see #SVMGridSearch(Instances, int, long)
+     */
+    public SVMGridSearch(Instances data) {
+        this(data, DEFAULT_FOLDS, 1L);
+    }
+
+    /**
+     * Constructs a new SVMGridSearch which evaluates each grid point with a
+     * {@code folds}-fold cross-validation over {@code data}, whose
+     * Instance objects are shuffled with the seed {@code seed} and
+     * stratified before being split.
+     *
+     * @param data the Instances used to evaluate the grid, with a nominal
+     * class Attribute, they're not modified
+     * @param folds the amount of folds of the cross-validation
+     * @param seed the seed used to shuffle the Instance objects
+     *
+     * @throws IllegalArgumentException if the class Attribute of
+     * {@code data} is not nominal, or {@code folds} is lower than 2 or
+     * greater than the amount of Instance objects in {@code data}
+     */
+    public SVMGridSearch(Instances data, int folds, long seed) {
+        if(data.classIndex() < 0 || !data.classAttribute().isNominal()) {
+            throw new IllegalArgumentException("The class Attribute must be "
+                    + "nominal");
+        }
+        if(folds < 2 || folds > data.numInstances()) {
+            throw new IllegalArgumentException("The number of folds must be "
+                    + "between 2 and the number of instances");
+        }
+        this.DATA = new Instances(data);
+        this.FOLDS = folds;
+        DATA.randomize(new Random(seed));
+        DATA.stratify(folds);
+        this.TRAIN_FOLDS = new Instances[folds];
+        this.TEST_FOLDS = new Instances[folds];
+        this.TEST_CLASSES = new double[folds][];
+        for(int i = 0; i < folds; i++) {
+            TRAIN_FOLDS[i] = DATA.trainCV(folds, i);
+            TEST_FOLDS[i] = DATA.testCV(folds, i);
+            TEST_CLASSES[i] = new double[TEST_FOLDS[i].numInstances()];
+            for(int j = 0; j < TEST_CLASSES[i].length; j++) {
+                TEST_CLASSES[i][j] = TEST_FOLDS[i].instance(j).classValue();
+            }
+        }
+        this.PARAMETERS = new ArrayList<>();
+        this.VALUES = new ArrayList<>();
+        this.baseOptions = new String[0];
+    }
+
+    /**
+     * Sets the LibSVM options shared by all the grid points, such as the
+     * kernel type. When an option is both a base option and a grid
+     * parameter, the value of the grid is used.
+     *
+     * @param options the base options
+     */
+    public void setBaseOptions(String[] options) {
+        this.baseOptions = options.clone();
+    }
+
+    /**
+     * Adds the LibSVM option {@code option} to the grid, with every value
+     * in {@code values}.
+     *
+     * @param option the option flag, for example {@code "-C"}
+     * @param values the values of the option to evaluate
+     *
+     * @throws IllegalArgumentException if there are no values
+     */
+    public void addParameter(String option, String... values) {
+        if(values.length == 0) {
+            throw new IllegalArgumentException("No values given for "
+                    + option);
+        }
+        PARAMETERS.add(option);
+        VALUES.add(values.clone());
+    }
+
+    /**
+     * Returns every combination of the parameter values added to the grid,
+     * as LibSVM option arrays, in the order they're evaluated.
+     *
+     * @return the grid points, a single empty one if no parameter was added
+     */
+    public List<String[]> getGridPoints() {
+        List<String[]> points = new ArrayList<>();
+        points.add(new String[0]);
+        for(int p = 0; p < PARAMETERS.size(); p++) {
+            List<String[]> expanded = new ArrayList<>();
+            for(String[] point : points) {
+                for(String value : VALUES.get(p)) {
+                    String[] next = Arrays.copyOf(point, point.length + 2);
+                    next[point.length] = PARAMETERS.get(p);
+                    next[point.length + 1] = value;
+                    expanded.add(next);
+                }
+            }
+            points = expanded;
+        }
+        return points;
+    }
+
+    /**
+     * Evaluates every grid point using {@code executor} and returns their
+     * results in grid order.
+     *
+     * @param executor the ExecutorService where the grid points are
+     * evaluated, each one in a single task
+     * @return the results of every grid point
+     * @throws Exception if any error related to training or classification
+     * happens
+     *
+     * @see #getBestResult(List)
+     */
+    public List<GridSearchResult> search(ExecutorService executor)
+            throws Exception {
+        synchronized(this) {
+            bestAccuracy = -1.0;
+        }
+        List<Future<GridSearchResult>> futures = new ArrayList<>();
+        for(String[] point : getGridPoints()) {
+            futures.add(executor.submit(new PointEvaluation(point)));
+        }
+        List<GridSearchResult> results = new ArrayList<>(futures.size());
+        try {
+            for(Future<GridSearchResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException eex) {
+            for(Future<GridSearchResult> future : futures) {
+                future.cancel(true);
+            }
+            if(eex.getCause() instanceof Exception) {
+                throw (Exception) eex.getCause();
+            } else {
+                throw eex;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Trains a new SVMClassifier with all the Instance objects and the
+     * options of {@code best}, together with the base options.
+     *
+     * @param best the result of the selected grid point
+     * @return the trained classifier
+     * @throws Exception if any error related to the training happens
+     */
+    public SVMClassifier trainClassifier(GridSearchResult best)
+            throws Exception {
+        SVMClassifier classifier = new SVMClassifier();
+        classifier.setOptions(getOptions(best.getOptions()));
+        classifier.trainClassifier(DATA);
+        return classifier;
+    }
+
+    /**
+     * Returns the fully evaluated result with the highest accuracy, the
+     * first one if several share it.
+     *
+     * @param results the results of a search
+     * @return the best result, or null if no result was fully evaluated
+     */
+    public static GridSearchResult getBestResult(
+            List<GridSearchResult> results) {
+        GridSearchResult best = null;
+        for(GridSearchResult result : results) {
+            if(!result.isStoppedEarly() && (best == null
+                    || result.getAccuracy() > best.getAccuracy())) {
+                best = result;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Writes {@code results} to {@code file} as a table of tab separated
+     * values, with a header line and a line for each grid point.
+     *
+     * @param results the results of a search
+     * @param file the File where the table is written
+     * @throws IOException if any error writing the file happens
+     */
+    public static void writeResults(List<GridSearchResult> results,
+            File file) throws IOException {
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("options\taccuracy\tfolds\tstopped_early\tmillis\n");
+            for(GridSearchResult result : results) {
+                StringBuilder options = new StringBuilder();
+                for(String option : result.getOptions()) {
+                    if(options.length() > 0) {
+                        options.append(' ');
+                    }
+                    options.append(option);
+                }
+                writer.write(options + "\t" + result.getAccuracy() + "\t"
+                        + result.getEvaluatedFolds() + "\t"
+                        + result.isStoppedEarly() + "\t"
+                        + result.getMillis() + "\n");
+            }
+        }
+    }
+
+    /*
+     * LibSVM uses the first occurrence of each option and removes the
+     * options it parses from the array, so a new array is built each time
+     * with the grid point options first.
+     */
+    private String[] getOptions(String[] point) {
+        String[] options = Arrays.copyOf(point,
+                point.length + baseOptions.length);
+        System.arraycopy(baseOptions, 0, options, point.length,
+                baseOptions.length);
+        return options;
+    }
+
+    private synchronized double getBestAccuracy() {
+        return bestAccuracy;
+    }
+
+    private synchronized void updateBestAccuracy(double accuracy) {
+        if(accuracy > bestAccuracy) {
+            bestAccuracy = accuracy;
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.relationlearn.filters;
+
+import org.relationlearn.util.AnalyzedText;
+import weka.core.Instance;
+
+/**
+ * The AnalyzedFilterGroup interface represents a FilterGroup capable of
+ * working with already analyzed texts, which allows the caller to reuse the
+ * analysis of a text between all the pairs it takes part in, and of 
+ * holding MultiTextFilter objects.
+ *
+ * <p>
+ * The Instance returned by 
+ * {@link #createInstanceUsingFilters(AnalyzedText, AnalyzedText)} must have
+ * the same values {@link FilterGroup#createInstanceUsingFilters(String, 
+ * String)} returns for the original texts. Users of a FilterGroup should
+ * check whether it implements this interface and use the String version
+ * otherwise.
+ * </p>
+ *
+ * @see FilterGroup
+ * @see MultiTextFilter
+ * @see org.relationlearn.util.AnalyzedText
+ */
+public interface AnalyzedFilterGroup extends FilterGroup {
+
+    /**
+     * Generates an Instance object by applying all the TextFilter elements
+     * contained in the FilterGroup to the already analyzed texts provided, 
+     * which allows the caller to reuse the analysis of a text between 
+     * several pairs.
+     * 
+     * @param r Response text in the argumentation, already analyzed
+     * @param h Hypothesis text in the argumentation, already analyzed
+     * @return an Instance with one Attribute for each TextFilter in the
+     * FilterGroup
+     * 
+     * @see org.relationlearn.util.AnalyzedText
+     * @see weka.core.Instance
+     */
+    public Instance createInstanceUsingFilters(AnalyzedText r, 
+            AnalyzedText h);
+
+    /**
+     * Adds a new MultiTextFilter to the FilterGroup, all its Attribute 
+     * elements are added to the group in the order the filter returns them.
+     * 
+     * @param filter the MultiTextFilter to be added to this FilterGroup
+     * 
+     * @see MultiTextFilter
+     */
+    public void addFilter(MultiTextFilter filter);
+
+}
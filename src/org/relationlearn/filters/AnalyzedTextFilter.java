@@ -0,0 +1,36 @@
+package org.relationlearn.filters;
+
+import org.relationlearn.util.AnalyzedText;
+
+/**
+ * The AnalyzedTextFilter interface represents a TextFilter capable of
+ * working with already analyzed texts, which allows FilterGroup
+ * implementations to tokenize each text of a pair only once and share the
+ * results between all the filters of the group.
+ *
+ * <p>
+ * The value returned by {@link #filter(AnalyzedText, AnalyzedText)} must be
+ * the same one {@link TextFilter#filter(String, String)} returns for the
+ * original texts.
+ * </p>
+ *
+ * @see TextFilter
+ * @see org.relationlearn.util.AnalyzedText
+ */
+public interface AnalyzedTextFilter extends TextFilter {
+
+    /**
+     * Filters the corresponding pair of analyzed texts and returns its
+     * value in the weka internal floating-point format.
+     *
+     * @param r Response text in the argumentation
+     * @param h Hypothesis text in the argumentation
+     *
+     * @return the value of this filter Attribute in weka internal
+     * floating-point format
+     *
+     * @see TextFilter#filter(String, String)
+     */
+    public double filter(AnalyzedText r, AnalyzedText h);
+
+}
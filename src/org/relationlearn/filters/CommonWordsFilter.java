@@ -1,24 +1,45 @@
 package org.relationlearn.filters;
 
-import com.aliasi.tokenizer.LowerCaseTokenizerFactory;
-import com.aliasi.tokenizer.RegExTokenizerFactory;
-import com.aliasi.tokenizer.TokenizerFactory;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import org.relationlearn.util.TextUtils;
+import org.relationlearn.util.AnalyzedText;
+import org.relationlearn.util.TokenDictionary;
 import weka.core.Attribute;
 
 /**
  * An implementation of TextFilter which returns the ratio of words that
  * appear in both texts compared to the total number of different words found
  * in both texts.
+ * 
+ * <p>
+ * Words are compared in lower case through their identifiers in the shared
+ * {@link TokenDictionary}, and the ratio is computed
+ * by merging the sorted identifiers of both texts, so no String is compared
+ * or hashed. Only the words the dictionary doesn't hold, once it is full,
+ * are merged as sorted Strings. Those words are looked up again for each 
+ * pair of texts, since a word may have been registered after one of the
+ * texts was analyzed and have an identifier in the other one.
+ * </p>
  */
-public class CommonWordsFilter implements TextFilter {
+public class CommonWordsFilter implements AnalyzedTextFilter {
     
-    private final Attribute FILTER_ATTR;
+    /*
+     * Sorted lower case words of a text, by identifier and, for the words
+     * without identifier, as Strings.
+     */
+    private static class SortedWords {
+        
+        private final int[] IDS;
+        private final String[] UNKNOWN;
+        
+        public SortedWords(int[] ids, String[] unknown) {
+            this.IDS = ids;
+            this.UNKNOWN = unknown;
+        }
+    }
     
-    private final TokenizerFactory TOKENIZER;
+    private static final String[] NO_WORDS = new String[0];
+    
+    private final Attribute FILTER_ATTR;
     
     /**
      * Constructs a CommonWordsFilter with the Attribute name set
@@ -37,9 +58,6 @@ public class CommonWordsFilter implements TextFilter {
      */
     public CommonWordsFilter(String name) {
         this.FILTER_ATTR = new Attribute(name);
-        TokenizerFactory regToken = 
-                new RegExTokenizerFactory(TextUtils.WORDS_PATTERN);
-        TOKENIZER = new LowerCaseTokenizerFactory(regToken);
     }
     
     @Override
@@ -49,28 +67,143 @@ public class CommonWordsFilter implements TextFilter {
     
     @Override
     public double filter(String r, String h) {
-        List<String> rlst, hlst;
-        rlst = new ArrayList<>(Arrays.asList(
-                TextUtils.getTokensFromTextUsingFactory(r, TOKENIZER)));
-        hlst = new ArrayList<>(Arrays.asList(
-                TextUtils.getTokensFromTextUsingFactory(h, TOKENIZER)));
-        return getCommonWordRatio(rlst, hlst);
+        return filter(new AnalyzedText(r), new AnalyzedText(h));
+    }
+    
+    @Override
+    public double filter(AnalyzedText r, AnalyzedText h) {
+        SortedWords rwords = resolveUnknownWords(getSortedWords(r));
+        SortedWords hwords = resolveUnknownWords(getSortedWords(h));
+        // [total, common]
+        int[] counts = new int[2];
+        countWordIds(rwords.IDS, hwords.IDS, counts);
+        countWords(rwords.UNKNOWN, hwords.UNKNOWN, counts);
+        return getCommonWordRatio(counts[0], counts[1]);
+    }
+    
+    private SortedWords getSortedWords(AnalyzedText text) {
+        Object cached = text.getCachedResult(this);
+        if(cached == null) {
+            int[] ids = text.getLowerCaseTokenIds().clone();
+            Arrays.sort(ids);
+            // unknown identifiers are negative, so they're sorted first
+            int unknown = 0;
+            while(unknown < ids.length 
+                    && ids[unknown] == TokenDictionary.UNKNOWN_ID) {
+                unknown++;
+            }
+            String[] words = NO_WORDS;
+            if(unknown > 0) {
+                int[] original = text.getLowerCaseTokenIds();
+                String[] lowerCase = text.getLowerCaseTokens();
+                words = new String[unknown];
+                int position = 0;
+                for(int i = 0; i < original.length; i++) {
+                    if(original[i] == TokenDictionary.UNKNOWN_ID) {
+                        words[position++] = lowerCase[i];
+                    }
+                }
+                Arrays.sort(words);
+                ids = Arrays.copyOfRange(ids, unknown, ids.length);
+            }
+            cached = text.cacheResult(this, new SortedWords(ids, words));
+        }
+        return (SortedWords) cached;
+    }
+    
+    /*
+     * The words without identifier when the text was analyzed, moved to the
+     * identifiers if the dictionary has assigned them one since then.
+     */
+    private static SortedWords resolveUnknownWords(SortedWords words) {
+        if(words.UNKNOWN.length == 0) {
+            return words;
+        }
+        TokenDictionary dictionary = TokenDictionary.getSharedDictionary();
+        int[] resolved = new int[words.UNKNOWN.length];
+        String[] unknown = new String[words.UNKNOWN.length];
+        int resolvedCount = 0, unknownCount = 0;
+        for(String word : words.UNKNOWN) {
+            int id = dictionary.lookup(word);
+            if(id == TokenDictionary.UNKNOWN_ID) {
+                unknown[unknownCount++] = word;
+            } else {
+                resolved[resolvedCount++] = id;
+            }
+        }
+        if(resolvedCount == 0) {
+            return words;
+        }
+        int[] ids = Arrays.copyOf(words.IDS, words.IDS.length 
+                + resolvedCount);
+        System.arraycopy(resolved, 0, ids, words.IDS.length, resolvedCount);
+        Arrays.sort(ids);
+        // still sorted, it keeps the order of the original words
+        return new SortedWords(ids, Arrays.copyOf(unknown, unknownCount));
     }
     
-    private double getCommonWordRatio(List<String> rlst, List<String> hlst) {
+    /*
+     * Each word found in both texts counts once, while the words found in
+     * only one of them count as many times as they appear in it. Both arrays
+     * are sorted, so equal words form runs that are merged in a single pass.
+     */
+    private void countWordIds(int[] rids, int[] hids, int[] counts) {
         int totalWords = 0, commonWords = 0;
-        String word;
-        for(int i = 0; i < rlst.size(); i++) {
-            word = rlst.get(i);
-            if(hlst.contains(word)) {
-                i--;
+        int i = 0, j = 0;
+        while(i < rids.length && j < hids.length) {
+            if(rids[i] < hids[j]) {
+                i++;
+                totalWords++;
+            } else if(rids[i] > hids[j]) {
+                j++;
+                totalWords++;
+            } else {
+                int word = rids[i];
+                while(i < rids.length && rids[i] == word) {
+                    i++;
+                }
+                while(j < hids.length && hids[j] == word) {
+                    j++;
+                }
                 commonWords++;
+            }
+        }
+        totalWords += (rids.length - i) + (hids.length - j);
+        counts[0] += totalWords + commonWords;
+        counts[1] += commonWords;
+    }
+    
+    /*
+     * Same merge as countWordIds for the words without identifier.
+     */
+    private void countWords(String[] rwords, String[] hwords, int[] counts) {
+        int totalWords = 0, commonWords = 0;
+        int i = 0, j = 0;
+        while(i < rwords.length && j < hwords.length) {
+            int comparison = rwords[i].compareTo(hwords[j]);
+            if(comparison < 0) {
+                i++;
                 totalWords++;
-                while(rlst.remove(word)){}
-                while(hlst.remove(word)){}
+            } else if(comparison > 0) {
+                j++;
+                totalWords++;
+            } else {
+                String word = rwords[i];
+                while(i < rwords.length && rwords[i].equals(word)) {
+                    i++;
+                }
+                while(j < hwords.length && hwords[j].equals(word)) {
+                    j++;
+                }
+                commonWords++;
             }
         }
-        totalWords += (rlst.size() + hlst.size());
+        totalWords += (rwords.length - i) + (hwords.length - j);
+        counts[0] += totalWords + commonWords;
+        counts[1] += commonWords;
+    }
+    
+    private double getCommonWordRatio(int totalWords, int commonWords) {
         if(totalWords > 0) {
             return ((double) commonWords / (double) totalWords);
         } else {
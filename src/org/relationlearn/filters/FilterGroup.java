@@ -12,6 +12,7 @@ import weka.core.Instances;
  * attributes as the number of TextFilter objects present in the group.
  * 
  * @see TextFilter
+ * @see AnalyzedFilterGroup
  * @see weka.core.Instance
  */
 public interface FilterGroup {
@@ -0,0 +1,133 @@
+package org.relationlearn.filters;
+
+import java.util.Locale;
+import weka.core.Instance;
+import weka.core.SparseInstance;
+
+/**
+ * Enumeration of the ways the values generated by a FilterGroup can be
+ * packed in an Instance object.
+ *
+ * <p>
+ * A {@link weka.core.SparseInstance SparseInstance} only stores the values
+ * different from zero together with their positions, so when the group has
+ * thousands of attributes, such as the ones of a bag of words, and most of
+ * them are zero, the Instance objects need far less memory and the
+ * classifiers, which only read the stored values, train and classify them
+ * faster. For a few attributes a dense Instance is cheaper, as each stored
+ * value of a SparseInstance also needs its position.
+ * </p>
+ * <p>
+ * The format used by default is read from the system property
+ * {@value #FORMAT_PROPERTY}, which can take the values {@code dense},
+ * {@code sparse} or {@code auto}, being {@link #DENSE} the one used when
+ * the property is not defined.
+ * </p>
+ *
+ * @see SequentialFilterGroup#setInstanceFormat(InstanceFormat)
+ * @see weka.core.SparseInstance
+ */
+public enum InstanceFormat {
+
+    /**
+     * Every Instance stores all its values.
+     */
+    DENSE,
+
+    /**
+     * Every Instance only stores its values different from zero.
+     */
+    SPARSE,
+
+    /**
+     * Every Instance only stores its values different from zero when the
+     * dataset has at least {@value #AUTO_MIN_ATTRIBUTES} Attribute objects,
+     * otherwise every Instance stores all its values. The format only 
+     * depends on the amount of Attribute objects, so all the Instance 
+     * objects of a dataset are packed the same way.
+     */
+    AUTO;
+
+    /**
+     * System property that defines the default InstanceFormat.
+     */
+    public static final String FORMAT_PROPERTY = "relationlearn.instances";
+
+    /**
+     * Minimum amount of Attribute objects a dataset must have for its
+     * Instance objects to be stored as SparseInstance objects with the
+     * format {@link #AUTO}.
+     */
+    public static final int AUTO_MIN_ATTRIBUTES = 64;
+
+    /**
+     * Returns the InstanceFormat defined by the system property
+     * {@value #FORMAT_PROPERTY}, or {@link #DENSE} if it is not defined.
+     *
+     * @return the default InstanceFormat
+     * @throws IllegalArgumentException if the property value is not a valid
+     * format name
+     */
+    public static InstanceFormat getDefault() {
+        String format = System.getProperty(FORMAT_PROPERTY);
+        if(format == null) {
+            return DENSE;
+        }
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException iaex) {
+            throw new IllegalArgumentException("Unknown instance format: "
+                    + format + ", expected dense, sparse or auto");
+        }
+    }
+
+    /**
+     * Returns the format used for the Instance objects of a dataset with
+     * {@code numAttributes} Attribute objects, which is always 
+     * {@link #DENSE} or {@link #SPARSE}.
+     *
+     * @param numAttributes the amount of Attribute objects of the dataset
+     * @return the format of the Instance objects of the dataset
+     */
+    public InstanceFormat resolve(int numAttributes) {
+        if(this == AUTO) {
+            return numAttributes >= AUTO_MIN_ATTRIBUTES ? SPARSE : DENSE;
+        }
+        return this;
+    }
+
+    /**
+     * Creates an Instance object with the weight {@code weight} and the
+     * values {@code values}, packed with this format. The array may be
+     * used by the Instance as it is, so it must not be modified afterwards.
+     *
+     * @param weight the weight of the Instance
+     * @param values the values of the Instance, one for each Attribute of
+     * the dataset
+     * @return a new Instance, with no dataset assigned
+     */
+    public Instance createInstance(double weight, double[] values) {
+        if(resolve(values.length) == DENSE) {
+            return new Instance(weight, values);
+        }
+        int count = 0;
+        for(double value : values) {
+            if(value != 0) {
+                count++;
+            }
+        }
+        double[] sparseValues = new double[count];
+        int[] indices = new int[count];
+        int position = 0;
+        for(int i = 0; i < values.length; i++) {
+            if(values[i] != 0) {
+                sparseValues[position] = values[i];
+                indices[position] = i;
+                position++;
+            }
+        }
+        return new SparseInstance(weight, sparseValues, indices,
+                values.length);
+    }
+
+}
@@ -0,0 +1,154 @@
+package org.relationlearn.filters;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.relationlearn.util.AhoCorasickAutomaton;
+import org.relationlearn.util.AnalyzedText;
+import weka.core.Attribute;
+import weka.core.FastVector;
+
+/**
+ * An implementation of MultiTextFilter which checks, for each word of a
+ * list of keywords, if the texts given contain it or not.
+ *
+ * <p>
+ * Each keyword is mapped to a nominal Attribute with the values NO and YES,
+ * and the same results a {@link WordSearchFilter} would give for each one
+ * of them are returned. All the keywords are searched at once with an
+ * {@link AhoCorasickAutomaton}, so each text is scanned a single time no
+ * matter how many keywords are configured.
+ * </p>
+ * <p>
+ * This filter can be loaded from a {@link SequentialFilterGroup}
+ * configuration file, passing the keywords as a comma separated list:
+ * </p>
+ * <pre>
+ * {@code
+ * <filter id="5" local="yes" relative="yes" classpath="your/path/here">
+ *  org.relationlearn.filters.KeywordSearchFilter
+ *  <filter_params>
+ *      <param>cue-</param>
+ *      <param>however,disagree,agree,but</param>
+ *  </filter_params>
+ * </filter>
+ * }
+ * </pre>
+ *
+ * @see WordSearchFilter
+ * @see AhoCorasickAutomaton
+ */
+public class KeywordSearchFilter implements MultiTextFilter {
+
+    private enum AttributeValues { NO, YES; }
+
+    private static final String SEPARATOR = ",";
+
+    private final FastVector ATTR_VEC;
+    private final FastVector FILTER_ATTRS;
+
+    private final AhoCorasickAutomaton AUTOMATON;
+
+    private final double VALUE_NO;
+    private final double VALUE_YES;
+
+    /**
+     * Constructs a KeywordSearchFilter with the Attribute names set to
+     * "word-search-" followed by each keyword, and the keywords to search
+     * set to the comma separated list {@code keywords}.
+     *
+     * @param keywords the comma separated list of keywords to search
+     */
+    public KeywordSearchFilter(String keywords) {
+        this("word-search-", keywords);
+    }
+
+    /**
+     * Constructs a KeywordSearchFilter with the Attribute names set to
+     * {@code prefix} followed by each keyword, and the keywords to search
+     * set to the comma separated list {@code keywords}.
+     *
+     * @param prefix the prefix of the Attribute names of this filter
+     * @param keywords the comma separated list of keywords to search
+     */
+    public KeywordSearchFilter(String prefix, String keywords) {
+        this(prefix, splitKeywords(keywords));
+    }
+
+    /**
+     * Constructs a KeywordSearchFilter with the Attribute names set to
+     * {@code prefix} followed by each keyword, and the keywords to search
+     * set to the words in {@code keywords}. Repeated keywords are only 
+     * mapped to an Attribute the first time they appear, so the Attribute
+     * names are never repeated.
+     *
+     * @param prefix the prefix of the Attribute names of this filter
+     * @param keywords the list of keywords to search
+     */
+    public KeywordSearchFilter(String prefix, List<String> keywords) {
+        keywords = new ArrayList<>(new LinkedHashSet<>(keywords));
+        this.ATTR_VEC = new FastVector(2);
+        for(AttributeValues val : AttributeValues.values()) {
+            ATTR_VEC.addElement(val.toString());
+        }
+        this.VALUE_NO = ATTR_VEC.indexOf(AttributeValues.NO.toString());
+        this.VALUE_YES = ATTR_VEC.indexOf(AttributeValues.YES.toString());
+        this.FILTER_ATTRS = new FastVector(keywords.size());
+        for(String keyword : keywords) {
+            FILTER_ATTRS.addElement(new Attribute(prefix + keyword, ATTR_VEC));
+        }
+        this.AUTOMATON = new AhoCorasickAutomaton(keywords);
+    }
+
+    @Override
+    public FastVector getMappedAttributes() {
+        return FILTER_ATTRS;
+    }
+
+    @Override
+    public double[] filter(String r, String h) {
+        return filter(new AnalyzedText(r), new AnalyzedText(h));
+    }
+
+    @Override
+    public double[] filter(AnalyzedText r, AnalyzedText h) {
+        double[] values = new double[AUTOMATON.getKeywordCount()];
+        if(r.getText() != null && h.getText() != null) {
+            BitSet rfound = getFoundKeywords(r);
+            BitSet hfound = getFoundKeywords(h);
+            for(int i = 0; i < values.length; i++) {
+                if(rfound.get(i) || hfound.get(i)) {
+                    values[i] = VALUE_YES;
+                } else {
+                    values[i] = VALUE_NO;
+                }
+            }
+        } else {
+            for(int i = 0; i < values.length; i++) {
+                values[i] = VALUE_NO;
+            }
+        }
+        return values;
+    }
+
+    private BitSet getFoundKeywords(AnalyzedText text) {
+        Object cached = text.getCachedResult(this);
+        if(cached == null) {
+            cached = text.cacheResult(this,
+                    AUTOMATON.findKeywords(text.getText()));
+        }
+        return (BitSet) cached;
+    }
+
+    private static List<String> splitKeywords(String keywords) {
+        List<String> result = new ArrayList<>();
+        for(String keyword : keywords.split(SEPARATOR)) {
+            if(!keyword.trim().isEmpty()) {
+                result.add(keyword.trim());
+            }
+        }
+        return result;
+    }
+
+}
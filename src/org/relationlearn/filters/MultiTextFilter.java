@@ -0,0 +1,62 @@
+package org.relationlearn.filters;
+
+import org.relationlearn.util.AnalyzedText;
+import weka.core.FastVector;
+
+/**
+ * The MultiTextFilter interface represents an object capable of obtaining
+ * several pieces of information from a pair of text Strings at once and map
+ * each of them to its own Attribute, for those cases where computing all the
+ * values together is cheaper than using one TextFilter for each of them.
+ * 
+ * <p>
+ * A MultiTextFilter can be added to any AnalyzedFilterGroup, and loaded from a
+ * {@link SequentialFilterGroup} configuration file, the same way a
+ * TextFilter can.
+ * </p>
+ * 
+ * @see TextFilter
+ * @see AnalyzedFilterGroup
+ */
+public interface MultiTextFilter {
+    
+    /**
+     * Returns a FastVector containing the Attribute elements this filter
+     * provides a value for, in the same order the values are returned by
+     * the filter methods.
+     * 
+     * @return a FastVector with the Attribute elements of this filter
+     * 
+     * @see weka.core.Attribute
+     */
+    public FastVector getMappedAttributes();
+    
+    /**
+     * Filters the corresponding pair of String values and returns one value
+     * for each Attribute of this filter in the weka internal floating-point
+     * format.
+     * 
+     * @param r Response text in the argumentation
+     * @param h Hypothesis text in the argumentation
+     * 
+     * @return an array with the value of each Attribute of this filter
+     * 
+     * @see TextFilter#filter(String, String)
+     */
+    public double[] filter(String r, String h);
+    
+    /**
+     * Filters the corresponding pair of analyzed texts and returns one value
+     * for each Attribute of this filter in the weka internal floating-point
+     * format.
+     * 
+     * @param r Response text in the argumentation, already analyzed
+     * @param h Hypothesis text in the argumentation, already analyzed
+     * 
+     * @return an array with the value of each Attribute of this filter
+     * 
+     * @see AnalyzedTextFilter#filter(AnalyzedText, AnalyzedText)
+     */
+    public double[] filter(AnalyzedText r, AnalyzedText h);
+
+}
@@ -0,0 +1,195 @@
+package org.relationlearn.filters;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.relationlearn.util.AnalyzedText;
+
+/**
+ * Implementation of FilterGroup which applies the TextFilter objects of the
+ * group to the input concurrently, using an ExecutorService to evaluate
+ * each filter.
+ *
+ * <p>
+ * The generated Instance objects have exactly the same layout as the ones
+ * generated by {@link SequentialFilterGroup}, the order in which the filters
+ * were added still defines the position of their Attribute, and the same
+ * XML configuration files can be used to load the filters.
+ * </p>
+ * <p>
+ * The calling thread evaluates the first filter of the group while the rest
+ * are evaluated by the executor, each one writing its results in its own
+ * positions of the Instance values, so the time needed to create an 
+ * Instance is roughly the time spent by the slowest filter in the group.
+ * </p>
+ * <p>
+ * <b>Important Note:</b> The TextFilter objects added to this group may be
+ * called from several threads at the same time, so their implementations
+ * must be thread-safe.
+ * </p>
+ *
+ * @see SequentialFilterGroup
+ * @see java.util.concurrent.ExecutorService
+ */
+public class ParallelFilterGroup extends SequentialFilterGroup {
+
+    private static class DefaultExecutorHolder {
+
+        public static final ExecutorService EXECUTOR = new ForkJoinPool();
+    }
+
+    private static class FilterTask implements Runnable {
+
+        private final FilterSlot FILTER;
+        private final AnalyzedText RESPONSE;
+        private final AnalyzedText HYPOTHESIS;
+        private final double[] VALUES;
+
+        public FilterTask(FilterSlot filter, AnalyzedText r, 
+                AnalyzedText h, double[] values) {
+            this.FILTER = filter;
+            this.RESPONSE = r;
+            this.HYPOTHESIS = h;
+            this.VALUES = values;
+        }
+
+        @Override
+        public void run() {
+            FILTER.apply(RESPONSE, HYPOTHESIS, VALUES);
+        }
+    }
+
+    private final ExecutorService EXECUTOR;
+
+    /**
+     * Constructs a ParallelFilterGroup with the dataset name
+     * "test-dataset" without any filter added, which uses a shared
+     * ForkJoinPool to evaluate the filters.
+     */
+    public ParallelFilterGroup() {
+        this("test-dataset");
+    }
+
+    /**
+     * Constructs a ParallelFilterGroup with the dataset name
+     * {@code dataset} without any filter added, which uses a shared
+     * ForkJoinPool to evaluate the filters.
+     *
+     * @param dataset the name of this ParallelFilterGroup dataset
+     */
+    public ParallelFilterGroup(String dataset) {
+        this(dataset, DefaultExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Constructs a ParallelFilterGroup with the dataset name
+     * {@code dataset} without any filter added, which uses
+     * {@code executor} to evaluate the filters.
+     *
+     * @param dataset the name of this ParallelFilterGroup dataset
+     * @param executor the ExecutorService used to evaluate the filters
+     */
+    public ParallelFilterGroup(String dataset, ExecutorService executor) {
+        super(dataset);
+        this.EXECUTOR = executor;
+    }
+
+    /**
+     * Constructs a ParallelFilterGroup with the dataset name
+     * {@code dataset}, which uses a shared ForkJoinPool to evaluate the
+     * filters, and loads all TextFilter objects specified in
+     * {@code configFile}.
+     *
+     * @param dataset the name of this ParallelFilterGroup dataset
+     * @param configFile the XML file which contains the filter configuration
+     * to load onto this ParallelFilterGroup
+     *
+     * @see SequentialFilterGroup
+     */
+    public ParallelFilterGroup(String dataset, File configFile) {
+        this(dataset, configFile, DefaultExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Constructs a ParallelFilterGroup with the dataset name
+     * {@code dataset}, which uses {@code executor} to evaluate the
+     * filters, and loads all TextFilter objects specified in
+     * {@code configFile}.
+     *
+     * @param dataset the name of this ParallelFilterGroup dataset
+     * @param configFile the XML file which contains the filter configuration
+     * to load onto this ParallelFilterGroup
+     * @param executor the ExecutorService used to evaluate the filters
+     *
+     * @see SequentialFilterGroup
+     */
+    public ParallelFilterGroup(String dataset, File configFile,
+            ExecutorService executor) {
+        super(dataset, configFile);
+        this.EXECUTOR = executor;
+    }
+
+    /**
+     * Applies every TextFilter of this group to the pair {@code r},
+     * {@code h} concurrently and waits until all of them have finished.
+     *
+     * @param r Response text in the argumentation, already analyzed
+     * @param h Hypothesis text in the argumentation, already analyzed
+     * @param values the array where the filter results will be stored
+     *
+     * @throws IllegalStateException if the thread is interrupted while
+     * waiting for the results or a filter throws a checked exception
+     */
+    @Override
+    protected void applyFilters(AnalyzedText r, AnalyzedText h,
+            double[] values) {
+        List<FilterSlot> filters = getFilterSlots();
+        if(filters.size() < 2) {
+            super.applyFilters(r, h, values);
+        } else {
+            List<Future<?>> results = new ArrayList<>(filters.size());
+            boolean done = false;
+            try {
+                for(int i = 1; i < filters.size(); i++) {
+                    results.add(EXECUTOR.submit(
+                            new FilterTask(filters.get(i), r, h, values)));
+                }
+                filters.get(0).apply(r, h, values);
+                for(Future<?> result : results) {
+                    waitForResult(result);
+                }
+                done = true;
+            } finally {
+                if(!done) {
+                    for(Future<?> result : results) {
+                        result.cancel(true);
+                    }
+                }
+            }
+        }
+    }
+
+    private void waitForResult(Future<?> result) {
+        try {
+            result.get();
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while applying "
+                    + "filters", iex);
+        } catch (ExecutionException eex) {
+            Throwable cause = eex.getCause();
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if(cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+}
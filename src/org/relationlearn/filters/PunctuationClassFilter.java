@@ -0,0 +1,127 @@
+package org.relationlearn.filters;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.relationlearn.util.AnalyzedText;
+import org.relationlearn.util.CharacterSet;
+import org.relationlearn.util.TextUtils;
+import weka.core.Attribute;
+import weka.core.FastVector;
+
+/**
+ * An implementation of MultiTextFilter which counts, for several classes of
+ * punctuation characters, the amount of characters of each class found in
+ * both input texts.
+ * 
+ * <p>
+ * Each class is mapped to its own numeric Attribute, and all of them are
+ * counted with a single pass over each text. The default classes are 
+ * exclamation marks, question marks, ellipsis and double quotes. This 
+ * filter can be loaded from a {@link SequentialFilterGroup} configuration
+ * file, passing the classes as a whitespace separated list:
+ * </p>
+ * <pre>
+ * {@code
+ * <filter id="6" local="yes" relative="yes" classpath="your/path/here">
+ *  org.relationlearn.filters.PunctuationClassFilter
+ *  <filter_params>
+ *      <param>punct-</param>
+ *      <param>! ? ;: "'</param>
+ *  </filter_params>
+ * </filter>
+ * }
+ * </pre>
+ * 
+ * @see PunctuationCounterFilter
+ * @see CharacterSet
+ */
+public class PunctuationClassFilter implements MultiTextFilter {
+    
+    /**
+     * Default classes of punctuation characters counted by the filter.
+     */
+    public static final String DEFAULT_CLASSES = 
+            "! ? … \"“”«»";
+    
+    private final FastVector FILTER_ATTRS;
+    
+    private final CharacterSet CHARACTERS;
+    
+    /**
+     * Constructs a PunctuationClassFilter with the Attribute names set to
+     * "punct-" followed by the characters of each class and the classes set
+     * to {@link #DEFAULT_CLASSES}.
+     */
+    public PunctuationClassFilter() {
+        this("punct-");
+    }
+    
+    /**
+     * Constructs a PunctuationClassFilter with the Attribute names set to
+     * {@code prefix} followed by the characters of each class and the 
+     * classes set to {@link #DEFAULT_CLASSES}.
+     * 
+     * @param prefix the prefix of the Attribute names of this filter
+     */
+    public PunctuationClassFilter(String prefix) {
+        this(prefix, DEFAULT_CLASSES);
+    }
+    
+    /**
+     * Constructs a PunctuationClassFilter with the Attribute names set to
+     * {@code prefix} followed by the characters of each class and the 
+     * classes set to the whitespace separated list {@code classes}.
+     * 
+     * @param prefix the prefix of the Attribute names of this filter
+     * @param classes the whitespace separated list of classes, each one
+     * containing all its characters
+     */
+    public PunctuationClassFilter(String prefix, String classes) {
+        List<String> parsed = new ArrayList<>();
+        for(String chars : classes.trim().split("\\s+")) {
+            if(!chars.isEmpty()) {
+                parsed.add(chars);
+            }
+        }
+        this.CHARACTERS = new CharacterSet(
+                parsed.toArray(new String[parsed.size()]));
+        this.FILTER_ATTRS = new FastVector(parsed.size());
+        for(String chars : parsed) {
+            FILTER_ATTRS.addElement(new Attribute(prefix + chars));
+        }
+    }
+
+    @Override
+    public FastVector getMappedAttributes() {
+        return FILTER_ATTRS;
+    }
+
+    @Override
+    public double[] filter(String r, String h) {
+        return filter(new AnalyzedText(r), new AnalyzedText(h));
+    }
+
+    @Override
+    public double[] filter(AnalyzedText r, AnalyzedText h) {
+        int[] rcounts = getCounts(r);
+        int[] hcounts = getCounts(h);
+        double[] values = new double[CHARACTERS.getClassCount()];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = rcounts[i] + hcounts[i];
+        }
+        return values;
+    }
+    
+    private int[] getCounts(AnalyzedText text) {
+        Object cached = text.getCachedResult(this);
+        if(cached == null) {
+            int[] counts = new int[CHARACTERS.getClassCount()];
+            if(text.getText() != null) {
+                TextUtils.countCharacters(text.getText(), CHARACTERS, counts);
+            }
+            cached = text.cacheResult(this, counts);
+        }
+        return (int[]) cached;
+    }
+
+}
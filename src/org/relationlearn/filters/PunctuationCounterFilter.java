@@ -1,18 +1,28 @@
 package org.relationlearn.filters;
 
-import java.util.regex.Pattern;
+import org.relationlearn.util.AnalyzedText;
+import org.relationlearn.util.CharacterSet;
 import org.relationlearn.util.TextUtils;
 import weka.core.Attribute;
 
 /**
- * An implementation of TextFilter which counts the amount of '!' characters
- * found in both input texts.
+ * An implementation of TextFilter which counts the amount of punctuation
+ * characters found in both input texts, by default only the '!' character
+ * is counted.
+ * 
+ * <p>
+ * All the characters to count are looked up in a precompiled 
+ * {@link CharacterSet}, so each text is scanned only once and without any
+ * allocation no matter how many characters are counted.
+ * </p>
+ * 
+ * @see PunctuationClassFilter
  */
-public class PunctuationCounterFilter implements TextFilter {
+public class PunctuationCounterFilter implements AnalyzedTextFilter {
     
     private final Attribute FILTER_ATTR;
     
-    private final Pattern PATTERN = Pattern.compile("!");
+    private final CharacterSet CHARACTERS;
     
     /**
      * Constructs a PuncuationCounterFilter with the Attribute name set
@@ -31,7 +41,22 @@ public class PunctuationCounterFilter implements TextFilter {
      * 
      */
     public PunctuationCounterFilter(String name) {
+        this(name, "!");
+    }
+    
+    /**
+     * Constructs a PuncuationCounterFilter with the Attribute name set
+     * to {@code name} which counts all the characters found in 
+     * {@code characters}.
+     * 
+     * @param name the name this TextFilter Attribute will have
+     * @param characters a String containing all the characters to count,
+     * for example {@code "?!…"}
+     * 
+     */
+    public PunctuationCounterFilter(String name, String characters) {
         this.FILTER_ATTR = new Attribute(name);
+        this.CHARACTERS = new CharacterSet(characters);
     }
     
     @Override
@@ -41,9 +66,26 @@ public class PunctuationCounterFilter implements TextFilter {
     
     @Override
     public double filter(String r, String h) {
-        int rc = TextUtils.getTokensFromTextUsingRegex(r, PATTERN).length;
-        int hc = TextUtils.getTokensFromTextUsingRegex(h, PATTERN).length;
+        return filter(new AnalyzedText(r), new AnalyzedText(h));
+    }
+    
+    @Override
+    public double filter(AnalyzedText r, AnalyzedText h) {
+        int rc = getCount(r);
+        int hc = getCount(h);
         return (rc + hc);
     }
+    
+    private int getCount(AnalyzedText text) {
+        if(text.getText() == null) {
+            return 0;
+        }
+        Object cached = text.getCachedResult(this);
+        if(cached == null) {
+            cached = text.cacheResult(this, 
+                    TextUtils.countCharacters(text.getText(), CHARACTERS));
+        }
+        return (Integer) cached;
+    }
 
 }
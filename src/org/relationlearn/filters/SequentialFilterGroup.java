@@ -9,6 +9,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
@@ -16,6 +17,7 @@ import java.util.PriorityQueue;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import org.relationlearn.util.AnalyzedText;
 import org.relationlearn.util.RelationClass;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -82,6 +84,19 @@ import weka.core.Instances;
  * example with {@code id=4}.
  * </p>
  * <p>
+ * The class of a filter entry can be either a {@link TextFilter} or a
+ * {@link MultiTextFilter} implementation, in the latter case all the
+ * Attribute elements of the filter are added in the position given by its
+ * id.
+ * </p>
+ * <p>
+ * The generated Instance objects are dense or sparse depending on the
+ * {@link InstanceFormat} of the group, so groups with many Attribute 
+ * elements which are mostly zero, like the ones of a MultiTextFilter 
+ * that marks the presence of each word of a vocabulary, can generate 
+ * SparseInstance objects.
+ * </p>
+ * <p>
  * <b>Important Note:</b> Keep in mind that the only parameters you can 
  * supply to the TextFilter using a config file will be of type 
  * {@link java.lang.String} so build your TextFilter with that in mind. 
@@ -93,25 +108,72 @@ import weka.core.Instances;
  * 
  * @see java.net.URLClassLoader
  * @see FilterGroup
+ * @see AnalyzedFilterGroup
  * @see TextFilter
  */
-public class SequentialFilterGroup implements FilterGroup {
+public class SequentialFilterGroup implements AnalyzedFilterGroup {
     
     private static class FilterItem {
         
         public final TextFilter FILTER;
+        public final MultiTextFilter MULTI_FILTER;
         public final Integer ID;
         
         private FilterItem() {
-            this(null, -1);
+            this(null, null, -1);
         }
         
-        public FilterItem(TextFilter filter, Integer id) {
+        public FilterItem(TextFilter filter, MultiTextFilter multiFilter,
+                Integer id) {
             this.FILTER = filter;
+            this.MULTI_FILTER = multiFilter;
             this.ID = id;
         }
     }
     
+    /**
+     * Element of the group that applies a TextFilter or a MultiTextFilter 
+     * and stores its results starting at the position of its first 
+     * Attribute.
+     */
+    static class FilterSlot {
+        
+        private final TextFilter FILTER;
+        private final MultiTextFilter MULTI_FILTER;
+        private final int OFFSET;
+        private final int LENGTH;
+        
+        public FilterSlot(TextFilter filter, int offset) {
+            this.FILTER = filter;
+            this.MULTI_FILTER = null;
+            this.OFFSET = offset;
+            this.LENGTH = 1;
+        }
+        
+        public FilterSlot(MultiTextFilter filter, int offset, int length) {
+            this.FILTER = null;
+            this.MULTI_FILTER = filter;
+            this.OFFSET = offset;
+            this.LENGTH = length;
+        }
+        
+        public void apply(AnalyzedText r, AnalyzedText h, double[] values) {
+            if(FILTER instanceof AnalyzedTextFilter) {
+                values[OFFSET] = ((AnalyzedTextFilter) FILTER).filter(r, h);
+            } else if(FILTER != null) {
+                values[OFFSET] = FILTER.filter(r.getText(), h.getText());
+            } else {
+                double[] result = MULTI_FILTER.filter(r, h);
+                if(result.length != LENGTH) {
+                    throw new IllegalStateException("Filter returned " 
+                            + result.length + " values but maps " + LENGTH 
+                            + " attributes");
+                }
+                System.arraycopy(result, 0, values, OFFSET, LENGTH);
+            }
+        }
+    }
+    
     private static class ItemComparator implements Comparator<FilterItem> {
 
         @Override
@@ -138,13 +200,15 @@ public class SequentialFilterGroup implements FilterGroup {
         private final String VALUE_YES = "yes";
         
         private final PriorityQueue<FilterItem> ITEM_QUEUE;
-        private final List<TextFilter> PARSED_FILTERS;
+        private final List<FilterItem> PARSED_FILTERS;
         
         private int filterOrder;
         private String classPath;
         
         private String currentClass;
-        private String currentValue;
+        
+        // Text of the current element, SAX may deliver it in several chunks
+        private final StringBuilder textBuffer;
         
         private final List<String> filterParams;
         
@@ -152,6 +216,7 @@ public class SequentialFilterGroup implements FilterGroup {
             this.ITEM_QUEUE = new PriorityQueue<>(11, new ItemComparator());
             this.PARSED_FILTERS = new LinkedList<>();
             this.filterParams = new ArrayList<>();
+            this.textBuffer = new StringBuilder(64);
         }
         
         @Override
@@ -161,19 +226,21 @@ public class SequentialFilterGroup implements FilterGroup {
             switch (qName) {
                 case FILTER_TAG:
                     parseFilterAttributes(attributes);
+                    currentClass = null;
+                    filterParams.clear();
                     break;
                 case FLTPR_TAG:
-                    currentClass = currentValue;
-                    filterParams.clear();
+                    currentClass = textBuffer.toString().trim();
                     break;
                 default:
                     break;
             }
+            textBuffer.setLength(0);
         }
         
         @Override
         public void characters(char[] ac, int i, int j) {
-            currentValue = new String(ac, i, j).trim();
+            textBuffer.append(ac, i, j);
         }
         
         @Override
@@ -181,22 +248,32 @@ public class SequentialFilterGroup implements FilterGroup {
                 throws SAXException {
             switch (qName) {
                 case FILTER_TAG:
-                    TextFilter filter = tryLoadFilter(classPath, filterParams);
-                    FilterItem item = new FilterItem(filter, filterOrder);
+                    if(currentClass == null) { // filter without parameters
+                        currentClass = textBuffer.toString().trim();
+                    }
+                    Object filter = tryLoadFilter(classPath, filterParams);
+                    FilterItem item;
+                    if(filter instanceof TextFilter) {
+                        item = new FilterItem((TextFilter) filter, null, 
+                                filterOrder);
+                    } else {
+                        item = new FilterItem(null, (MultiTextFilter) filter,
+                                filterOrder);
+                    }
                     ITEM_QUEUE.add(item);
                     break;
                 case PARAM_TAG:
-                    filterParams.add(currentValue);
+                    filterParams.add(textBuffer.toString().trim());
                     break;
                 default:
                     break;
             }
         }
         
-        public List<TextFilter> getParsingResults() {
+        public List<FilterItem> getParsingResults() {
             if(ITEM_QUEUE.size() > 0) {
                 while(ITEM_QUEUE.size() > 0) {
-                    PARSED_FILTERS.add(ITEM_QUEUE.poll().FILTER);
+                    PARSED_FILTERS.add(ITEM_QUEUE.poll());
                 }
             }
             return this.PARSED_FILTERS;
@@ -252,18 +329,23 @@ public class SequentialFilterGroup implements FilterGroup {
             return absPath;
         }
         
-        private TextFilter tryLoadFilter(String path, List<String> params) 
+        private Object tryLoadFilter(String path, List<String> params) 
                 throws SAXException {
-            TextFilter tf = null;
+            Object tf = null;
             Class[] paramTypes;
             String[] paramValues;
             try {
                 URL[] urls = { new URL(path) };
                 URLClassLoader ucl = new URLClassLoader(urls);
-                Class<TextFilter> c;
-                c = (Class<TextFilter>) ucl.loadClass(currentClass)
-                        .asSubclass(TextFilter.class);
-                Constructor<TextFilter> con;
+                Class<?> c = ucl.loadClass(currentClass);
+                if(!TextFilter.class.isAssignableFrom(c) && 
+                        !MultiTextFilter.class.isAssignableFrom(c)) {
+                    ucl.close();
+                    throw new SAXException("Error: " + currentClass 
+                            + " is neither a TextFilter nor a "
+                            + "MultiTextFilter");
+                }
+                Constructor<?> con;
                 if(params.size() > 0) {
                     paramTypes = new Class[params.size()];
                     Arrays.fill(paramTypes, String.class);
@@ -291,7 +373,7 @@ public class SequentialFilterGroup implements FilterGroup {
     
     private final String GROUP_DATASET;
     private final FastVector FILTER_ATTRS;
-    private final List<TextFilter> FILTERS;
+    private final List<FilterSlot> FILTERS;
     
     private Attribute classAttr;
     
@@ -299,6 +381,8 @@ public class SequentialFilterGroup implements FilterGroup {
     
     private boolean changedFilter;
     
+    private InstanceFormat instanceFormat;
+    
     /** 
      * Constructs a SequentialFilterGroup with the 
      * dataset name "test-dataset" without any filter
@@ -320,6 +404,7 @@ public class SequentialFilterGroup implements FilterGroup {
         this.FILTERS = new ArrayList<>();
         this.filterDataset = new Instances(dataset, FILTER_ATTRS, 0);
         this.changedFilter = true;
+        this.instanceFormat = InstanceFormat.getDefault();
     }
     
     /**
@@ -355,21 +440,58 @@ public class SequentialFilterGroup implements FilterGroup {
 
     @Override
     public Instance createInstanceUsingFilters(String r, String h) {
+        return createInstanceUsingFilters(new AnalyzedText(r), 
+                new AnalyzedText(h));
+    }
+    
+    @Override
+    public Instance createInstanceUsingFilters(AnalyzedText r, 
+            AnalyzedText h) {
         buildInstances();
-        Instance instance = new Instance(filterDataset.numAttributes());
-        for(TextFilter filter : FILTERS) {
-            instance.setValue(filter.getMappedAttribute(), 
-                    filter.filter(r, h));
-        }
+        double[] values = new double[filterDataset.numAttributes()];
+        Arrays.fill(values, Instance.missingValue());
+        applyFilters(r, h, values);
+        Instance instance = instanceFormat.createInstance(1.0, values);
         instance.setDataset(filterDataset);
         return instance;
     }
+    
+    /**
+     * Sets the format of the Instance objects generated by this group, by
+     * default the one returned by {@link InstanceFormat#getDefault()}.
+     * 
+     * @param format the InstanceFormat of the generated Instance objects
+     * @throws IllegalArgumentException if {@code format} is null
+     */
+    public void setInstanceFormat(InstanceFormat format) {
+        if(format == null) {
+            throw new IllegalArgumentException("The format can't be null");
+        }
+        this.instanceFormat = format;
+    }
+    
+    /**
+     * Returns the format of the Instance objects generated by this group.
+     * 
+     * @return the InstanceFormat of the generated Instance objects
+     */
+    public InstanceFormat getInstanceFormat() {
+        return instanceFormat;
+    }
 
     @Override
     public void addFilter(TextFilter filter) {
         changedFilter = true;
+        FILTERS.add(new FilterSlot(filter, FILTER_ATTRS.size()));
         FILTER_ATTRS.addElement(filter.getMappedAttribute());
-        FILTERS.add(filter);
+    }
+    
+    @Override
+    public void addFilter(MultiTextFilter filter) {
+        changedFilter = true;
+        FastVector attrs = filter.getMappedAttributes();
+        FILTERS.add(new FilterSlot(filter, FILTER_ATTRS.size(), attrs.size()));
+        FILTER_ATTRS.appendElements(attrs);
     }
     
     /**
@@ -386,15 +508,53 @@ public class SequentialFilterGroup implements FilterGroup {
         } else {
             this.classAttr = attr;
         }
+        this.changedFilter = true;
+    }
+    
+    /**
+     * Applies every TextFilter of this group to the pair {@code r}, 
+     * {@code h} and stores each result in {@code values}, at the same
+     * position the filter Attribute has in the group dataset.
+     * 
+     * <p>
+     * Subclasses may override this method to change the way the filters
+     * are evaluated, as long as the position of each value is respected.
+     * </p>
+     * 
+     * @param r Response text in the argumentation, already analyzed
+     * @param h Hypothesis text in the argumentation, already analyzed
+     * @param values the array where the filter results will be stored
+     */
+    protected void applyFilters(AnalyzedText r, AnalyzedText h, 
+            double[] values) {
+        for(FilterSlot slot : FILTERS) {
+            slot.apply(r, h, values);
+        }
+    }
+    
+    /**
+     * Returns an unmodifiable view of the filters of this group in the same
+     * order they were added, each one aware of the position its results
+     * have in the Instance values.
+     * 
+     * @return the filters contained in this group
+     */
+    List<FilterSlot> getFilterSlots() {
+        return Collections.unmodifiableList(FILTERS);
     }
     
     private void buildInstances() {
         if(changedFilter) {
             FastVector completeAttr = new FastVector(FILTER_ATTRS.size() + 1);
             completeAttr.appendElements(FILTER_ATTRS);
-            completeAttr.addElement(classAttr);
+            // without a class Attribute the dataset has no class
+            if(classAttr != null) {
+                completeAttr.addElement(classAttr);
+            }
             filterDataset = new Instances(GROUP_DATASET, completeAttr, 0);
-            filterDataset.setClassIndex(completeAttr.size() - 1);
+            if(classAttr != null) {
+                filterDataset.setClassIndex(completeAttr.size() - 1);
+            }
             changedFilter = false;
         }
     }
@@ -410,8 +570,12 @@ public class SequentialFilterGroup implements FilterGroup {
             throw new IllegalArgumentException(mex);
         }
         
-        for(TextFilter filter : helper.getParsingResults()) {
-            this.addFilter(filter);
+        for(FilterItem item : helper.getParsingResults()) {
+            if(item.FILTER != null) {
+                this.addFilter(item.FILTER);
+            } else {
+                this.addFilter(item.MULTI_FILTER);
+            }
         }
     }
 
@@ -4,24 +4,38 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import org.relationlearn.util.TextUtils;
+import org.relationlearn.util.AnalyzedText;
+import org.relationlearn.util.TokenDictionary;
 import weka.core.Attribute;
 
 /**
  * An implementation of TextFilter which returns the ratio of words that
  * have been found of the total amount of words specified in a given word
  * list.
+ * 
+ * <p>
+ * The word list is compiled into a sorted array of token identifiers of the
+ * shared {@link TokenDictionary} when the filter is built, so each text is
+ * processed with a single pass over its token identifiers and the words
+ * found are kept in a BitSet. Words that appear several times in the list
+ * are counted as many times as they appear.
+ * </p>
  */
-public class WordOcurrenceFilter implements TextFilter {
+public class WordOcurrenceFilter implements AnalyzedTextFilter {
     
     private final Attribute FILTER_ATTR;
     
-    private final List<String> WORDS_LIST;
+    private final int TOTAL_WORDS;
+    private final int[] LEXICON_IDS;
+    private final int[] LEXICON_COUNTS;
     
     private WordOcurrenceFilter() {
         this.FILTER_ATTR = null;
-        this.WORDS_LIST = null;
+        this.TOTAL_WORDS = 0;
+        this.LEXICON_IDS = null;
+        this.LEXICON_COUNTS = null;
     }
     
     /**
@@ -35,7 +49,9 @@ public class WordOcurrenceFilter implements TextFilter {
     public WordOcurrenceFilter(String name, String path) {
         List<String> words = getWordsFromFile(path);
         this.FILTER_ATTR = new Attribute(name);
-        this.WORDS_LIST = words;
+        this.TOTAL_WORDS = words.size();
+        this.LEXICON_IDS = compileLexicon(words);
+        this.LEXICON_COUNTS = countWords(words, LEXICON_IDS);
     }
     
     /**
@@ -48,7 +64,9 @@ public class WordOcurrenceFilter implements TextFilter {
      */
     public WordOcurrenceFilter(String name, List<String> words) {
         this.FILTER_ATTR = new Attribute(name);
-        this.WORDS_LIST = words;
+        this.TOTAL_WORDS = words.size();
+        this.LEXICON_IDS = compileLexicon(words);
+        this.LEXICON_COUNTS = countWords(words, LEXICON_IDS);
     }
     
     @Override
@@ -58,17 +76,72 @@ public class WordOcurrenceFilter implements TextFilter {
     
     @Override
     public double filter(String r, String h) {
-        List<String> rlst = Arrays.asList(TextUtils.getWordsFromText(r));
-        List<String> hlst = Arrays.asList(TextUtils.getWordsFromText(h));
-        int foundWords = 0, totalWords = WORDS_LIST.size();
-        for(String word : WORDS_LIST) {
-            if(rlst.contains(word) || hlst.contains(word)) {
-                foundWords++;
+        return filter(new AnalyzedText(r), new AnalyzedText(h));
+    }
+    
+    @Override
+    public double filter(AnalyzedText r, AnalyzedText h) {
+        BitSet rfound = getFoundWords(r);
+        BitSet hfound = getFoundWords(h);
+        int foundWords = 0, totalWords = TOTAL_WORDS;
+        for(int i = rfound.nextSetBit(0); i >= 0; i = rfound.nextSetBit(i + 1)) {
+            foundWords += LEXICON_COUNTS[i];
+        }
+        for(int i = hfound.nextSetBit(0); i >= 0; i = hfound.nextSetBit(i + 1)) {
+            if(!rfound.get(i)) {
+                foundWords += LEXICON_COUNTS[i];
             }
         }
         return ((double) foundWords / (double) totalWords);
     }
     
+    private BitSet getFoundWords(AnalyzedText text) {
+        Object cached = text.getCachedResult(this);
+        if(cached == null) {
+            BitSet found = new BitSet(LEXICON_IDS.length);
+            int position;
+            for(int id : text.getTokenIds()) {
+                position = Arrays.binarySearch(LEXICON_IDS, id);
+                if(position >= 0) {
+                    found.set(position);
+                }
+            }
+            cached = text.cacheResult(this, found);
+        }
+        return (BitSet) cached;
+    }
+    
+    /*
+     * Returns the sorted identifiers of the different words of the list.
+     */
+    private int[] compileLexicon(List<String> words) {
+        TokenDictionary dictionary = TokenDictionary.getSharedDictionary();
+        int[] ids = new int[words.size()];
+        for(int i = 0; i < ids.length; i++) {
+            ids[i] = dictionary.register(words.get(i));
+        }
+        Arrays.sort(ids);
+        int distinct = 0;
+        for(int i = 0; i < ids.length; i++) {
+            if(i == 0 || ids[i] != ids[i - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, distinct);
+    }
+    
+    /*
+     * Returns the times each word of the lexicon appears in the list.
+     */
+    private int[] countWords(List<String> words, int[] lexicon) {
+        TokenDictionary dictionary = TokenDictionary.getSharedDictionary();
+        int[] counts = new int[lexicon.length];
+        for(String word : words) {
+            counts[Arrays.binarySearch(lexicon, dictionary.register(word))]++;
+        }
+        return counts;
+    }
+    
     private List<String> getWordsFromFile(String path) {
         List<String> words;
         ObjectInputStream ois;
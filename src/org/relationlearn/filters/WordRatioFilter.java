@@ -1,13 +1,13 @@
 package org.relationlearn.filters;
 
-import org.relationlearn.util.TextUtils;
+import org.relationlearn.util.AnalyzedText;
 import weka.core.Attribute;
 
 /**
  * An implementation of TextFilter which returns the division between
  * the number of words in the hypothesis text and the response text.
  */
-public class WordRatioFilter implements TextFilter {
+public class WordRatioFilter implements AnalyzedTextFilter {
     
     private final Attribute FILTER_ATTR;
     
@@ -36,8 +36,13 @@ public class WordRatioFilter implements TextFilter {
 
     @Override
     public double filter(String r, String h) {
-        double response_words = TextUtils.getWordsFromText(r).length;
-        double hypothesis_words = TextUtils.getWordsFromText(h).length;
+        return filter(new AnalyzedText(r), new AnalyzedText(h));
+    }
+    
+    @Override
+    public double filter(AnalyzedText r, AnalyzedText h) {
+        double response_words = r.getTokenCount();
+        double hypothesis_words = h.getTokenCount();
         return (hypothesis_words / response_words);
     }
 
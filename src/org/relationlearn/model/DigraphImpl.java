@@ -1,7 +1,11 @@
 package org.relationlearn.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 import org.relationlearn.exception.AlreadyExistingNodeException;
@@ -15,7 +19,7 @@ import org.relationlearn.exception.AlreadyExistingNodeException;
  */
 public class DigraphImpl implements RelationDigraph {
     
-    private ArgumentNode origin;
+    private List<ArgumentNode> origins;
     
     private class PostorderTreeIterator implements Iterator<ArgumentNode> {
         
@@ -43,13 +47,18 @@ public class DigraphImpl implements RelationDigraph {
             throw new UnsupportedOperationException();
         }
         
+        /*
+         * Trees are stacked from the last root to the first one, so the
+         * tree of the root with the lowest id is traversed first when
+         * every tree is traversed.
+         */
         private void fillStack() {
             Stack<ArgumentNode> visitStack = new Stack<>();
-            ArgumentNode start = getOrigin();
-            origin = start;
+            List<ArgumentNode> starts = getOrigins();
+            origins = starts;
             graphChanged = false;
-            if(start != null) {
-                visitStack.push(start);
+            for(int i = starts.size() - 1; i >= 0; i--) {
+                visitStack.push(starts.get(i));
                 while(!visitStack.empty()) {
                     ArgumentNode node = visitStack.pop();
                     treeStack.push(node);
@@ -60,30 +69,59 @@ public class DigraphImpl implements RelationDigraph {
             }
         }
         
-        private ArgumentNode getOrigin() {
-            if(graphChanged) {
+        private List<ArgumentNode> getOrigins() {
+            if(graphChanged || origins == null) {
+                List<ArgumentNode> roots = new ArrayList<>();
                 for(ArgumentNode node : nodeTable.values()) {
                     if(node.getTargetRelation() == null) {
-                        return node;
+                        roots.add(node);
+                        if(!ALL_TREES) {
+                            return roots;
+                        }
                     }
                 }
-                return null;
+                Collections.sort(roots, new Comparator<ArgumentNode>() {
+                    @Override
+                    public int compare(ArgumentNode n1, ArgumentNode n2) {
+                        return Integer.compare(n1.getNodeId(), 
+                                n2.getNodeId());
+                    }
+                });
+                return roots;
             } else {
-                return origin;
+                return origins;
             }
         }
         
     }
     
     private final Map<Integer, ArgumentNode> nodeTable;
+    private final boolean ALL_TREES;
     
     private boolean graphChanged;
     
     /**
-     * Constucts a new empty DigraphImpl.
+     * Constucts a new empty DigraphImpl whose iterator only traverses the
+     * tree of the first root found.
      */
     public DigraphImpl() {
+        this(false);
+    }
+    
+    /**
+     * Constucts a new empty DigraphImpl whose iterator traverses either all
+     * the argument trees of the graph or only the tree of the first root
+     * found.
+     * 
+     * @param allTrees true to traverse every argument tree of the graph,
+     * such as the ones merged from several files, false to traverse only
+     * the tree of the first root found
+     * 
+     * @see #iterator()
+     */
+    public DigraphImpl(boolean allTrees) {
         this.nodeTable = new HashMap<>();
+        this.ALL_TREES = allTrees;
     }
     
     /**
@@ -148,6 +186,12 @@ public class DigraphImpl implements RelationDigraph {
      * root node (the only node that doesn't have its target relation
      * value set).
      * </p>
+     * <p>
+     * If the graph was constructed to traverse all its trees, every 
+     * ArgumentNode that doesn't have its target relation value set is 
+     * considered the root of a tree instead, and the trees are traversed 
+     * one after another, in increasing order of their root ids.
+     * </p>
      * 
      * @return an Iterator that traverses the graph's nodes in postorder
      * 
@@ -0,0 +1,201 @@
+package org.relationlearn.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Utility class that implements an
+ * <a href="http://en.wikipedia.org/wiki/Aho%E2%80%93Corasick_algorithm">
+ * Aho-Corasick</a> automaton, which finds all the occurrences of a set of
+ * keywords in a text with a single pass over it.
+ *
+ * <p>
+ * The automaton is built as a deterministic transition table, so each
+ * character of the text is processed with a single table lookup. Keywords
+ * are matched as plain substrings and case-sensitive, the same way
+ * {@link String#contains(CharSequence)} does. Once built the automaton is
+ * immutable and can be shared between threads.
+ * </p>
+ */
+public class AhoCorasickAutomaton {
+
+    private static final int ROOT = 0;
+
+    private static final int ASCII_SIZE = 128;
+
+    private final String[] KEYWORDS;
+
+    private final int[] ASCII_SYMBOLS;
+    private final Map<Character, Integer> OTHER_SYMBOLS;
+    private final int ALPHABET_SIZE;
+
+    private final int[] TRANSITIONS;
+    private final int[][] OUTPUTS;
+
+    /**
+     * Constructs a new AhoCorasickAutomaton that searches for the words
+     * found in {@code keywords}.
+     *
+     * @param keywords the words to search, each one is identified by its
+     * position in the list
+     */
+    public AhoCorasickAutomaton(List<String> keywords) {
+        this.KEYWORDS = keywords.toArray(new String[keywords.size()]);
+        this.ASCII_SYMBOLS = new int[ASCII_SIZE];
+        this.OTHER_SYMBOLS = new HashMap<>();
+        Arrays.fill(ASCII_SYMBOLS, -1);
+        int symbols = 0;
+        for(String keyword : KEYWORDS) {
+            for(int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if(getSymbol(c) < 0) {
+                    if(c < ASCII_SIZE) {
+                        ASCII_SYMBOLS[c] = symbols++;
+                    } else {
+                        OTHER_SYMBOLS.put(c, symbols++);
+                    }
+                }
+            }
+        }
+        this.ALPHABET_SIZE = Math.max(symbols, 1);
+        // trie construction
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> outputs = new ArrayList<>();
+        trie.add(newState());
+        outputs.add(new ArrayList<Integer>());
+        for(int k = 0; k < KEYWORDS.length; k++) {
+            int state = ROOT;
+            for(int i = 0; i < KEYWORDS[k].length(); i++) {
+                int symbol = getSymbol(KEYWORDS[k].charAt(i));
+                if(trie.get(state)[symbol] < 0) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newState());
+                    outputs.add(new ArrayList<Integer>());
+                }
+                state = trie.get(state)[symbol];
+            }
+            outputs.get(state).add(k);
+        }
+        // failure links, merged into a complete transition table
+        this.TRANSITIONS = new int[trie.size() * ALPHABET_SIZE];
+        this.OUTPUTS = new int[trie.size()][];
+        int[] failure = new int[trie.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for(int s = 0; s < ALPHABET_SIZE; s++) {
+            int next = trie.get(ROOT)[s];
+            if(next < 0) {
+                TRANSITIONS[s] = ROOT;
+            } else {
+                TRANSITIONS[s] = next;
+                failure[next] = ROOT;
+                queue.add(next);
+            }
+        }
+        OUTPUTS[ROOT] = toArray(outputs.get(ROOT));
+        while(!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> stateOutputs = outputs.get(state);
+            stateOutputs.addAll(outputs.get(failure[state]));
+            OUTPUTS[state] = toArray(stateOutputs);
+            for(int s = 0; s < ALPHABET_SIZE; s++) {
+                int next = trie.get(state)[s];
+                int fallback = TRANSITIONS[failure[state] * ALPHABET_SIZE + s];
+                if(next < 0) {
+                    TRANSITIONS[state * ALPHABET_SIZE + s] = fallback;
+                } else {
+                    TRANSITIONS[state * ALPHABET_SIZE + s] = next;
+                    failure[next] = fallback;
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of keywords this automaton searches for.
+     *
+     * @return the number of keywords
+     */
+    public int getKeywordCount() {
+        return KEYWORDS.length;
+    }
+
+    /**
+     * Returns the keyword identified by {@code index}.
+     *
+     * @param index the position of the keyword in the original list
+     * @return the keyword with the given index
+     */
+    public String getKeyword(int index) {
+        return KEYWORDS[index];
+    }
+
+    /**
+     * Scans {@code text} and returns the keywords found in it.
+     *
+     * @param text the text to scan
+     * @return a BitSet with the index of every keyword found set to true
+     */
+    public BitSet findKeywords(CharSequence text) {
+        BitSet found = new BitSet(KEYWORDS.length);
+        findKeywords(text, found);
+        return found;
+    }
+
+    /**
+     * Scans {@code text} and sets to true the index of every keyword found
+     * in it in {@code found}, the rest of indexes are left untouched.
+     *
+     * @param text the text to scan
+     * @param found the BitSet where the keywords found will be marked
+     */
+    public void findKeywords(CharSequence text, BitSet found) {
+        int state = ROOT;
+        markOutputs(state, found);
+        for(int i = 0; i < text.length(); i++) {
+            int symbol = getSymbol(text.charAt(i));
+            if(symbol < 0) {
+                state = ROOT;
+            } else {
+                state = TRANSITIONS[state * ALPHABET_SIZE + symbol];
+                markOutputs(state, found);
+            }
+        }
+    }
+
+    private void markOutputs(int state, BitSet found) {
+        for(int keyword : OUTPUTS[state]) {
+            found.set(keyword);
+        }
+    }
+
+    private int getSymbol(char c) {
+        if(c < ASCII_SIZE) {
+            return ASCII_SYMBOLS[c];
+        } else {
+            Integer symbol = OTHER_SYMBOLS.get(c);
+            return symbol == null ? -1 : symbol;
+        }
+    }
+
+    private int[] newState() {
+        int[] state = new int[ALPHABET_SIZE];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for(int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,323 @@
+package org.relationlearn.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Utility class that holds a text together with the results of the most
+ * common analysis performed over it by TextFilter implementations, so a text
+ * only needs to be tokenized once no matter how many filters use it.
+ *
+ * <p>
+ * Every analysis result is computed the first time it is requested and then
+ * reused, AnalyzedText objects can be safely shared between threads.
+ * Filters that compute partial results from a single text can store them
+ * with {@link #cacheResult(Object, Object)} so they are reused every time
+ * the same AnalyzedText is filtered again.
+ * </p>
+ * <p>
+ * <b>Note: </b>The arrays returned by this class are shared by all its
+ * users, so they must not be modified.
+ * </p>
+ *
+ * @see TextUtils
+ * @see org.relationlearn.filters.AnalyzedTextFilter
+ */
+public class AnalyzedText {
+
+    /**
+     * Enumerator used to describe the classes of characters counted by
+     * AnalyzedText objects.
+     */
+    public enum CharacterClass {
+        /**
+         * Characters for which {@link Character#isLetter(char)} is true.
+         */
+        LETTER,
+
+        /**
+         * Characters for which {@link Character#isUpperCase(char)} is true.
+         */
+        UPPERCASE,
+
+        /**
+         * Characters for which {@link Character#isDigit(char)} is true.
+         */
+        DIGIT,
+
+        /**
+         * Characters for which {@link Character#isWhitespace(char)} is true.
+         */
+        WHITESPACE,
+
+        /**
+         * Characters that are neither letters, digits nor whitespace.
+         */
+        PUNCTUATION;
+    }
+
+    private static final String[] EMPTY_TOKENS = new String[0];
+    private static final int[] EMPTY_TOKEN_IDS = new int[0];
+
+    private static final int ASCII_SIZE = 128;
+
+    private final String TEXT;
+
+    private volatile String[] tokens;
+    private volatile String[] lowerCaseTokens;
+    private volatile int[] tokenIds;
+    private volatile int[] lowerCaseTokenIds;
+    private volatile Map<String, Integer> termFrequencies;
+    private volatile int[] classCounts;
+    private volatile int[] asciiCounts;
+
+    private final ConcurrentMap<Object, Object> RESULTS;
+
+    /**
+     * Constructs a new AnalyzedText for the text {@code text}, a null text
+     * is treated as a text without tokens.
+     *
+     * @param text the text to analyze
+     */
+    public AnalyzedText(String text) {
+        this.TEXT = text;
+        this.RESULTS = new ConcurrentHashMap<>(4);
+    }
+
+    /**
+     * Returns the original text of this AnalyzedText.
+     *
+     * @return the original text
+     */
+    public String getText() {
+        return TEXT;
+    }
+
+    /**
+     * Returns the words found in the text, as returned by
+     * {@link TextUtils#getWordsFromText(String)}.
+     *
+     * @return the words of the text
+     */
+    public String[] getTokens() {
+        String[] result = tokens;
+        if(result == null) {
+            if(TEXT == null) {
+                result = EMPTY_TOKENS;
+            } else {
+                result = TextUtils.getWordsFromText(TEXT);
+            }
+            tokens = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the words found in the text converted to lower case using the
+     * English locale rules.
+     *
+     * @return the words of the text in lower case
+     */
+    public String[] getLowerCaseTokens() {
+        String[] result = lowerCaseTokens;
+        if(result == null) {
+            String[] original = getTokens();
+            result = new String[original.length];
+            for(int i = 0; i < original.length; i++) {
+                result[i] = original[i].toLowerCase(Locale.ENGLISH);
+            }
+            lowerCaseTokens = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the identifiers the shared {@link TokenDictionary} assigns to
+     * the words found in the text.
+     *
+     * @return the identifiers of the words of the text, in the same order
+     * as {@link #getTokens()}, being {@link TokenDictionary#UNKNOWN_ID} the
+     * identifier of the words the full dictionary doesn't hold
+     *
+     * @see TokenDictionary#getSharedDictionary()
+     */
+    public int[] getTokenIds() {
+        int[] result = tokenIds;
+        if(result == null) {
+            TokenDictionary dictionary = TokenDictionary.getSharedDictionary();
+            if(TEXT == null) {
+                result = EMPTY_TOKEN_IDS;
+            } else if(tokens != null) {
+                result = TextUtils.getTokenIds(tokens, dictionary);
+            } else {
+                result = TextUtils.getTokenIdsFromText(TEXT, dictionary);
+            }
+            tokenIds = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the identifiers the shared {@link TokenDictionary} assigns to
+     * the words found in the text converted to lower case.
+     *
+     * @return the identifiers of the lower case words of the text, in the
+     * same order as {@link #getLowerCaseTokens()}, being 
+     * {@link TokenDictionary#UNKNOWN_ID} the identifier of the words the 
+     * full dictionary doesn't hold
+     *
+     * @see TokenDictionary#getLowerCaseId(int)
+     */
+    public int[] getLowerCaseTokenIds() {
+        int[] result = lowerCaseTokenIds;
+        if(result == null) {
+            TokenDictionary dictionary = TokenDictionary.getSharedDictionary();
+            int[] original = getTokenIds();
+            result = new int[original.length];
+            for(int i = 0; i < original.length; i++) {
+                if(original[i] == TokenDictionary.UNKNOWN_ID) {
+                    result[i] = dictionary.lookup(getLowerCaseTokens()[i]);
+                } else {
+                    result[i] = dictionary.getLowerCaseId(original[i]);
+                }
+            }
+            lowerCaseTokenIds = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the amount of words found in the text.
+     *
+     * @return the number of words of the text
+     */
+    public int getTokenCount() {
+        return getTokens().length;
+    }
+
+    /**
+     * Returns a Map containing the number of times each lower case word
+     * appears in the text.
+     *
+     * @return an unmodifiable Map with the frequency of each lower case word
+     */
+    public Map<String, Integer> getTermFrequencies() {
+        Map<String, Integer> result = termFrequencies;
+        if(result == null) {
+            String[] words = getLowerCaseTokens();
+            Map<String, Integer> counts = new HashMap<>(words.length * 2);
+            for(String word : words) {
+                Integer count = counts.get(word);
+                counts.put(word, count == null ? 1 : count + 1);
+            }
+            result = Collections.unmodifiableMap(counts);
+            termFrequencies = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the amount of characters of the class {@code charClass} found
+     * in the text.
+     *
+     * @param charClass the class of characters to count
+     * @return the number of characters of the text that belong to
+     * {@code charClass}
+     */
+    public int getCharacterCount(CharacterClass charClass) {
+        countCharacters();
+        return classCounts[charClass.ordinal()];
+    }
+
+    /**
+     * Returns the amount of times the character {@code c} appears in the
+     * text.
+     *
+     * @param c the character to count
+     * @return the number of occurrences of {@code c} in the text
+     */
+    public int getCharacterCount(char c) {
+        if(c < ASCII_SIZE) {
+            countCharacters();
+            return asciiCounts[c];
+        } else {
+            int count = 0;
+            if(TEXT != null) {
+                for(int i = 0; i < TEXT.length(); i++) {
+                    if(TEXT.charAt(i) == c) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Returns the partial result stored for this text under the key
+     * {@code key}.
+     *
+     * @param key the key of the partial result, usually the filter that
+     * computed it
+     * @return the partial result stored with {@code key} or null if there's
+     * no such result
+     */
+    public Object getCachedResult(Object key) {
+        return RESULTS.get(key);
+    }
+
+    /**
+     * Stores the partial result {@code result} for this text under the key
+     * {@code key} unless another result has already been stored with the
+     * same key.
+     *
+     * <p>
+     * <b>Note: </b>The stored results should be immutable, since they may be
+     * read by several threads at the same time.
+     * </p>
+     *
+     * @param key the key of the partial result, usually the filter that
+     * computed it
+     * @param result the partial result to store
+     * @return the result stored under {@code key} after the call, which is
+     * {@code result} unless another thread stored its result first
+     */
+    public Object cacheResult(Object key, Object result) {
+        Object previous = RESULTS.putIfAbsent(key, result);
+        return previous == null ? result : previous;
+    }
+
+    private void countCharacters() {
+        if(asciiCounts == null) {
+            int[] classes = new int[CharacterClass.values().length];
+            int[] ascii = new int[ASCII_SIZE];
+            if(TEXT != null) {
+                for(int i = 0; i < TEXT.length(); i++) {
+                    char c = TEXT.charAt(i);
+                    if(c < ASCII_SIZE) {
+                        ascii[c]++;
+                    }
+                    if(Character.isLetter(c)) {
+                        classes[CharacterClass.LETTER.ordinal()]++;
+                        if(Character.isUpperCase(c)) {
+                            classes[CharacterClass.UPPERCASE.ordinal()]++;
+                        }
+                    } else if(Character.isDigit(c)) {
+                        classes[CharacterClass.DIGIT.ordinal()]++;
+                    } else if(Character.isWhitespace(c)) {
+                        classes[CharacterClass.WHITESPACE.ordinal()]++;
+                    } else {
+                        classes[CharacterClass.PUNCTUATION.ordinal()]++;
+                    }
+                }
+            }
+            classCounts = classes;
+            asciiCounts = ascii;
+        }
+    }
+
+}
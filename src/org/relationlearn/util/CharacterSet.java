@@ -0,0 +1,109 @@
+package org.relationlearn.util;
+
+import java.util.Arrays;
+
+/**
+ * Utility class that represents one or more classes of characters, compiled
+ * into lookup tables so the class of a character can be found without any
+ * allocation.
+ *
+ * <p>
+ * Each class is defined by a String containing all of its characters, and
+ * identified by its position in the constructor arguments. A character can
+ * only belong to one class, if it appears in several of them it belongs to
+ * the first one. CharacterSet objects are immutable and can be shared
+ * between threads.
+ * </p>
+ *
+ * @see TextUtils#countCharacters(CharSequence, CharacterSet, int[])
+ */
+public class CharacterSet {
+
+    private static final int ASCII_SIZE = 128;
+
+    private final String[] CLASSES;
+
+    private final byte[] ASCII_TABLE;
+    private final char[] OTHER_CHARS;
+    private final int[] OTHER_CLASSES;
+
+    /**
+     * Constructs a new CharacterSet with a class for each one of the Strings
+     * in {@code classes}.
+     *
+     * @param classes the characters of each class
+     *
+     * @throws IllegalArgumentException if there are no classes or more than
+     * 127 classes
+     */
+    public CharacterSet(String... classes) {
+        if(classes.length == 0 || classes.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("The number of classes must "
+                    + "be between 1 and " + Byte.MAX_VALUE);
+        }
+        this.CLASSES = classes.clone();
+        this.ASCII_TABLE = new byte[ASCII_SIZE];
+        Arrays.fill(ASCII_TABLE, (byte) -1);
+        StringBuilder others = new StringBuilder();
+        for(int i = 0; i < CLASSES.length; i++) {
+            for(int j = 0; j < CLASSES[i].length(); j++) {
+                char c = CLASSES[i].charAt(j);
+                if(c < ASCII_SIZE) {
+                    if(ASCII_TABLE[c] < 0) {
+                        ASCII_TABLE[c] = (byte) i;
+                    }
+                } else if(others.indexOf(String.valueOf(c)) < 0) {
+                    others.append(c);
+                }
+            }
+        }
+        this.OTHER_CHARS = others.toString().toCharArray();
+        Arrays.sort(OTHER_CHARS);
+        this.OTHER_CLASSES = new int[OTHER_CHARS.length];
+        for(int i = 0; i < OTHER_CHARS.length; i++) {
+            for(int j = 0; j < CLASSES.length; j++) {
+                if(CLASSES[j].indexOf(OTHER_CHARS[i]) >= 0) {
+                    OTHER_CLASSES[i] = j;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of classes of this CharacterSet.
+     *
+     * @return the number of classes
+     */
+    public int getClassCount() {
+        return CLASSES.length;
+    }
+
+    /**
+     * Returns the characters that define the class with index
+     * {@code classIndex}.
+     *
+     * @param classIndex the index of the class
+     * @return a String with all the characters of the class
+     */
+    public String getClassCharacters(int classIndex) {
+        return CLASSES[classIndex];
+    }
+
+    /**
+     * Returns the index of the class the character {@code c} belongs to.
+     *
+     * @param c the character to look for
+     * @return the index of the class of {@code c} or -1 if it doesn't
+     * belong to any class
+     */
+    public int getClassIndex(char c) {
+        if(c < ASCII_SIZE) {
+            return ASCII_TABLE[c];
+        } else {
+            int position = Arrays.binarySearch(OTHER_CHARS, c);
+            return position < 0 ? -1 : OTHER_CLASSES[position];
+        }
+    }
+
+}
@@ -0,0 +1,402 @@
+package org.relationlearn.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.relationlearn.classifiers.ConcurrentSVMClassifier;
+import org.relationlearn.filters.AnalyzedFilterGroup;
+import org.relationlearn.filters.FilterGroup;
+import org.relationlearn.filters.SequentialFilterGroup;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Utility class used to classify argument pairs with already trained
+ * classifiers from a long-running process, so the models and the filters
+ * of each topic are loaded only once.
+ *
+ * The call parameters are: &ltfilter-config-path&gt &ltmodels-path&gt
+ * &lt-stdin|port&gt [&ltreplicas&gt]
+ *
+ * <p>
+ * Jobs are read one per line, either from the standard input or from any
+ * amount of connections to a socket bound to the loopback interface, and
+ * each one is answered with a line in the same order. A job contains the
+ * topic, the response text and the target text separated by tabs, encoded
+ * with {@link #encodeField(String)} so they can contain tabs and line
+ * breaks. The answer is the RelationType assigned to the pair, or
+ * {@value #ERROR_PREFIX} followed by the reason the job failed.
+ * </p>
+ * <p>
+ * The filters and the model of a topic are loaded the first time one of
+ * its jobs is received, from the same paths {@link GraphClassifier} uses,
+ * and kept in a {@link ModelRegistry} which evicts the least recently used
+ * topics once their model files, counted once per replica, exceed the
+ * capacity set with the system property
+ * {@value ModelRegistry#CAPACITY_PROPERTY}. Each model is kept in a
+ * {@link ConcurrentSVMClassifier}, so jobs from different connections are
+ * classified at the same time.
+ * </p>
+ *
+ * @see GraphClassifier
+ * @see ConcurrentSVMClassifier
+ * @see ModelRegistry
+ */
+public class ClassificationServer {
+
+    /**
+     * The separator of the fields of a job.
+     */
+    public static final String FIELD_SEPARATOR = "\t";
+
+    /**
+     * The prefix of the answer of a job that failed.
+     */
+    public static final String ERROR_PREFIX = "ERROR ";
+
+    private static class TopicModel {
+
+        private final FilterGroup FILTERS;
+        private final Instances HEADER;
+        private final ConcurrentSVMClassifier CLASSIFIER;
+        private final long SIZE;
+
+        public TopicModel(FilterGroup filters,
+                ConcurrentSVMClassifier classifier, long size) {
+            this.FILTERS = filters;
+            this.HEADER = filters.getGroupDataset();
+            this.CLASSIFIER = classifier;
+            this.SIZE = size;
+        }
+    }
+
+    private static final String attck = RelationType.ATTACK.toString();
+    private static final String suppt = RelationType.SUPPORT.toString();
+
+    private final String CONFIG_PATH;
+    private final String MODELS_PATH;
+    private final int REPLICAS;
+    private final ModelRegistry<TopicModel> MODELS;
+
+    /**
+     * Constructs a new ClassificationServer which loads the filters of each
+     * topic from {@code configPath} and its model from {@code modelsPath},
+     * with a replica of each model for every available processor.
+     *
+     * @param configPath the path prefix of the filter configuration files
+     * @param modelsPath the path prefix of the model files
+     */
+    public ClassificationServer(String configPath, String modelsPath) {
+        this(configPath, modelsPath,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new ClassificationServer which loads the filters of each
+     * topic from {@code configPath} and its model from {@code modelsPath},
+     * with {@code replicas} replicas of each model. The amount of models
+     * kept in memory is not limited.
+     *
+     * @param configPath the path prefix of the filter configuration files
+     * @param modelsPath the path prefix of the model files
+     * @param replicas the amount of replicas of each model
+     *
+     * @see ConcurrentSVMClassifier#ConcurrentSVMClassifier(File, int)
+     */
+    public ClassificationServer(String configPath, String modelsPath,
+            int replicas) {
+        this(configPath, modelsPath, replicas, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a new ClassificationServer which loads the filters of each
+     * topic from {@code configPath} and its model from {@code modelsPath},
+     * with {@code replicas} replicas of each model, keeping in memory the
+     * most recently used models while their files, counted once per
+     * replica, add up to at most {@code capacity} bytes.
+     *
+     * @param configPath the path prefix of the filter configuration files
+     * @param modelsPath the path prefix of the model files
+     * @param replicas the amount of replicas of each model
+     * @param capacity the maximum size of the models kept in memory, in
+     * bytes
+     *
+     * @see ModelRegistry#ModelRegistry(ModelRegistry.Loader, long)
+     */
+    public ClassificationServer(String configPath, String modelsPath,
+            int replicas, long capacity) {
+        this.CONFIG_PATH = configPath;
+        this.MODELS_PATH = modelsPath;
+        this.REPLICAS = replicas;
+        this.MODELS = new ModelRegistry<>(
+                new ModelRegistry.Loader<TopicModel>() {
+                    @Override
+                    public TopicModel load(String topic) throws Exception {
+                        return loadTopicModel(topic);
+                    }
+
+                    @Override
+                    public long sizeOf(String topic, TopicModel model) {
+                        return model.SIZE;
+                    }
+                }, capacity);
+    }
+
+    /**
+     * Classifies the argument pair formed by {@code response} and
+     * {@code target} with the model of {@code topic}, loading it if it's
+     * the first time it's used.
+     *
+     * @param topic the topic of the pair
+     * @param response the text of the response argument
+     * @param target the text of the target argument
+     * @return the RelationType assigned to the pair
+     * @throws Exception if the model of the topic can't be loaded or any
+     * error related to the classification happens
+     */
+    public RelationType classify(String topic, String response,
+            String target) throws Exception {
+        TopicModel model = MODELS.get(topic);
+        Instance instance;
+        if(model.FILTERS instanceof AnalyzedFilterGroup) {
+            instance = ((AnalyzedFilterGroup) model.FILTERS)
+                    .createInstanceUsingFilters(new AnalyzedText(response), 
+                            new AnalyzedText(target));
+        } else {
+            instance = model.FILTERS.createInstanceUsingFilters(response, 
+                    target);
+        }
+        instance.setDataset(model.HEADER);
+        double result = model.CLASSIFIER.classifyInstance(instance);
+        String sResult = model.HEADER.classAttribute().value((int) result);
+        if(attck.equals(sResult)) {
+            return RelationType.ATTACK;
+        } else if(suppt.equals(sResult)) {
+            return RelationType.SUPPORT;
+        } else {
+            return RelationType.UNKNOWN;
+        }
+    }
+
+    /**
+     * Processes the job found in {@code line} and returns its answer.
+     *
+     * @param line the encoded job
+     * @return the answer to the job, which is never null
+     */
+    public String handleJob(String line) {
+        String[] fields = line.split(FIELD_SEPARATOR, -1);
+        if(fields.length != 3) {
+            return ERROR_PREFIX + "expected 3 fields but found "
+                    + fields.length;
+        }
+        try {
+            return classify(decodeField(fields[0]), decodeField(fields[1]),
+                    decodeField(fields[2])).toString();
+        } catch (Exception ex) {
+            return ERROR_PREFIX + (ex.getMessage() != null ?
+                    ex.getMessage() : ex.toString());
+        }
+    }
+
+    /**
+     * Answers every job read from {@code in} until its end, writing the
+     * answers to {@code out}. The output is only flushed when there are no
+     * more jobs waiting to be read, so pipelined jobs are answered in bulk.
+     *
+     * @param in the source of the jobs
+     * @param out the destination of the answers
+     * @throws IOException if any error reading or writing happens
+     */
+    public void serve(BufferedReader in, Writer out) throws IOException {
+        String line;
+        while((line = in.readLine()) != null) {
+            out.write(handleJob(line));
+            out.write('\n');
+            if(!in.ready()) {
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Accepts connections on the port {@code port} of the loopback
+     * interface and answers the jobs of each one in its own thread, until
+     * the process is stopped.
+     *
+     * @param port the port to listen on
+     * @throws IOException if the port can't be bound
+     */
+    public void serve(int port) throws IOException {
+        ExecutorService connections = Executors.newCachedThreadPool();
+        try (ServerSocket server = new ServerSocket(port, 50,
+                InetAddress.getLoopbackAddress())) {
+            while(true) {
+                final Socket socket = server.accept();
+                connections.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serveConnection(socket);
+                    }
+                });
+            }
+        } finally {
+            connections.shutdown();
+        }
+    }
+
+    /**
+     * Encodes {@code text} so it can be used as a field of a job, escaping
+     * backslashes, tabs and line breaks. A null text is encoded as an empty
+     * field.
+     *
+     * @param text the text to encode
+     * @return the encoded text
+     */
+    public static String encodeField(String text) {
+        if(text == null) {
+            return "";
+        }
+        StringBuilder encoded = new StringBuilder(text.length() + 16);
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch(c) {
+                case '\\':
+                    encoded.append("\\\\");
+                    break;
+                case '\t':
+                    encoded.append("\\t");
+                    break;
+                case '\n':
+                    encoded.append("\\n");
+                    break;
+                case '\r':
+                    encoded.append("\\r");
+                    break;
+                default:
+                    encoded.append(c);
+            }
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Decodes a field of a job encoded with {@link #encodeField(String)}.
+     *
+     * @param field the encoded field
+     * @return the decoded text
+     * @throws IllegalArgumentException if the field contains an unknown
+     * escape sequence
+     */
+    public static String decodeField(String field) {
+        if(field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder decoded = new StringBuilder(field.length());
+        for(int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if(c != '\\') {
+                decoded.append(c);
+            } else if(++i < field.length()) {
+                switch(field.charAt(i)) {
+                    case '\\':
+                        decoded.append('\\');
+                        break;
+                    case 't':
+                        decoded.append('\t');
+                        break;
+                    case 'n':
+                        decoded.append('\n');
+                        break;
+                    case 'r':
+                        decoded.append('\r');
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown escape "
+                                + "sequence: \\" + field.charAt(i));
+                }
+            } else {
+                throw new IllegalArgumentException("Unfinished escape "
+                        + "sequence");
+            }
+        }
+        return decoded.toString();
+    }
+
+    /**
+     * Returns the ModelRegistry holding the models of the topics, which
+     * records the hits, misses and load times of the requests.
+     *
+     * @return the model registry of this server
+     */
+    public ModelRegistry<?> getModelRegistry() {
+        return MODELS;
+    }
+
+    private TopicModel loadTopicModel(String topic) throws Exception {
+        File configFile = new File(CONFIG_PATH + topic + ".xml");
+        File modelFile = new File(MODELS_PATH + topic + ".model");
+        if(!configFile.exists()) {
+            throw new IllegalArgumentException("could not find config "
+                    + "file for: " + topic);
+        }
+        if(!modelFile.exists()) {
+            throw new IllegalArgumentException("could not find "
+                    + modelFile + " file for: " + topic);
+        }
+        FilterGroup filters = new SequentialFilterGroup(topic, configFile);
+        filters.addClassAttribute(null);
+        return new TopicModel(filters,
+                new ConcurrentSVMClassifier(modelFile, REPLICAS),
+                modelFile.length() * REPLICAS);
+    }
+
+    private void serveConnection(Socket socket) {
+        try (Socket s = socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        s.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(new OutputStreamWriter(
+                        s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setTcpNoDelay(true);
+            serve(in, out);
+        } catch (IOException ioex) {
+            System.err.println("Error in connection: " + ioex.getMessage());
+        }
+    }
+
+    public static void main(String args[]) throws Exception {
+        if(args.length < 3) {
+            System.err.println("Error in parameters, usage: "
+                    + "<filter-config-path> <models-path> <-stdin|port> "
+                    + "[<replicas>]");
+        } else {
+            int replicas = args.length > 3 ? Integer.parseInt(args[3]) :
+                    Runtime.getRuntime().availableProcessors();
+            long capacity = Long.getLong(ModelRegistry.CAPACITY_PROPERTY,
+                    Long.MAX_VALUE);
+            ClassificationServer server = new ClassificationServer(args[0],
+                    args[1], replicas, capacity);
+            if("-stdin".equals(args[2])) {
+                server.serve(new BufferedReader(new InputStreamReader(
+                        System.in, StandardCharsets.UTF_8)),
+                        new BufferedWriter(new OutputStreamWriter(
+                                System.out, StandardCharsets.UTF_8)));
+                System.err.println(server.getModelRegistry());
+            } else {
+                server.serve(Integer.parseInt(args[2]));
+            }
+        }
+    }
+
+}
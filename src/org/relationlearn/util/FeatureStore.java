@@ -0,0 +1,357 @@
+package org.relationlearn.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.relationlearn.filters.FilterGroup;
+import org.relationlearn.filters.InstanceFormat;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.ArgumentRelation;
+import org.relationlearn.model.RelationDigraph;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Utility class that stores the Instances generated from each 
+ * RelationDigraph in a directory, so they don't have to be computed again
+ * when neither the graph nor the filters have changed.
+ * 
+ * <p>
+ * Each entry is identified by a SHA-256 key computed from the dataset name
+ * of the FilterGroup, which is the topic of the graph, its Attribute 
+ * layout, the filter configuration given to the store, the InstanceFormat
+ * the loaded Instance objects are packed with and the full content
+ * of the graph: node ids, weights and texts plus relation ids, targets and
+ * types. Any change in any of them leads to a different key, so stale
+ * entries are never used.
+ * </p>
+ * <p>
+ * Entries are written in a compact columnar format: the values of each
+ * Attribute are stored together, nominal Attributes with few values taking
+ * a single byte per Instance. Entries are written to a temporary file and
+ * then renamed, so readers never see partial entries. The loaded Instance
+ * objects are packed with the {@link InstanceFormat#getDefault() default}
+ * InstanceFormat, the same one the FilterGroup objects use unless it is 
+ * changed.
+ * </p>
+ * 
+ * @see InstanceGenerator#InstanceGenerator(RelationDigraph, FilterGroup, 
+ * FeatureStore)
+ */
+public class FeatureStore {
+    
+    /**
+     * Name of the system property that, when set, enables the FeatureStore
+     * used by {@link ModelGenerator} and {@link GraphClassifier}, its value
+     * is the directory where the entries are stored.
+     */
+    public static final String CACHE_DIR_PROPERTY = 
+            "relationlearn.feature.cache";
+    
+    private static final int MAGIC = 0x524C4653; // "RLFS"
+    private static final int VERSION = 1;
+    
+    private static final String EXTENSION = ".features";
+    
+    private static final byte DOUBLE_COLUMN = 0;
+    private static final byte BYTE_COLUMN = 1;
+    private static final byte BYTE_MISSING = -1;
+    
+    private final File DIRECTORY;
+    private final String CONFIGURATION;
+    private final InstanceFormat FORMAT;
+    
+    /**
+     * Constructs a new FeatureStore that stores its entries in
+     * {@code directory}, for FilterGroup objects configured with the
+     * configuration {@code configuration}.
+     * 
+     * @param directory the directory where the entries are stored, it's
+     * created if it doesn't exist
+     * @param configuration a description of the filter classes and their
+     * parameters, such as the content of a filter configuration file
+     * 
+     * @throws IllegalArgumentException if the directory can't be created
+     */
+    public FeatureStore(File directory, String configuration) {
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Can't create feature store "
+                    + "directory: " + directory);
+        }
+        this.DIRECTORY = directory;
+        this.CONFIGURATION = configuration;
+        this.FORMAT = InstanceFormat.getDefault();
+    }
+    
+    /**
+     * Constructs a new FeatureStore that stores its entries in
+     * {@code directory}, for FilterGroup objects loaded from the filter
+     * configuration file {@code configFile}.
+     * 
+     * @param directory the directory where the entries are stored, it's
+     * created if it doesn't exist
+     * @param configFile the filter configuration file, its content is used
+     * as configuration
+     * 
+     * @throws IllegalArgumentException if the directory can't be created
+     * or the configuration file can't be read
+     * 
+     * @see org.relationlearn.filters.SequentialFilterGroup
+     */
+    public FeatureStore(File directory, File configFile) {
+        this(directory, readConfiguration(configFile));
+    }
+    
+    /**
+     * Computes the key of the entry for the Instances generated from 
+     * {@code graph} with {@code filters}.
+     * 
+     * @param graph the RelationDigraph the Instances are generated from
+     * @param filters the FilterGroup used to generate the Instances
+     * @return the hexadecimal SHA-256 key of the entry
+     */
+    public String computeKey(RelationDigraph graph, FilterGroup filters) {
+        MessageDigest digest = createDigest();
+        updateDigest(digest, "relationlearn-features-" + VERSION);
+        updateDigest(digest, filters.getGroupDatasetName());
+        updateDigest(digest, getHeaderSignature(filters.getGroupDataset()));
+        updateDigest(digest, CONFIGURATION);
+        updateDigest(digest, FORMAT.resolve(
+                filters.getGroupDataset().numAttributes()).name());
+        for(ArgumentNode node : graph) {
+            updateDigest(digest, node.getNodeId());
+            updateDigest(digest, node.getNodeWeight());
+            updateDigest(digest, node.getArgumentNodeText());
+            ArgumentRelation relation = node.getTargetRelation();
+            if(relation != null) {
+                updateDigest(digest, relation.getArgumentRelationId());
+                updateDigest(digest, relation.getTarget().getNodeId());
+                updateDigest(digest, 
+                        relation.getArgumentRelationType().toString());
+            } else {
+                updateDigest(digest, -1);
+            }
+        }
+        StringBuilder key = new StringBuilder(64);
+        for(byte b : digest.digest()) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+    
+    /**
+     * Loads the Instances stored with the key {@code key}.
+     * 
+     * @param key the key of the entry, as returned by 
+     * {@link #computeKey(RelationDigraph, FilterGroup)}
+     * @param header an empty Instances object with the expected Attribute
+     * layout, the loaded Instance objects are added to a copy of it
+     * @return the stored Instances or null if there's no valid entry for
+     * {@code key} with the same Attribute layout as {@code header}
+     */
+    public Instances load(String key, Instances header) {
+        File entry = getEntryFile(key);
+        if(!entry.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(entry)))) {
+            return readEntry(in, key, header);
+        } catch (IOException ioex) {
+            System.err.println("Error reading feature store entry " + key 
+                    + ": " + ioex.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Stores {@code instances} with the key {@code key}, replacing any
+     * previous entry with the same key. Errors are written to the standard
+     * error output, since a missing entry only means the Instances will be
+     * generated again.
+     * 
+     * @param key the key of the entry, as returned by 
+     * {@link #computeKey(RelationDigraph, FilterGroup)}
+     * @param instances the Instances to store
+     */
+    public void store(String key, Instances instances) {
+        File entry = getEntryFile(key);
+        File temp = null;
+        try {
+            temp = File.createTempFile(key, ".tmp", DIRECTORY);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                writeEntry(out, key, instances);
+            }
+            try {
+                Files.move(temp.toPath(), entry.toPath(), 
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnsex) {
+                Files.move(temp.toPath(), entry.toPath(), 
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ioex) {
+            System.err.println("Error writing feature store entry " + key 
+                    + ": " + ioex.getMessage());
+            if(temp != null) {
+                temp.delete();
+            }
+        }
+    }
+    
+    private void writeEntry(DataOutputStream out, String key, 
+            Instances instances) throws IOException {
+        int numAttributes = instances.numAttributes();
+        int numInstances = instances.numInstances();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(key);
+        out.writeUTF(getHeaderSignature(instances));
+        out.writeInt(numAttributes);
+        out.writeInt(numInstances);
+        boolean uniformWeights = true;
+        for(int i = 0; i < numInstances; i++) {
+            if(instances.instance(i).weight() != 1.0) {
+                uniformWeights = false;
+                break;
+            }
+        }
+        out.writeBoolean(uniformWeights);
+        if(!uniformWeights) {
+            for(int i = 0; i < numInstances; i++) {
+                out.writeDouble(instances.instance(i).weight());
+            }
+        }
+        for(int a = 0; a < numAttributes; a++) {
+            Attribute attr = instances.attribute(a);
+            if(attr.isNominal() && attr.numValues() <= Byte.MAX_VALUE) {
+                out.writeByte(BYTE_COLUMN);
+                for(int i = 0; i < numInstances; i++) {
+                    double value = instances.instance(i).value(a);
+                    out.writeByte(Double.isNaN(value) ? 
+                            BYTE_MISSING : (byte) value);
+                }
+            } else {
+                out.writeByte(DOUBLE_COLUMN);
+                for(int i = 0; i < numInstances; i++) {
+                    out.writeDouble(instances.instance(i).value(a));
+                }
+            }
+        }
+    }
+    
+    private Instances readEntry(DataInputStream in, String key, 
+            Instances header) throws IOException {
+        if(in.readInt() != MAGIC || in.readInt() != VERSION 
+                || !key.equals(in.readUTF()) 
+                || !getHeaderSignature(header).equals(in.readUTF())) {
+            return null;
+        }
+        int numAttributes = in.readInt();
+        int numInstances = in.readInt();
+        if(numAttributes != header.numAttributes() || numInstances < 0) {
+            return null;
+        }
+        double[] weights = new double[numInstances];
+        if(in.readBoolean()) {
+            java.util.Arrays.fill(weights, 1.0);
+        } else {
+            for(int i = 0; i < numInstances; i++) {
+                weights[i] = in.readDouble();
+            }
+        }
+        double[][] rows = new double[numInstances][numAttributes];
+        for(int a = 0; a < numAttributes; a++) {
+            byte type = in.readByte();
+            for(int i = 0; i < numInstances; i++) {
+                if(type == BYTE_COLUMN) {
+                    byte value = in.readByte();
+                    rows[i][a] = (value == BYTE_MISSING) ? 
+                            Instance.missingValue() : value;
+                } else {
+                    rows[i][a] = in.readDouble();
+                }
+            }
+        }
+        Instances result = new Instances(header, numInstances);
+        for(int i = 0; i < numInstances; i++) {
+            result.add(FORMAT.createInstance(weights[i], rows[i]));
+        }
+        return result;
+    }
+    
+    private File getEntryFile(String key) {
+        return new File(DIRECTORY, key + EXTENSION);
+    }
+    
+    private static String getHeaderSignature(Instances header) {
+        StringBuilder signature = new StringBuilder();
+        signature.append(header.classIndex()).append('|');
+        for(int a = 0; a < header.numAttributes(); a++) {
+            Attribute attr = header.attribute(a);
+            signature.append(attr.name()).append(':');
+            if(attr.isNominal()) {
+                for(int v = 0; v < attr.numValues(); v++) {
+                    signature.append(attr.value(v)).append(',');
+                }
+            } else {
+                signature.append('#');
+            }
+            signature.append('|');
+        }
+        return signature.toString();
+    }
+    
+    private static String readConfiguration(File configFile) {
+        try {
+            return new String(Files.readAllBytes(configFile.toPath()), 
+                    StandardCharsets.UTF_8);
+        } catch (IOException ioex) {
+            throw new IllegalArgumentException("Error reading configuration "
+                    + "file: " + ioex.getMessage());
+        }
+    }
+    
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsaex) {
+            throw new IllegalStateException(nsaex);
+        }
+    }
+    
+    private static void updateDigest(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+    
+    /*
+     * Strings are prefixed by their length so that different sequences of
+     * Strings never produce the same bytes, null is written as -1.
+     */
+    private static void updateDigest(MessageDigest digest, String value) {
+        if(value == null) {
+            updateDigest(digest, -1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            updateDigest(digest, bytes.length);
+            digest.update(bytes);
+        }
+    }
+
+}
@@ -3,18 +3,22 @@ package org.relationlearn.util;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.relationlearn.classifiers.RelationClassifier;
+import org.relationlearn.classifiers.SGDClassifier;
 import org.relationlearn.classifiers.SVMClassifier;
 import org.relationlearn.filters.FilterGroup;
 import org.relationlearn.filters.SequentialFilterGroup;
 import org.relationlearn.model.ArgumentNode;
 import org.relationlearn.model.ArgumentRelation;
 import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.util.io.BinaryCorpusParser;
 import org.relationlearn.util.io.DLVFileGenerator;
 import org.relationlearn.util.io.DOTFileGenerator;
 import org.relationlearn.util.io.InputParser;
 import org.relationlearn.util.io.OutputGenerator;
+import org.relationlearn.util.io.ParallelCorpusParser;
 import org.relationlearn.util.io.XMLFileGenerator;
-import org.relationlearn.util.io.XMLFileParser;
 import weka.core.Instances;
 
 /**
@@ -23,6 +27,20 @@ import weka.core.Instances;
  * The call parameters are: &ltinput-file&gt &ltfilter-config-path&gt 
  * &ltmodels-path&gt &ltout-format&gt &ltout-path&gt
  * 
+ * The input can be a single NoDE file, a directory or a glob pattern, all
+ * the files found are parsed concurrently and merged by topic. It can also be
+ * a binary corpus file created with 
+ * {@link org.relationlearn.util.io.BinaryCorpusConverter}, which is loaded
+ * much faster.
+ * 
+ * When the system property {@value FeatureStore#CACHE_DIR_PROPERTY} is set,
+ * the Instances of each graph are stored in that directory and reused in
+ * later runs as long as the graph and its filter configuration don't change.
+ * 
+ * Models trained with LibSVM and with {@link SGDClassifier} are both
+ * accepted, the kind of each model is detected from its file. The 
+ * classifier options are only applied to the LibSVM models.
+ * 
  * @see weka.classifiers.functions.LibSVM
  * 
  */
@@ -32,7 +50,8 @@ public class GraphClassifier {
     private static OutputGenerator oGenerator;
     private static FilterGroup filters;
     private static InstanceGenerator generator;
-    private static SVMClassifier classifier;
+    private static FeatureStore store;
+    private static RelationClassifier classifier;
     
     private static File configFile;
     private static File modelFile;
@@ -45,15 +64,24 @@ public class GraphClassifier {
     private static String outFormat;
     private static String baseOutPath;
     private static String[] svmOptions;
+    private static String cachePath;
     
     private static final String attck = RelationType.ATTACK.toString();
     private static final String suppt = RelationType.SUPPORT.toString();
     
+    private static final ForkJoinPool classifierPool = new ForkJoinPool();
+    
     public static void main(String args[]) throws Exception {
-        if(args.length < 5) {
+        if(args.length > 0 && "-server".equals(args[0])) {
+            ClassificationServer.main(
+                    Arrays.copyOfRange(args, 1, args.length));
+        } else if(args.length < 5) {
             System.err.println("Error in parameters, usage: "
-                    + "<input-file.xml> <filter-config-path> <models-path> "
-                    + "<-dot|-xml|-dlv> <output-path> [<classifier-options>]");
+                    + "<input-file.xml|input-dir|glob> <filter-config-path> "
+                    + "<models-path> "
+                    + "<-dot|-xml|-dlv> <output-path> [<classifier-options>]"
+                    + " or: -server <filter-config-path> <models-path> "
+                    + "<-stdin|port> [<replicas>]");
         } else {
             inputFile = args[0];
             baseConfigPath = args[1];
@@ -63,10 +91,15 @@ public class GraphClassifier {
             if(args.length > 5) {
                 svmOptions = Arrays.copyOfRange(args, 5, args.length);
             }
-            parser = new XMLFileParser();
+            if(BinaryCorpusParser.isBinaryCorpus(inputFile)) {
+                parser = new BinaryCorpusParser();
+            } else {
+                parser = new ParallelCorpusParser();
+            }
+            cachePath = System.getProperty(FeatureStore.CACHE_DIR_PROPERTY);
             Map<String, RelationDigraph> graphs = parser.parseInput(inputFile);
             String gName, sResult;
-            double result;
+            double[] results;
             int i;
             ArgumentRelation relation;
             for (Map.Entry<String, RelationDigraph> graph : graphs.entrySet()) {
@@ -75,24 +108,33 @@ public class GraphClassifier {
                 if (configFile.exists()) {
                     filters = new SequentialFilterGroup(gName, configFile);
                     filters.addClassAttribute(null);
-                    generator = new InstanceGenerator(
-                            graph.getValue(), filters);
+                    if(cachePath != null) {
+                        store = new FeatureStore(new File(cachePath), 
+                                configFile);
+                    }
+                    generator = new InstanceGenerator(graph.getValue(), 
+                            filters, store);
                     instances = generator.getGraphInstances();
                     modelFile = new File(modelsPath + gName + ".model");
                     if(modelFile.exists()) {
-                        classifier = new SVMClassifier(modelFile);
-                        if(args.length > 5) {
-                            classifier.setOptions(svmOptions);
+                        // the LibSVM options don't apply to SGD models, 
+                        // whose options only affect their training
+                        if(SGDClassifier.isSGDModel(modelFile)) {
+                            classifier = new SGDClassifier(modelFile);
+                        } else {
+                            classifier = new SVMClassifier(modelFile);
+                            if(svmOptions != null) {
+                                classifier.setOptions(svmOptions.clone());
+                            }
                         }
+                        results = classifier.classifyBatch(instances, 
+                                classifierPool);
                         i = 0;
                         for(ArgumentNode node : graph.getValue()) {
                             relation = node.getTargetRelation();
                             if(relation != null) {
-                                instances.instance(i).setClassMissing();
-                                result = classifier.classifyInstance(
-                                        instances.instance(i));
                                 sResult = instances.classAttribute().value(
-                                        (int)result);
+                                        (int)results[i]);
                                 if(attck.equals(sResult)) {
                                     relation.changeRelationType(
                                             RelationType.ATTACK);
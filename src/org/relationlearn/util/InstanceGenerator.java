@@ -1,10 +1,14 @@
 package org.relationlearn.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.relationlearn.filters.AnalyzedFilterGroup;
 import org.relationlearn.filters.FilterGroup;
 import org.relationlearn.model.ArgumentNode;
 import org.relationlearn.model.ArgumentRelation;
 import org.relationlearn.model.RelationDigraph;
-import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 
@@ -17,8 +21,47 @@ import weka.core.Instances;
  */
 public class InstanceGenerator {
     
+    /**
+     * Default amount of argument pairs processed by each task when the
+     * instances are generated in parallel.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+    
+    private class GenerationTask extends RecursiveAction {
+        
+        private final List<ArgumentNode> PAIRS;
+        private final Instance[] RESULTS;
+        private final int START;
+        private final int END;
+        
+        public GenerationTask(List<ArgumentNode> pairs, Instance[] results,
+                int start, int end) {
+            this.PAIRS = pairs;
+            this.RESULTS = results;
+            this.START = start;
+            this.END = end;
+        }
+
+        @Override
+        protected void compute() {
+            if((END - START) <= CHUNK_SIZE) {
+                for(int i = START; i < END; i++) {
+                    RESULTS[i] = generateNodeInstance(PAIRS.get(i));
+                }
+            } else {
+                int middle = (START + END) >>> 1;
+                invokeAll(new GenerationTask(PAIRS, RESULTS, START, middle),
+                        new GenerationTask(PAIRS, RESULTS, middle, END));
+            }
+        }
+    }
+    
     private final RelationDigraph GRAPH;
     private final FilterGroup FILTER;
+    private final ForkJoinPool POOL;
+    private final int CHUNK_SIZE;
+    private final NodeAnalysisCache CACHE;
+    private final FeatureStore STORE;
     
     /**
      * Constructs a new Instances generator with {@code graph} as the source
@@ -29,8 +72,113 @@ public class InstanceGenerator {
      * to the data extracted
      */
     public InstanceGenerator(RelationDigraph graph, FilterGroup filter) {
+        this(graph, filter, null, DEFAULT_CHUNK_SIZE, null);
+    }
+    
+    /**
+     * Constructs a new Instances generator with {@code graph} as the source
+     * of data and {@code filter} as the TextFilter objects container, which
+     * reuses the Instances stored in {@code store} when available.
+     * 
+     * @param graph the RelationDigraph from which the data will be extracted
+     * @param filter the FilterGroup that contains the filter to be applied
+     * to the data extracted
+     * @param store the FeatureStore where the generated Instances are
+     * looked up and stored
+     * 
+     * @see #InstanceGenerator(RelationDigraph, FilterGroup, ForkJoinPool, 
+     * int, FeatureStore)
+     */
+    public InstanceGenerator(RelationDigraph graph, FilterGroup filter,
+            FeatureStore store) {
+        this(graph, filter, null, DEFAULT_CHUNK_SIZE, store);
+    }
+    
+    /**
+     * Constructs a new Instances generator with {@code graph} as the source
+     * of data and {@code filter} as the TextFilter objects container, which
+     * generates the Instance objects in parallel using {@code pool} in 
+     * chunks of {@link #DEFAULT_CHUNK_SIZE} argument pairs.
+     * 
+     * @param graph the RelationDigraph from which the data will be extracted
+     * @param filter the FilterGroup that contains the filter to be applied
+     * to the data extracted
+     * @param pool the ForkJoinPool used to generate the instances
+     * 
+     * @see #InstanceGenerator(RelationDigraph, FilterGroup, ForkJoinPool, int)
+     */
+    public InstanceGenerator(RelationDigraph graph, FilterGroup filter,
+            ForkJoinPool pool) {
+        this(graph, filter, pool, DEFAULT_CHUNK_SIZE);
+    }
+    
+    /**
+     * Constructs a new Instances generator with {@code graph} as the source
+     * of data and {@code filter} as the TextFilter objects container, which
+     * generates the Instance objects in parallel using {@code pool} in 
+     * chunks of {@code chunkSize} argument pairs.
+     * 
+     * <p>
+     * <b>Important Note:</b> When generating instances in parallel the
+     * FilterGroup, and the TextFilter objects it contains, are used by
+     * several threads at the same time, so they must be thread-safe.
+     * </p>
+     * 
+     * @param graph the RelationDigraph from which the data will be extracted
+     * @param filter the FilterGroup that contains the filter to be applied
+     * to the data extracted
+     * @param pool the ForkJoinPool used to generate the instances
+     * @param chunkSize the maximum amount of argument pairs processed by 
+     * each task
+     * 
+     * @throws IllegalArgumentException if {@code chunkSize} is lower than 1
+     */
+    public InstanceGenerator(RelationDigraph graph, FilterGroup filter,
+            ForkJoinPool pool, int chunkSize) {
+        this(graph, filter, pool, chunkSize, null);
+    }
+    
+    /**
+     * Constructs a new Instances generator with {@code graph} as the source
+     * of data and {@code filter} as the TextFilter objects container, which
+     * generates the Instance objects in chunks of {@code chunkSize} argument
+     * pairs using {@code pool}, and reuses the Instances stored in 
+     * {@code store} when available.
+     * 
+     * <p>
+     * The Instances are only generated when {@code store} has no entry for
+     * the graph and the filters, and are stored in it once generated. The
+     * same notes of 
+     * {@link #InstanceGenerator(RelationDigraph, FilterGroup, ForkJoinPool, 
+     * int)} apply when generating them in parallel.
+     * </p>
+     * 
+     * @param graph the RelationDigraph from which the data will be extracted
+     * @param filter the FilterGroup that contains the filter to be applied
+     * to the data extracted
+     * @param pool the ForkJoinPool used to generate the instances, or null
+     * to generate them sequentially
+     * @param chunkSize the maximum amount of argument pairs processed by 
+     * each task
+     * @param store the FeatureStore where the generated Instances are
+     * looked up and stored, or null to always generate them
+     * 
+     * @throws IllegalArgumentException if {@code chunkSize} is lower than 1
+     * 
+     * @see FeatureStore
+     */
+    public InstanceGenerator(RelationDigraph graph, FilterGroup filter,
+            ForkJoinPool pool, int chunkSize, FeatureStore store) {
+        if(chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be greater "
+                    + "than 0");
+        }
         this.GRAPH = graph;
         this.FILTER = filter;
+        this.POOL = pool;
+        this.CHUNK_SIZE = chunkSize;
+        this.CACHE = new NodeAnalysisCache(graph);
+        this.STORE = store;
     }
     
     /**
@@ -38,6 +186,15 @@ public class InstanceGenerator {
      * graph passed to the constructor and packs all those Instance objects in
      * an Instances one.
      * 
+     * <p>
+     * The Instance objects are always added in the order the graph nodes are
+     * returned by its iterator, even when they are generated in parallel.
+     * When the FilterGroup is an AnalyzedFilterGroup, the text of each node
+     * is analyzed only once and shared by all the pairs the node takes part
+     * in. If a FeatureStore was given the stored
+     * Instances are returned instead when available.
+     * </p>
+     * 
      * @return the Instances object containing all instances obtained from
      * the RelationDigraph throught the application of the filters contained
      * in the FilterGroup passed in the constructor
@@ -46,22 +203,58 @@ public class InstanceGenerator {
      * @see weka.core.Instances
      */
     public Instances getGraphInstances() {
+        if(STORE == null) {
+            return generateGraphInstances();
+        }
+        String key = STORE.computeKey(GRAPH, FILTER);
+        Instances ins = STORE.load(key, FILTER.getGroupDataset());
+        if(ins == null) {
+            ins = generateGraphInstances();
+            STORE.store(key, ins);
+        }
+        return ins;
+    }
+    
+    private Instances generateGraphInstances() {
         Instances ins = FILTER.getGroupDataset();
-        Attribute classAttr = ins.classAttribute();
-        for(ArgumentNode an : GRAPH) {
-            ArgumentRelation relation = an.getTargetRelation();
-            if(relation != null) {
-                Instance in = generateInstace(an.getArgumentNodeText(), 
-                        relation.getTarget().getArgumentNodeText());
-                in.setClassValue(relation.getArgumentRelationType().toString());
+        if(POOL == null) {
+            for(ArgumentNode an : GRAPH) {
+                if(an.getTargetRelation() != null) {
+                    ins.add(generateNodeInstance(an));
+                }
+            }
+        } else {
+            List<ArgumentNode> pairs = new ArrayList<>();
+            for(ArgumentNode an : GRAPH) {
+                if(an.getTargetRelation() != null) {
+                    pairs.add(an);
+                }
+            }
+            Instance[] results = new Instance[pairs.size()];
+            POOL.invoke(new GenerationTask(pairs, results, 0, pairs.size()));
+            for(Instance in : results) {
                 ins.add(in);
             }
         }
         return ins;
     }
     
-    private Instance generateInstace(String response, String hypothesis) {
-        return FILTER.createInstanceUsingFilters(response, hypothesis);
+    private Instance generateNodeInstance(ArgumentNode an) {
+        ArgumentRelation relation = an.getTargetRelation();
+        Instance in = generateInstace(CACHE.getAnalyzedText(an), 
+                CACHE.getAnalyzedText(relation.getTarget()));
+        in.setClassValue(relation.getArgumentRelationType().toString());
+        return in;
+    }
+    
+    private Instance generateInstace(AnalyzedText response, 
+            AnalyzedText hypothesis) {
+        if(FILTER instanceof AnalyzedFilterGroup) {
+            return ((AnalyzedFilterGroup) FILTER).createInstanceUsingFilters(
+                    response, hypothesis);
+        }
+        return FILTER.createInstanceUsingFilters(response.getText(), 
+                hypothesis.getText());
     }
 
 }
@@ -1,15 +1,30 @@
 package org.relationlearn.util;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.relationlearn.classifiers.GridSearchResult;
+import org.relationlearn.classifiers.SGDClassifier;
 import org.relationlearn.classifiers.SVMClassifier;
+import org.relationlearn.classifiers.SVMGridSearch;
 import org.relationlearn.filters.FilterGroup;
 import org.relationlearn.filters.SequentialFilterGroup;
+import org.relationlearn.model.ArgumentNode;
 import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.util.io.BinaryCorpusParser;
 import org.relationlearn.util.io.InputParser;
-import org.relationlearn.util.io.XMLFileParser;
+import org.relationlearn.util.io.ParallelCorpusParser;
 import weka.core.Instances;
 
 /**
@@ -18,62 +33,378 @@ import weka.core.Instances;
  * The call parameters are: &lttraining-file&gt &ltfilter-config-path&gt 
  * &ltoutput-path&gt
  * 
+ * The input can be a single NoDE file, a directory or a glob pattern, all
+ * the files found are parsed concurrently and merged by topic. It can also be
+ * a binary corpus file created with 
+ * {@link org.relationlearn.util.io.BinaryCorpusConverter}, which is loaded
+ * much faster.
+ * 
+ * When the system property {@value FeatureStore#CACHE_DIR_PROPERTY} is set,
+ * the Instances of each graph are stored in that directory and reused in
+ * later runs as long as the graph and its filter configuration don't change.
+ * 
+ * Topics are trained in parallel, by as many threads as available processors
+ * unless the system property {@value #PARALLELISM_PROPERTY} says otherwise.
+ * Topics with more argument pairs are started first, so the slowest ones
+ * don't end up running alone at the end. The model of each topic is written
+ * as soon as its training finishes, in the lean format of 
+ * {@link SVMClassifier#storeLeanModel(String)}, and its progress and timing
+ * are reported in the standard output.
+ * 
+ * When the system property {@value #GRID_PROPERTY} is set, the LibSVM 
+ * options of each topic are selected with a {@link SVMGridSearch} over the 
+ * given grid, for example {@code "-C=0.1,1,10 -G=0.01,0.1"}, using 
+ * {@value #FOLDS_PROPERTY} folds. The classifier options given as call 
+ * parameters are shared by all the grid points. The results of every grid 
+ * point are written next to the model, in a {@code .grid.tsv} file. 
+ * Topics with fewer argument pairs than folds use one fold for each pair,
+ * and topics with a single pair are trained with the given options only.
+ * 
+ * When the system property {@value #CLASSIFIER_PROPERTY} is {@code sgd}, 
+ * an {@link SGDClassifier} is used instead of LibSVM, and the classifier 
+ * options given as call parameters must be SGDClassifier options. The 
+ * models are trained from scratch unless the system property 
+ * {@value #UPDATE_PROPERTY} is {@code true}: then, if the output path 
+ * already holds an SGDClassifier model of a topic, it's updated with the 
+ * new argument pairs, so only the pairs annotated since the last run must 
+ * be given.
+ * 
  * @see weka.classifiers.functions.LibSVM
  * 
  */
 public class ModelGenerator {
     
-    private static InputParser parser;
-    private static FilterGroup filters;
-    private static InstanceGenerator generator;
-    private static SVMClassifier classifier;
+    /**
+     * Name of the system property that sets the amount of topics trained at
+     * the same time, by default one for each available processor.
+     */
+    public static final String PARALLELISM_PROPERTY = 
+            "relationlearn.training.parallelism";
+    
+    /**
+     * Name of the system property that sets the grid of LibSVM options 
+     * evaluated for each topic, as a list of {@code option=values} entries
+     * separated by spaces, with the values separated by commas.
+     */
+    public static final String GRID_PROPERTY = "relationlearn.grid";
     
-    private static File configFile;
+    /**
+     * Name of the system property that sets the amount of folds of the grid
+     * search cross-validation, by default {@value SVMGridSearch#DEFAULT_FOLDS}.
+     */
+    public static final String FOLDS_PROPERTY = "relationlearn.grid.folds";
     
-    private static Instances instances;
+    /**
+     * Name of the system property that selects the classifier trained for 
+     * each topic, either {@code svm}, the default, or {@code sgd}.
+     */
+    public static final String CLASSIFIER_PROPERTY = 
+            "relationlearn.classifier";
     
-    private static String inputFile;
-    private static String baseConfigPath;
-    private static String baseOutPath;
-    private static String[] svmOptions;
+    /**
+     * Name of the system property that, when {@code true}, makes the 
+     * existing SGDClassifier models be updated instead of trained from 
+     * scratch.
+     */
+    public static final String UPDATE_PROPERTY = "relationlearn.sgd.update";
+    
+    /*
+     * Outcome of the training of a single topic, either the amount of
+     * instances and the grid options used or the error that stopped it.
+     * Updated models were not trained from scratch.
+     */
+    private static class TrainingResult {
+        
+        private final String TOPIC;
+        private final int INSTANCES;
+        private final long MILLIS;
+        private final String[] OPTIONS;
+        private final boolean UPDATED;
+        private final Exception ERROR;
+        
+        public TrainingResult(String topic, int instances, long millis, 
+                String[] options, boolean updated, Exception error) {
+            this.TOPIC = topic;
+            this.INSTANCES = instances;
+            this.MILLIS = millis;
+            this.OPTIONS = options;
+            this.UPDATED = updated;
+            this.ERROR = error;
+        }
+    }
+    
+    /*
+     * Trains and stores the model of a single topic.
+     */
+    private static class TopicTrainer implements Callable<TrainingResult> {
+        
+        private final String TOPIC;
+        private final RelationDigraph GRAPH;
+        private final File CONFIG_FILE;
+        private final String OUTPUT_PATH;
+        private final String CACHE_PATH;
+        // shared by every task, Weka blanks the options it parses so 
+        // each classifier gets its own copy
+        private final String[] SVM_OPTIONS;
+        private final List<String[]> GRID;
+        private final int FOLDS;
+        private final ExecutorService GRID_EXECUTOR;
+        private final boolean SGD;
+        private final boolean UPDATE;
+        
+        private String[] bestOptions;
+        private boolean updated;
+        
+        public TopicTrainer(String topic, RelationDigraph graph, 
+                File configFile, String outputPath, String cachePath, 
+                String[] svmOptions, List<String[]> grid, int folds, 
+                ExecutorService gridExecutor, boolean sgd, boolean update) {
+            this.TOPIC = topic;
+            this.GRAPH = graph;
+            this.CONFIG_FILE = configFile;
+            this.OUTPUT_PATH = outputPath;
+            this.CACHE_PATH = cachePath;
+            this.SVM_OPTIONS = svmOptions;
+            this.GRID = grid;
+            this.FOLDS = folds;
+            this.GRID_EXECUTOR = gridExecutor;
+            this.SGD = sgd;
+            this.UPDATE = update;
+        }
+
+        @Override
+        public TrainingResult call() {
+            long start = System.nanoTime();
+            int instanceCount = 0;
+            Exception error = null;
+            try {
+                FilterGroup filters = 
+                        new SequentialFilterGroup(TOPIC, CONFIG_FILE);
+                filters.addClassAttribute(null);
+                FeatureStore store = null;
+                if(CACHE_PATH != null) {
+                    store = new FeatureStore(new File(CACHE_PATH), 
+                            CONFIG_FILE);
+                }
+                InstanceGenerator generator = 
+                        new InstanceGenerator(GRAPH, filters, store);
+                Instances instances = generator.getGraphInstances();
+                instanceCount = instances.numInstances();
+                String modelPath = OUTPUT_PATH + TOPIC + ".model";
+                if(SGD) {
+                    trainSGDClassifier(instances, new File(modelPath));
+                } else {
+                    SVMClassifier classifier;
+                    if(GRID == null) {
+                        classifier = new SVMClassifier();
+                        if(SVM_OPTIONS != null) {
+                            classifier.setOptions(SVM_OPTIONS.clone());
+                        }
+                        classifier.trainClassifier(instances);
+                    } else {
+                        classifier = trainBestClassifier(instances);
+                    }
+                    classifier.storeLeanModel(modelPath);
+                }
+            } catch (Exception ex) {
+                error = ex;
+            }
+            return new TrainingResult(TOPIC, instanceCount, 
+                    (System.nanoTime() - start) / 1000000, bestOptions, 
+                    updated, error);
+        }
+        
+        private void trainSGDClassifier(Instances instances, File modelFile) 
+                throws Exception {
+            SGDClassifier classifier;
+            if(UPDATE && modelFile.exists() 
+                    && SGDClassifier.isSGDModel(modelFile)) {
+                classifier = new SGDClassifier(modelFile);
+                if(SVM_OPTIONS != null) {
+                    classifier.setOptions(SVM_OPTIONS.clone());
+                }
+                classifier.update(instances);
+                updated = true;
+            } else {
+                classifier = new SGDClassifier();
+                if(SVM_OPTIONS != null) {
+                    classifier.setOptions(SVM_OPTIONS.clone());
+                }
+                classifier.trainClassifier(instances);
+            }
+            classifier.storeModel(modelFile.getPath());
+        }
+        
+        private SVMClassifier trainBestClassifier(Instances instances) 
+                throws Exception {
+            int folds = Math.min(FOLDS, instances.numInstances());
+            if(folds < 2) {
+                // too few pairs to cross-validate, base options only
+                SVMClassifier classifier = new SVMClassifier();
+                if(SVM_OPTIONS != null) {
+                    classifier.setOptions(SVM_OPTIONS.clone());
+                }
+                classifier.trainClassifier(instances);
+                return classifier;
+            }
+            SVMGridSearch search = new SVMGridSearch(instances, folds, 1L);
+            if(SVM_OPTIONS != null) {
+                search.setBaseOptions(SVM_OPTIONS);
+            }
+            for(String[] parameter : GRID) {
+                search.addParameter(parameter[0], 
+                        Arrays.copyOfRange(parameter, 1, parameter.length));
+            }
+            List<GridSearchResult> results = search.search(GRID_EXECUTOR);
+            SVMGridSearch.writeResults(results, 
+                    new File(OUTPUT_PATH + TOPIC + ".grid.tsv"));
+            GridSearchResult best = SVMGridSearch.getBestResult(results);
+            bestOptions = best.getOptions();
+            return search.trainClassifier(best);
+        }
+    }
     
     private ModelGenerator() {}
     
     public static void main(String args[]) throws Exception {
         if(args.length < 3) {
             System.err.println("Error in parameters, usage: "
-                    + "<input-file.xml> <filter-config-path> <output-path> [<classifier-options>]");
+                    + "<input-file.xml|input-dir|glob> <filter-config-path> <output-path> [<classifier-options>]");
         } else {
-            inputFile = args[0];
-            baseConfigPath = args[1];
-            baseOutPath = args[2];
+            String inputFile = args[0];
+            String baseConfigPath = args[1];
+            String baseOutPath = args[2];
+            String[] svmOptions = null;
             if(args.length > 3) {
                 svmOptions = Arrays.copyOfRange(args, 3, args.length);
             }
-            parser = new XMLFileParser();
+            String cachePath = System.getProperty(
+                    FeatureStore.CACHE_DIR_PROPERTY);
+            int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, 
+                    Runtime.getRuntime().availableProcessors());
+            if(parallelism < 1) {
+                throw new IllegalArgumentException(PARALLELISM_PROPERTY 
+                        + " must be greater than 0");
+            }
+            List<String[]> grid = null;
+            if(System.getProperty(GRID_PROPERTY) != null) {
+                grid = parseGrid(System.getProperty(GRID_PROPERTY));
+            }
+            int folds = Integer.getInteger(FOLDS_PROPERTY, 
+                    SVMGridSearch.DEFAULT_FOLDS);
+            String classifierType = System.getProperty(CLASSIFIER_PROPERTY, 
+                    "svm");
+            if(!"svm".equals(classifierType) 
+                    && !"sgd".equals(classifierType)) {
+                throw new IllegalArgumentException(CLASSIFIER_PROPERTY 
+                        + " must be svm or sgd");
+            }
+            boolean sgd = "sgd".equals(classifierType);
+            if(sgd && grid != null) {
+                throw new IllegalArgumentException(GRID_PROPERTY 
+                        + " can only be used with svm classifiers");
+            }
+            boolean update = Boolean.getBoolean(UPDATE_PROPERTY);
+            if(update && !sgd) {
+                throw new IllegalArgumentException(UPDATE_PROPERTY 
+                        + " can only be used with sgd classifiers");
+            }
+            InputParser parser;
+            if(BinaryCorpusParser.isBinaryCorpus(inputFile)) {
+                parser = new BinaryCorpusParser();
+            } else {
+                parser = new ParallelCorpusParser();
+            }
             Map<String, RelationDigraph> grahps = parser.parseInput(inputFile);
-            String gName;
-            for(Entry<String, RelationDigraph> graph : grahps.entrySet()) {
-                gName = graph.getKey();
-                configFile = new File(baseConfigPath + gName + ".xml");
-                if(configFile.exists()) {
-                    filters = new SequentialFilterGroup(gName, configFile);
-                    filters.addClassAttribute(null);
-                    generator = new InstanceGenerator(graph.getValue(), filters);
-                    instances = generator.getGraphInstances();
-                    classifier = new SVMClassifier();
-                    if(args.length > 3) {
-                        classifier.setOptions(svmOptions);
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            // grid points run in their own pool, since topic tasks wait 
+            // for them
+            ExecutorService gridExecutor = null;
+            if(grid != null) {
+                gridExecutor = Executors.newFixedThreadPool(parallelism);
+            }
+            CompletionService<TrainingResult> training = 
+                    new ExecutorCompletionService<>(executor);
+            int submitted = 0;
+            try {
+                for(Entry<String, RelationDigraph> graph : sortBySize(grahps)) {
+                    String gName = graph.getKey();
+                    File configFile = new File(baseConfigPath + gName + ".xml");
+                    if(configFile.exists()) {
+                        training.submit(new TopicTrainer(gName, 
+                                graph.getValue(), configFile, baseOutPath, 
+                                cachePath, svmOptions, grid, folds, 
+                                gridExecutor, sgd, update));
+                        submitted++;
+                    } else {
+                        System.err.println("Error could not find config file for: "
+                                + gName);
                     }
-                    classifier.trainClassifier(instances);
-                    classifier.storeModel(baseOutPath + gName + ".model");
-                } else {
-                    System.err.println("Error could not find config file for: "
-                            + gName);
                 }
-                
+                for(int done = 1; done <= submitted; done++) {
+                    TrainingResult result = training.take().get();
+                    if(result.ERROR == null) {
+                        System.out.println("[" + done + "/" + submitted 
+                                + (result.UPDATED ? "] Updated " : 
+                                "] Trained ") + result.TOPIC + " with " 
+                                + result.INSTANCES + " instances in " 
+                                + result.MILLIS + " ms" 
+                                + (result.OPTIONS != null ? ", best options: " 
+                                + Arrays.toString(result.OPTIONS) : ""));
+                    } else {
+                        System.err.println("[" + done + "/" + submitted 
+                                + "] Error training " + result.TOPIC + ": " 
+                                + result.ERROR);
+                    }
+                }
+            } finally {
+                executor.shutdown();
+                if(gridExecutor != null) {
+                    gridExecutor.shutdown();
+                }
+            }
+        }
+    }
+    
+    private static List<String[]> parseGrid(String grid) {
+        List<String[]> parameters = new ArrayList<>();
+        for(String entry : grid.trim().split("\\s+")) {
+            int separator = entry.indexOf('=');
+            if(separator < 1 || separator == entry.length() - 1) {
+                throw new IllegalArgumentException("Wrong grid entry, "
+                        + "expected option=values: " + entry);
+            }
+            String[] values = entry.substring(separator + 1).split(",");
+            String[] parameter = new String[values.length + 1];
+            parameter[0] = entry.substring(0, separator);
+            System.arraycopy(values, 0, parameter, 1, values.length);
+            parameters.add(parameter);
+        }
+        return parameters;
+    }
+    
+    private static List<Entry<String, RelationDigraph>> sortBySize(
+            Map<String, RelationDigraph> graphs) {
+        final Map<String, Integer> pairs = new HashMap<>();
+        for(Entry<String, RelationDigraph> graph : graphs.entrySet()) {
+            int count = 0;
+            for(ArgumentNode node : graph.getValue()) {
+                if(node.getTargetRelation() != null) {
+                    count++;
+                }
             }
+            pairs.put(graph.getKey(), count);
         }
+        List<Entry<String, RelationDigraph>> sorted = 
+                new ArrayList<>(graphs.entrySet());
+        Collections.sort(sorted, new Comparator<Entry<String, RelationDigraph>>() {
+            @Override
+            public int compare(Entry<String, RelationDigraph> e1, 
+                    Entry<String, RelationDigraph> e2) {
+                return pairs.get(e2.getKey()).compareTo(pairs.get(e1.getKey()));
+            }
+        });
+        return sorted;
     }
 
 }
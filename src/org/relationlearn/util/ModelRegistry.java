@@ -0,0 +1,367 @@
+package org.relationlearn.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Utility class that keeps the models of the most recently used topics in
+ * memory, loading each one the first time it's requested.
+ *
+ * <p>
+ * Models are loaded by a {@link Loader} when they're not in memory. If
+ * several threads request the same topic while it's being loaded, a single
+ * load is done and all of them receive its result, while requests for
+ * other topics go on. A failed load is not remembered, so the next request
+ * for the topic tries again.
+ * </p>
+ * <p>
+ * The size of each model, as reported by the Loader, is added up and when
+ * the total exceeds the capacity of the registry the least recently used
+ * models are evicted until it fits again. The model just loaded is never
+ * evicted, even if it's larger than the capacity by itself. Evicted models
+ * stay usable by the threads that already obtained them.
+ * </p>
+ * <p>
+ * The amount of requests served from memory (hits), the ones that had to
+ * wait for a load (misses), the amount of loads, their total time and the
+ * amount of evictions are recorded and can be checked at any time.
+ * </p>
+ *
+ * @param <V> the type of the models
+ *
+ * @see ClassificationServer
+ */
+public class ModelRegistry<V> {
+
+    /**
+     * Name of the system property that sets the capacity in bytes of the
+     * ModelRegistry used by {@link ClassificationServer}, unlimited by
+     * default.
+     */
+    public static final String CAPACITY_PROPERTY =
+            "relationlearn.models.capacity";
+
+    /**
+     * Interface used by a ModelRegistry to load the model of a topic.
+     *
+     * @param <V> the type of the models
+     */
+    public interface Loader<V> {
+
+        /**
+         * Loads the model of {@code topic}.
+         *
+         * @param topic the topic whose model is requested
+         * @return the loaded model, never null
+         * @throws Exception if the model can't be loaded
+         */
+        V load(String topic) throws Exception;
+
+        /**
+         * Returns the size of {@code model}, which is accounted against the
+         * capacity of the registry while the model is kept in memory.
+         *
+         * @param topic the topic of the model
+         * @param model the model loaded for {@code topic}
+         * @return the size of the model in bytes
+         */
+        long sizeOf(String topic, V model);
+    }
+
+    private static class Entry<V> {
+
+        private final V MODEL;
+        private final long SIZE;
+
+        public Entry(V model, long size) {
+            this.MODEL = model;
+            this.SIZE = size;
+        }
+    }
+
+    private final Loader<V> LOADER;
+    private final long CAPACITY;
+
+    // access ordered, guarded by itself
+    private final LinkedHashMap<String, Entry<V>> MODELS;
+    private final ConcurrentMap<String, FutureTask<Entry<V>>> LOADING;
+
+    private final AtomicLong HITS;
+    private final AtomicLong MISSES;
+    private final AtomicLong LOADS;
+    private final AtomicLong LOAD_FAILURES;
+    private final AtomicLong LOAD_TIME;
+    private final AtomicLong EVICTIONS;
+
+    private long size;
+
+    /**
+     * Constructs a new ModelRegistry that loads the models with
+     * {@code loader} and keeps at most {@code capacity} bytes of them in
+     * memory.
+     *
+     * @param loader the Loader of the models
+     * @param capacity the maximum size of the models kept in memory, in
+     * bytes
+     *
+     * @throws IllegalArgumentException if {@code capacity} is lower than 1
+     */
+    public ModelRegistry(Loader<V> loader, long capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be greater "
+                    + "than 0");
+        }
+        this.LOADER = loader;
+        this.CAPACITY = capacity;
+        this.MODELS = new LinkedHashMap<>(16, 0.75f, true);
+        this.LOADING = new ConcurrentHashMap<>();
+        this.HITS = new AtomicLong();
+        this.MISSES = new AtomicLong();
+        this.LOADS = new AtomicLong();
+        this.LOAD_FAILURES = new AtomicLong();
+        this.LOAD_TIME = new AtomicLong();
+        this.EVICTIONS = new AtomicLong();
+    }
+
+    /**
+     * Returns the model of {@code topic}, loading it if it's not in memory.
+     * This method can be called by several threads at the same time.
+     *
+     * @param topic the topic whose model is requested
+     * @return the model of the topic
+     * @throws Exception if the model can't be loaded, or if the thread is
+     * interrupted while waiting for it
+     */
+    public V get(final String topic) throws Exception {
+        Entry<V> entry;
+        synchronized(MODELS) {
+            entry = MODELS.get(topic);
+        }
+        if(entry != null) {
+            HITS.incrementAndGet();
+            return entry.MODEL;
+        }
+        MISSES.incrementAndGet();
+        FutureTask<Entry<V>> task = new FutureTask<>(
+                new Callable<Entry<V>>() {
+                    @Override
+                    public Entry<V> call() throws Exception {
+                        return loadModel(topic);
+                    }
+                });
+        FutureTask<Entry<V>> running = LOADING.putIfAbsent(topic, task);
+        if(running == null) {
+            running = task;
+            task.run();
+        }
+        try {
+            return running.get().MODEL;
+        } catch (ExecutionException eex) {
+            if(eex.getCause() instanceof Exception) {
+                throw (Exception) eex.getCause();
+            } else {
+                throw eex;
+            }
+        }
+    }
+
+    /**
+     * Removes the model of {@code topic} from memory, so the next request
+     * loads it again.
+     *
+     * @param topic the topic whose model is removed
+     * @return true if the model was in memory
+     */
+    public boolean invalidate(String topic) {
+        synchronized(MODELS) {
+            Entry<V> entry = MODELS.remove(topic);
+            if(entry != null) {
+                size -= entry.SIZE;
+            }
+            return entry != null;
+        }
+    }
+
+    /**
+     * Returns whether the model of {@code topic} is in memory or not,
+     * without changing its position in the eviction order.
+     *
+     * @param topic the topic to check
+     * @return true if the model of the topic is in memory
+     */
+    public boolean contains(String topic) {
+        synchronized(MODELS) {
+            return MODELS.containsKey(topic);
+        }
+    }
+
+    /**
+     * Returns the amount of models in memory.
+     *
+     * @return the number of models
+     */
+    public int getModelCount() {
+        synchronized(MODELS) {
+            return MODELS.size();
+        }
+    }
+
+    /**
+     * Returns the total size of the models in memory.
+     *
+     * @return the size of the models in bytes
+     */
+    public long getSize() {
+        synchronized(MODELS) {
+            return size;
+        }
+    }
+
+    /**
+     * Returns the capacity of this registry.
+     *
+     * @return the maximum size of the models kept in memory, in bytes
+     */
+    public long getCapacity() {
+        return CAPACITY;
+    }
+
+    /**
+     * Returns the amount of requests answered with a model already in
+     * memory.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return HITS.get();
+    }
+
+    /**
+     * Returns the amount of requests that didn't find their model in memory,
+     * including the ones that waited for a load started by another request.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return MISSES.get();
+    }
+
+    /**
+     * Returns the amount of loads done, successful or not.
+     *
+     * @return the number of loads
+     */
+    public long getLoadCount() {
+        return LOADS.get();
+    }
+
+    /**
+     * Returns the amount of loads that failed.
+     *
+     * @return the number of failed loads
+     */
+    public long getLoadFailureCount() {
+        return LOAD_FAILURES.get();
+    }
+
+    /**
+     * Returns the time spent in all the loads.
+     *
+     * @return the total load time in nanoseconds
+     */
+    public long getTotalLoadTime() {
+        return LOAD_TIME.get();
+    }
+
+    /**
+     * Returns the mean time spent in each load.
+     *
+     * @return the mean load time in nanoseconds, or 0 if no load was done
+     */
+    public long getMeanLoadTime() {
+        long loads = LOADS.get();
+        return loads == 0 ? 0 : LOAD_TIME.get() / loads;
+    }
+
+    /**
+     * Returns the amount of models evicted to stay within the capacity.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return EVICTIONS.get();
+    }
+
+    @Override
+    public String toString() {
+        return "models: " + getModelCount() + ", bytes: " + getSize() + "/"
+                + CAPACITY + ", hits: " + getHitCount() + ", misses: "
+                + getMissCount() + ", loads: " + getLoadCount()
+                + ", failed loads: " + getLoadFailureCount()
+                + ", mean load time: " + getMeanLoadTime() / 1000000
+                + " ms, evictions: " + getEvictionCount();
+    }
+
+    /*
+     * The loaded model is added before the task is removed from LOADING, and
+     * a request that missed it just before is answered with it here, so a
+     * model is never loaded twice in a row.
+     */
+    private Entry<V> loadModel(String topic) throws Exception {
+        synchronized(MODELS) {
+            Entry<V> loaded = MODELS.get(topic);
+            if(loaded != null) {
+                LOADING.remove(topic);
+                return loaded;
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            V model = LOADER.load(topic);
+            if(model == null) {
+                throw new IllegalStateException("No model loaded for: "
+                        + topic);
+            }
+            Entry<V> entry = new Entry<>(model,
+                    Math.max(0, LOADER.sizeOf(topic, model)));
+            synchronized(MODELS) {
+                Entry<V> previous = MODELS.put(topic, entry);
+                if(previous != null) {
+                    size -= previous.SIZE;
+                }
+                size += entry.SIZE;
+                evict();
+            }
+            return entry;
+        } catch (Exception ex) {
+            LOAD_FAILURES.incrementAndGet();
+            throw ex;
+        } finally {
+            LOADS.incrementAndGet();
+            LOAD_TIME.addAndGet(System.nanoTime() - start);
+            LOADING.remove(topic);
+        }
+    }
+
+    /*
+     * Must be called holding the lock of MODELS, the most recently used
+     * model is the last one of the iteration order.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Entry<V>>> eldest =
+                MODELS.entrySet().iterator();
+        while(size > CAPACITY && MODELS.size() > 1) {
+            size -= eldest.next().getValue().SIZE;
+            eldest.remove();
+            EVICTIONS.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.relationlearn.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.RelationDigraph;
+
+/**
+ * Utility class that stores the AnalyzedText of every ArgumentNode of a
+ * RelationDigraph, using the node identifier as key, so the text of a node
+ * is analyzed only once no matter how many argument pairs it takes part in.
+ *
+ * <p>
+ * Since an AnalyzedText also stores the partial results filters compute
+ * from a single text, a node replied by many others is only processed once
+ * by those filters as well. A NodeAnalysisCache must only be used with the
+ * nodes of the RelationDigraph it was created for, since node identifiers
+ * are only unique inside a graph. It can be safely used by several threads
+ * at the same time.
+ * </p>
+ *
+ * @see AnalyzedText
+ * @see RelationDigraph
+ */
+public class NodeAnalysisCache {
+
+    private final RelationDigraph GRAPH;
+    private final ConcurrentMap<Integer, AnalyzedText> ANALYSIS_TABLE;
+
+    /**
+     * Constructs a new empty NodeAnalysisCache for the nodes of
+     * {@code graph}.
+     *
+     * @param graph the RelationDigraph whose nodes will be cached
+     */
+    public NodeAnalysisCache(RelationDigraph graph) {
+        this.GRAPH = graph;
+        this.ANALYSIS_TABLE = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the RelationDigraph this cache belongs to.
+     *
+     * @return the RelationDigraph whose nodes are cached
+     */
+    public RelationDigraph getGraph() {
+        return GRAPH;
+    }
+
+    /**
+     * Returns the AnalyzedText of the text of {@code node}, analyzing it
+     * only if it isn't already stored in the cache.
+     *
+     * @param node the ArgumentNode whose text is requested
+     * @return the AnalyzedText of the node text
+     */
+    public AnalyzedText getAnalyzedText(ArgumentNode node) {
+        AnalyzedText text = ANALYSIS_TABLE.get(node.getNodeId());
+        if(text == null) {
+            AnalyzedText created = new AnalyzedText(
+                    node.getArgumentNodeText());
+            text = ANALYSIS_TABLE.putIfAbsent(node.getNodeId(), created);
+            if(text == null) {
+                text = created;
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Returns the amount of nodes currently stored in the cache.
+     *
+     * @return the number of analyzed nodes
+     */
+    public int size() {
+        return ANALYSIS_TABLE.size();
+    }
+
+    /**
+     * Removes all the analyzed nodes stored in this cache.
+     */
+    public void clear() {
+        ANALYSIS_TABLE.clear();
+    }
+
+}
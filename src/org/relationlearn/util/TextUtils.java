@@ -2,6 +2,10 @@ package org.relationlearn.util;
 
 import com.aliasi.tokenizer.RegExTokenizerFactory;
 import com.aliasi.tokenizer.TokenizerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -39,6 +43,57 @@ public class TextUtils {
         return getTokensFromTextUsingFactory(text, TOKENIZER);
     }
     
+    /**
+     * Splits a unique String containing a text into words, using the Java
+     * regex {@code \w+}, and returns the identifiers {@code dictionary}
+     * assigns to each one of them.
+     * 
+     * <p>
+     * The words are looked up as they are found, so no intermediate array
+     * of Strings is built.
+     * </p>
+     * 
+     * @param text the original text to split
+     * @param dictionary the TokenDictionary used to assign the identifiers
+     * @return the identifiers of the words of the text, in the order they
+     * appear in it
+     * 
+     * @see TokenDictionary
+     */
+    public static int[] getTokenIdsFromText(String text, 
+            TokenDictionary dictionary) {
+        int[] ids = new int[16];
+        int count = 0;
+        Matcher matcher = WORDS_PATTERN.matcher(text);
+        while(matcher.find()) {
+            if(count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = dictionary.getId(matcher.group());
+        }
+        return Arrays.copyOf(ids, count);
+    }
+    
+    /**
+     * Returns the identifiers {@code dictionary} assigns to each one of the
+     * tokens found in {@code tokens}.
+     * 
+     * @param tokens the tokens to convert
+     * @param dictionary the TokenDictionary used to assign the identifiers
+     * @return an array with the identifier of each token in the same 
+     * position as the token
+     * 
+     * @see TokenDictionary
+     */
+    public static int[] getTokenIds(String[] tokens, 
+            TokenDictionary dictionary) {
+        int[] ids = new int[tokens.length];
+        for(int i = 0; i < tokens.length; i++) {
+            ids[i] = dictionary.getId(tokens[i]);
+        }
+        return ids;
+    }
+    
     /**
      * Splits a unique String into tokens using the Pattern provided by 
      * {@code p}.
@@ -50,8 +105,88 @@ public class TextUtils {
      * @see Pattern
      */
     public static String[] getTokensFromTextUsingRegex(String text, Pattern p) {
-        TokenizerFactory tf = new RegExTokenizerFactory(p);
-        return getTokensFromTextUsingFactory(text, tf);
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = p.matcher(text);
+        while(matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens.toArray(new String[tokens.size()]);
+    }
+    
+    /**
+     * Counts the amount of tokens the Pattern {@code p} finds in 
+     * {@code text}, without building the tokens.
+     * 
+     * @param text the text to scan
+     * @param p the precompiled Pattern that defines a token
+     * @return the number of tokens found in the text
+     * 
+     * @see #getTokensFromTextUsingRegex(String, Pattern)
+     */
+    public static int countTokensUsingRegex(CharSequence text, Pattern p) {
+        int count = 0;
+        Matcher matcher = p.matcher(text);
+        while(matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * Counts the amount of times the character {@code c} appears in 
+     * {@code text}.
+     * 
+     * @param text the text to scan
+     * @param c the character to count
+     * @return the number of occurrences of {@code c}
+     */
+    public static int countCharacters(CharSequence text, char c) {
+        int count = 0;
+        for(int i = 0; i < text.length(); i++) {
+            if(text.charAt(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Counts the amount of characters of {@code text} that belong to any of
+     * the classes of {@code set}.
+     * 
+     * @param text the text to scan
+     * @param set the classes of characters to count
+     * @return the number of characters that belong to any class
+     */
+    public static int countCharacters(CharSequence text, CharacterSet set) {
+        int count = 0;
+        for(int i = 0; i < text.length(); i++) {
+            if(set.getClassIndex(text.charAt(i)) >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Counts, with a single pass over {@code text}, the amount of characters
+     * of each one of the classes of {@code set} and adds them to the
+     * position of {@code counts} given by the class index.
+     * 
+     * @param text the text to scan
+     * @param set the classes of characters to count
+     * @param counts the array where the counts will be added, it must have
+     * at least one position for each class of {@code set}
+     */
+    public static void countCharacters(CharSequence text, CharacterSet set,
+            int[] counts) {
+        int classIndex;
+        for(int i = 0; i < text.length(); i++) {
+            classIndex = set.getClassIndex(text.charAt(i));
+            if(classIndex >= 0) {
+                counts[classIndex]++;
+            }
+        }
     }
     
     /**
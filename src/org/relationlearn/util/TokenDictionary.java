@@ -0,0 +1,236 @@
+package org.relationlearn.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Utility class that maps every token it is given to a dense integer
+ * identifier, so texts can be handled as {@code int[]} arrays and compared
+ * without any String comparison.
+ *
+ * <p>
+ * Identifiers are assigned in order starting from 0 the first time a token
+ * is seen and never change afterwards. For each token the identifier of its
+ * lower case form, using the English locale rules, is also stored, so the
+ * lower case conversion is done once per token of the vocabulary instead of
+ * once per occurrence. A TokenDictionary can be safely used by several
+ * threads at the same time, looking up an already known token doesn't
+ * require any locking.
+ * </p>
+ * <p>
+ * A dictionary can be limited to a maximum amount of tokens. Once it is
+ * full, {@link #getId(String)} returns {@link #UNKNOWN_ID} for the tokens
+ * it doesn't hold yet, and the users of the identifiers must compare those
+ * tokens as Strings. Tokens that must always have an identifier, such as
+ * the words of a filter lexicon, are added with {@link #register(String)},
+ * which ignores the limit.
+ * </p>
+ * <p>
+ * All the texts analyzed by {@link AnalyzedText} use the dictionary returned
+ * by {@link #getSharedDictionary()}, so token identifiers can be compared
+ * between texts and filters. The shared dictionary is limited to the
+ * amount of tokens given by the system property 
+ * {@value #CAPACITY_PROPERTY}, by default {@value #DEFAULT_SHARED_CAPACITY},
+ * so a long running process, like the ClassificationServer, doesn't keep 
+ * every token it has ever seen.
+ * </p>
+ *
+ * @see TextUtils#getTokenIdsFromText(String, TokenDictionary)
+ */
+public class TokenDictionary {
+
+    /**
+     * Identifier returned for the tokens a full dictionary doesn't hold.
+     */
+    public static final int UNKNOWN_ID = -1;
+
+    /**
+     * Name of the system property that sets the maximum amount of tokens
+     * of the shared dictionary.
+     */
+    public static final String CAPACITY_PROPERTY = 
+            "relationlearn.dictionary.capacity";
+
+    /**
+     * Default maximum amount of tokens of the shared dictionary.
+     */
+    public static final int DEFAULT_SHARED_CAPACITY = 1 << 18;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final TokenDictionary SHARED_DICTIONARY =
+            new TokenDictionary(Integer.getInteger(CAPACITY_PROPERTY, 
+                    DEFAULT_SHARED_CAPACITY));
+
+    private final ConcurrentMap<String, Integer> IDS;
+    private final int CAPACITY;
+
+    private volatile String[] tokens;
+    private volatile int[] lowerCaseIds;
+    private volatile int size;
+
+    /**
+     * Constructs a new empty TokenDictionary without a limit of tokens.
+     */
+    public TokenDictionary() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a new empty TokenDictionary that holds at most
+     * {@code capacity} tokens, apart from the ones added with 
+     * {@link #register(String)}.
+     *
+     * @param capacity the maximum amount of tokens of the dictionary
+     *
+     * @throws IllegalArgumentException if {@code capacity} is lower than 1
+     */
+    public TokenDictionary(int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be "
+                    + "greater than 0");
+        }
+        this.CAPACITY = capacity;
+        this.IDS = new ConcurrentHashMap<>(INITIAL_CAPACITY);
+        this.tokens = new String[INITIAL_CAPACITY];
+        this.lowerCaseIds = new int[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the TokenDictionary shared by all the AnalyzedText objects and
+     * the filters that work with token identifiers.
+     *
+     * @return the shared TokenDictionary
+     */
+    public static TokenDictionary getSharedDictionary() {
+        return SHARED_DICTIONARY;
+    }
+
+    /**
+     * Returns the identifier of {@code token}, assigning it a new one if
+     * the token isn't in the dictionary yet and the dictionary isn't full.
+     *
+     * @param token the token whose identifier is requested
+     * @return the identifier of {@code token}, or {@link #UNKNOWN_ID} if 
+     * the dictionary is full and doesn't hold it
+     */
+    public int getId(String token) {
+        Integer id = IDS.get(token);
+        if(id == null) {
+            // a full dictionary answers without taking the lock
+            if(size >= CAPACITY) {
+                return UNKNOWN_ID;
+            }
+            return addToken(token, false);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the identifier of {@code token}, assigning it a new one if
+     * the token isn't in the dictionary yet, even if the dictionary is 
+     * full.
+     *
+     * @param token the token whose identifier is requested
+     * @return the identifier of {@code token}
+     */
+    public int register(String token) {
+        Integer id = IDS.get(token);
+        if(id == null) {
+            return addToken(token, true);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the identifier of {@code token} without adding it to the
+     * dictionary.
+     *
+     * @param token the token whose identifier is requested
+     * @return the identifier of {@code token} or -1 if it isn't in the
+     * dictionary
+     */
+    public int lookup(String token) {
+        Integer id = IDS.get(token);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the token identified by {@code id}.
+     *
+     * @param id an identifier returned by this dictionary
+     * @return the token with the given identifier
+     *
+     * @throws IllegalArgumentException if {@code id} hasn't been assigned
+     */
+    public String getToken(int id) {
+        checkId(id);
+        return tokens[id];
+    }
+
+    /**
+     * Returns the identifier of the lower case form of the token identified
+     * by {@code id}.
+     *
+     * @param id an identifier returned by this dictionary
+     * @return the identifier of the lower case token
+     *
+     * @throws IllegalArgumentException if {@code id} hasn't been assigned
+     */
+    public int getLowerCaseId(int id) {
+        checkId(id);
+        return lowerCaseIds[id];
+    }
+
+    /**
+     * Returns the amount of tokens currently stored in the dictionary, all
+     * the identifiers assigned are lower than this value.
+     *
+     * @return the number of tokens of the dictionary
+     */
+    public int size() {
+        return size;
+    }
+
+    private synchronized int addToken(String token, boolean force) {
+        Integer id = IDS.get(token);
+        if(id != null) {
+            return id;
+        }
+        String lowerCase = token.toLowerCase(Locale.ENGLISH);
+        // room is left for the lower case token too
+        if(!force && size + (lowerCase.equals(token) ? 1 : 2) > CAPACITY) {
+            return UNKNOWN_ID;
+        }
+        int newId = size;
+        ensureCapacity(newId + 1);
+        tokens[newId] = token;
+        size = newId + 1;
+        int lowerCaseId = newId;
+        if(!lowerCase.equals(token)) {
+            // may add the lower case token, resizing the arrays
+            lowerCaseId = addToken(lowerCase, true);
+        }
+        lowerCaseIds[newId] = lowerCaseId;
+        IDS.put(token, newId);
+        return newId;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(capacity > tokens.length) {
+            int newLength = Math.max(capacity, tokens.length * 2);
+            lowerCaseIds = Arrays.copyOf(lowerCaseIds, newLength);
+            tokens = Arrays.copyOf(tokens, newLength);
+        }
+    }
+
+    private void checkId(int id) {
+        if(id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown token id: " + id);
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package org.relationlearn.util.io;
+
+import java.util.Map;
+import org.relationlearn.model.RelationDigraph;
+
+/**
+ * Utility class used to convert a corpus in the 
+ * <a href="http://www-sop.inria.fr/NoDE/NoDE-xml.html">NoDE</a> format into
+ * a binary corpus file that can be loaded with a {@link BinaryCorpusParser}.
+ * 
+ * The call parameters are: &lt;input-file.xml|input-dir|glob&gt; 
+ * &lt;output-file&gt;
+ * 
+ * @see ParallelCorpusParser
+ * @see BinaryCorpusGenerator
+ */
+public class BinaryCorpusConverter {
+    
+    private BinaryCorpusConverter() {}
+    
+    public static void main(String args[]) {
+        if(args.length < 2) {
+            System.err.println("Error in parameters, usage: "
+                    + "<input-file.xml|input-dir|glob> <output-file>");
+        } else {
+            Map<String, RelationDigraph> graphs = 
+                    new ParallelCorpusParser().parseInput(args[0]);
+            new BinaryCorpusGenerator().generateOutput(graphs, args[1]);
+        }
+    }
+
+}
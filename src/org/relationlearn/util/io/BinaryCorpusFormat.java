@@ -0,0 +1,66 @@
+package org.relationlearn.util.io;
+
+/**
+ * Constants that describe the layout of the binary corpus files written by
+ * {@link BinaryCorpusGenerator} and read by {@link BinaryCorpusParser}.
+ * 
+ * <p>
+ * A file is made of a header followed by four flat sections, all numbers 
+ * are written in big-endian order:
+ * </p>
+ * <ul>
+ * <li>Header: magic number, format version, and the amount of topics, 
+ * nodes and relations, as {@code int} values, followed by the size in 
+ * bytes of the text section as a {@code long}.</li>
+ * <li>Topics: for each topic the offset and length of its name in the text
+ * section, the index of its first node, its node count, the index of its
+ * first relation and its relation count.</li>
+ * <li>Nodes: for each node its id, weight, and the offset and length of its
+ * UTF-8 text in the text section, a length of -1 means a null text.</li>
+ * <li>Relations: for each relation its id, the indexes of its argumentator
+ * and target nodes in the node section and the ordinal of its 
+ * RelationType.</li>
+ * <li>Texts: the UTF-8 bytes of every topic name and node text.</li>
+ * </ul>
+ */
+final class BinaryCorpusFormat {
+    
+    static final int MAGIC = 0x524C4243; // "RLBC"
+    static final int VERSION = 1;
+    
+    static final int HEADER_SIZE = 5 * 4 + 8;
+    static final int TOPIC_SIZE = 6 * 4;
+    static final int NODE_SIZE = 4 * 4;
+    static final int RELATION_SIZE = 4 * 4;
+    
+    static final int NULL_TEXT = -1;
+    
+    private BinaryCorpusFormat() {}
+    
+    /**
+     * Returns the length in bytes of {@code text} encoded in UTF-8 the way
+     * {@link String#getBytes(java.nio.charset.Charset)} does it, where 
+     * unpaired surrogates are replaced by a single byte.
+     */
+    static int utf8Length(String text) {
+        int length = 0;
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if(c < 0x80) {
+                length += 1;
+            } else if(c < 0x800) {
+                length += 2;
+            } else if(Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if(Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,173 @@
+package org.relationlearn.util.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.ArgumentRelation;
+import org.relationlearn.model.RelationDigraph;
+
+/**
+ * OutputGenerator implementation which writes the RelationDigraph objects
+ * in a compact binary format, meant to be loaded quickly with a
+ * {@link BinaryCorpusParser} instead of parsing XML again on every run.
+ * 
+ * <p>
+ * Topics are written sorted by name and the nodes of each topic in the 
+ * order the RelationDigraph iterator returns them. Relations whose target 
+ * is not part of the same graph are not written. The text section of a file
+ * can't be bigger than 2GB.
+ * </p>
+ * 
+ * @see BinaryCorpusParser
+ * @see OutputGenerator
+ */
+public class BinaryCorpusGenerator implements OutputGenerator {
+    
+    private static class TopicData {
+        
+        public final String NAME;
+        public final List<ArgumentNode> NODES;
+        public final List<ArgumentRelation> RELATIONS;
+        // index of each node of the topic in the whole corpus
+        public final Map<ArgumentNode, Integer> INDEXES;
+        
+        public int firstNode;
+        public int firstRelation;
+        
+        public TopicData(String name) {
+            this.NAME = name;
+            this.NODES = new ArrayList<>();
+            this.RELATIONS = new ArrayList<>();
+            this.INDEXES = new IdentityHashMap<>();
+        }
+    }
+    
+    /**
+     * Writes every RelationDigraph of {@code table} in the file 
+     * {@code path} using the binary corpus format.
+     * 
+     * @param table the Map containing the data to be used in the
+     * output generation
+     * @param path the path were the output data will be written 
+     * 
+     * @throws IllegalArgumentException if the file can't be written or the
+     * texts are too big for the format
+     */
+    @Override
+    public void generateOutput(Map<String, RelationDigraph> table, 
+            String path) {
+        List<TopicData> topics = new ArrayList<>();
+        int nodeCount = 0, relationCount = 0;
+        for(Map.Entry<String, RelationDigraph> entry : 
+                new TreeMap<>(table).entrySet()) {
+            TopicData topic = new TopicData(entry.getKey());
+            topic.firstNode = nodeCount;
+            for(ArgumentNode node : entry.getValue()) {
+                topic.NODES.add(node);
+                topic.INDEXES.put(node, nodeCount++);
+            }
+            topics.add(topic);
+        }
+        for(TopicData topic : topics) {
+            topic.firstRelation = relationCount;
+            for(ArgumentNode node : topic.NODES) {
+                ArgumentRelation relation = node.getTargetRelation();
+                if(relation != null 
+                        && topic.INDEXES.containsKey(relation.getTarget())) {
+                    topic.RELATIONS.add(relation);
+                    relationCount++;
+                }
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(path), 
+                        1 << 16))) {
+            writeCorpus(out, topics, nodeCount, relationCount);
+        } catch (IOException ioex) {
+            throw new IllegalArgumentException("Error: " + ioex.getMessage());
+        }
+    }
+    
+    private void writeCorpus(DataOutputStream out, List<TopicData> topics,
+            int nodeCount, int relationCount) throws IOException {
+        long textSize = 0;
+        for(TopicData topic : topics) {
+            textSize += BinaryCorpusFormat.utf8Length(topic.NAME);
+            for(ArgumentNode node : topic.NODES) {
+                String text = node.getArgumentNodeText();
+                if(text != null) {
+                    textSize += BinaryCorpusFormat.utf8Length(text);
+                }
+            }
+        }
+        if(textSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Texts are too big for the "
+                    + "binary corpus format: " + textSize + " bytes");
+        }
+        // header
+        out.writeInt(BinaryCorpusFormat.MAGIC);
+        out.writeInt(BinaryCorpusFormat.VERSION);
+        out.writeInt(topics.size());
+        out.writeInt(nodeCount);
+        out.writeInt(relationCount);
+        out.writeLong(textSize);
+        // topics
+        int textOffset = 0;
+        for(TopicData topic : topics) {
+            int nameLength = BinaryCorpusFormat.utf8Length(topic.NAME);
+            out.writeInt(textOffset);
+            out.writeInt(nameLength);
+            out.writeInt(topic.firstNode);
+            out.writeInt(topic.NODES.size());
+            out.writeInt(topic.firstRelation);
+            out.writeInt(topic.RELATIONS.size());
+            textOffset += nameLength;
+        }
+        // nodes
+        for(TopicData topic : topics) {
+            for(ArgumentNode node : topic.NODES) {
+                String text = node.getArgumentNodeText();
+                out.writeInt(node.getNodeId());
+                out.writeInt(node.getNodeWeight());
+                out.writeInt(textOffset);
+                if(text == null) {
+                    out.writeInt(BinaryCorpusFormat.NULL_TEXT);
+                } else {
+                    int textLength = BinaryCorpusFormat.utf8Length(text);
+                    out.writeInt(textLength);
+                    textOffset += textLength;
+                }
+            }
+        }
+        // relations
+        for(TopicData topic : topics) {
+            for(ArgumentRelation relation : topic.RELATIONS) {
+                out.writeInt(relation.getArgumentRelationId());
+                out.writeInt(topic.INDEXES.get(relation.getArgumentator()));
+                out.writeInt(topic.INDEXES.get(relation.getTarget()));
+                out.writeInt(relation.getArgumentRelationType().ordinal());
+            }
+        }
+        // texts
+        for(TopicData topic : topics) {
+            out.write(topic.NAME.getBytes(StandardCharsets.UTF_8));
+        }
+        for(TopicData topic : topics) {
+            for(ArgumentNode node : topic.NODES) {
+                String text = node.getArgumentNodeText();
+                if(text != null) {
+                    out.write(text.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
+}
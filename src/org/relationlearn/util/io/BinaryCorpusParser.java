@@ -0,0 +1,237 @@
+package org.relationlearn.util.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.relationlearn.exception.AlreadyExistingNodeException;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.ArgumentRelation;
+import org.relationlearn.model.DigraphImpl;
+import org.relationlearn.model.NodeImpl;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.model.RelationImpl;
+import org.relationlearn.util.RelationType;
+
+/**
+ * InputParser implementation that loads the binary corpus files written by
+ * {@link BinaryCorpusGenerator}, reading them through a memory-mapped 
+ * FileChannel.
+ * 
+ * <p>
+ * Only the fixed size sections of the file are read while loading, the 
+ * text of each node stays in the mapped file and is decoded the first time
+ * it is requested, so loading a corpus takes a time proportional to its
+ * number of nodes and not to the size of its texts. The mapped file is
+ * released once none of the loaded nodes is referenced.
+ * </p>
+ * 
+ * @see BinaryCorpusGenerator
+ * @see InputParser
+ */
+public class BinaryCorpusParser implements InputParser {
+    
+    private static class MappedTextNode extends NodeImpl {
+        
+        private final ByteBuffer TEXTS;
+        private final int OFFSET;
+        private final int LENGTH;
+        
+        private volatile String text;
+        
+        public MappedTextNode(int nID, int nW, ByteBuffer texts, int offset,
+                int length) {
+            super(nID, nW, null);
+            this.TEXTS = texts;
+            this.OFFSET = offset;
+            this.LENGTH = length;
+        }
+        
+        @Override
+        public String getArgumentNodeText() {
+            String result = text;
+            if(result == null && LENGTH != BinaryCorpusFormat.NULL_TEXT) {
+                result = decodeText(TEXTS, OFFSET, LENGTH);
+                text = result;
+            }
+            return result;
+        }
+        
+    }
+    
+    /**
+     * Checks if the file found at {@code uri} is a binary corpus file, by
+     * looking at its first bytes.
+     * 
+     * @param uri the path of the file to check
+     * @return true if the file exists and starts like a binary corpus file,
+     * false otherwise
+     */
+    public static boolean isBinaryCorpus(String uri) {
+        File input = new File(uri);
+        if(!input.isFile() || !input.canRead()) {
+            return false;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(input, "r")) {
+            return file.length() >= BinaryCorpusFormat.HEADER_SIZE 
+                    && file.readInt() == BinaryCorpusFormat.MAGIC;
+        } catch (IOException ioex) {
+            return false;
+        }
+    }
+    
+    /**
+     * Loads the binary corpus file found at {@code uri} and returns a Map 
+     * containing all the RelationDigraph objects stored in it.
+     * 
+     * @param uri the path of the binary corpus file to load
+     * @return a Map with all RelationDigraph objects stored in the file
+     * 
+     * @throws IllegalArgumentException if the path doesn't correspond to a 
+     * valid binary corpus file, or if the file is truncated or corrupted.
+     */
+    @Override
+    public Map<String, RelationDigraph> parseInput(String uri) {
+        File input = new File(uri);
+        if(input.canRead()) {
+            try (RandomAccessFile file = new RandomAccessFile(input, "r"); 
+                    FileChannel channel = file.getChannel()) {
+                if(channel.size() > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("File is too big for "
+                            + "the binary corpus format");
+                }
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                        0, channel.size());
+                return readCorpus(buffer);
+            } catch (IOException ioex) {
+                throw new IllegalArgumentException("Error reading file: " 
+                        + ioex.getMessage());
+            }
+        } else {
+            throw new IllegalArgumentException("URI doens't "
+                    + "correspond to a valid file path");
+        }
+    }
+    
+    private Map<String, RelationDigraph> readCorpus(ByteBuffer buffer) {
+        if(buffer.limit() < BinaryCorpusFormat.HEADER_SIZE
+                || buffer.getInt(0) != BinaryCorpusFormat.MAGIC) {
+            throw new IllegalArgumentException("File is not a binary corpus");
+        }
+        if(buffer.getInt(4) != BinaryCorpusFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported binary corpus "
+                    + "version: " + buffer.getInt(4));
+        }
+        int topicCount = buffer.getInt(8);
+        int nodeCount = buffer.getInt(12);
+        int relationCount = buffer.getInt(16);
+        long textSize = buffer.getLong(20);
+        if(topicCount < 0 || nodeCount < 0 || relationCount < 0 
+                || textSize < 0) {
+            throw new IllegalArgumentException("Corrupted binary corpus, "
+                    + "negative section size");
+        }
+        // computed as long values so a corrupted count can't overflow
+        long topicStart = BinaryCorpusFormat.HEADER_SIZE;
+        long nodeStart = topicStart + 
+                (long) topicCount * BinaryCorpusFormat.TOPIC_SIZE;
+        long relationStart = nodeStart + 
+                (long) nodeCount * BinaryCorpusFormat.NODE_SIZE;
+        long textStart = relationStart + 
+                (long) relationCount * BinaryCorpusFormat.RELATION_SIZE;
+        if(textStart + textSize != buffer.limit()) {
+            throw new IllegalArgumentException("Corrupted binary corpus, "
+                    + "the file size doesn't match its header");
+        }
+        buffer.position((int) textStart);
+        ByteBuffer texts = buffer.slice();
+        ArgumentNode[] nodes = new ArgumentNode[nodeCount];
+        int position = (int) nodeStart;
+        for(int i = 0; i < nodeCount; i++) {
+            int offset = buffer.getInt(position + 8);
+            int length = buffer.getInt(position + 12);
+            if(length != BinaryCorpusFormat.NULL_TEXT) {
+                checkText(texts, offset, length, "node " + i);
+            }
+            nodes[i] = new MappedTextNode(buffer.getInt(position), 
+                    buffer.getInt(position + 4), texts, offset, length);
+            position += BinaryCorpusFormat.NODE_SIZE;
+        }
+        RelationType[] types = RelationType.values();
+        position = (int) relationStart;
+        for(int i = 0; i < relationCount; i++) {
+            int argumentator = buffer.getInt(position + 4);
+            int target = buffer.getInt(position + 8);
+            int type = buffer.getInt(position + 12);
+            checkIndex(argumentator, nodeCount, "argumentator of relation " 
+                    + i);
+            checkIndex(target, nodeCount, "target of relation " + i);
+            checkIndex(type, types.length, "type of relation " + i);
+            ArgumentRelation relation = new RelationImpl(
+                    buffer.getInt(position), nodes[argumentator], 
+                    nodes[target], types[type]);
+            nodes[argumentator].addTargetRelation(relation);
+            nodes[target].addReplyRelation(relation);
+            position += BinaryCorpusFormat.RELATION_SIZE;
+        }
+        Map<String, RelationDigraph> graphs = new HashMap<>(topicCount * 2);
+        position = (int) topicStart;
+        for(int i = 0; i < topicCount; i++) {
+            int nameOffset = buffer.getInt(position);
+            int nameLength = buffer.getInt(position + 4);
+            checkText(texts, nameOffset, nameLength, "topic " + i);
+            String name = decodeText(texts, nameOffset, nameLength);
+            int firstNode = buffer.getInt(position + 8);
+            int topicNodes = buffer.getInt(position + 12);
+            if(firstNode < 0 || topicNodes < 0 
+                    || (long) firstNode + topicNodes > nodeCount) {
+                throw new IllegalArgumentException("Corrupted binary corpus, "
+                        + "nodes of topic " + name + " out of range");
+            }
+            // only the traversed nodes are written, so a topic with several
+            // roots comes from a graph that traversed all its trees
+            RelationDigraph graph = new DigraphImpl(true);
+            try {
+                for(int j = firstNode; j < firstNode + topicNodes; j++) {
+                    graph.addArgumentNode(nodes[j]);
+                }
+            } catch (AlreadyExistingNodeException aenex) {
+                throw new IllegalArgumentException("Corrupted binary corpus, "
+                        + "repeated node id in topic " + name);
+            }
+            graphs.put(name, graph);
+            position += BinaryCorpusFormat.TOPIC_SIZE;
+        }
+        return graphs;
+    }
+    
+    private static void checkIndex(int index, int count, String what) {
+        if(index < 0 || index >= count) {
+            throw new IllegalArgumentException("Corrupted binary corpus, "
+                    + what + " out of range: " + index);
+        }
+    }
+    
+    private static void checkText(ByteBuffer texts, int offset, int length,
+            String what) {
+        if(offset < 0 || length < 0 
+                || (long) offset + length > texts.limit()) {
+            throw new IllegalArgumentException("Corrupted binary corpus, "
+                    + "text of " + what + " out of range");
+        }
+    }
+    
+    private static String decodeText(ByteBuffer texts, int offset, 
+            int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = texts.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.relationlearn.util.io;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class that describes a conflict found while merging the RelationDigraph
+ * objects parsed from several files: a topic of a file that contains nodes
+ * whose ids are already used by the same topic of a previously merged file.
+ * 
+ * @see ParallelCorpusParser
+ */
+public class NodeConflict {
+    
+    private final File FILE;
+    private final String TOPIC;
+    private final List<Integer> NODE_IDS;
+    
+    /**
+     * Constructs a new NodeConflict.
+     * 
+     * @param file the file whose topic couldn't be merged
+     * @param topic the topic that couldn't be merged
+     * @param nodeIds the ids of the nodes already used by the topic
+     */
+    public NodeConflict(File file, String topic, List<Integer> nodeIds) {
+        this.FILE = file;
+        this.TOPIC = topic;
+        this.NODE_IDS = Collections.unmodifiableList(nodeIds);
+    }
+    
+    /**
+     * Returns the file whose topic couldn't be merged.
+     * 
+     * @return the file that caused the conflict
+     */
+    public File getFile() {
+        return FILE;
+    }
+    
+    /**
+     * Returns the topic that couldn't be merged.
+     * 
+     * @return the topic of the conflict
+     */
+    public String getTopic() {
+        return TOPIC;
+    }
+    
+    /**
+     * Returns the ids of the nodes of the file that were already used by
+     * the same topic.
+     * 
+     * @return an unmodifiable List with the conflicting node ids
+     */
+    public List<Integer> getNodeIds() {
+        return NODE_IDS;
+    }
+    
+    @Override
+    public String toString() {
+        return "Conflicting node ids " + NODE_IDS + " in topic " + TOPIC 
+                + " of file " + FILE;
+    }
+
+}
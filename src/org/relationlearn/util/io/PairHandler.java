@@ -0,0 +1,33 @@
+package org.relationlearn.util.io;
+
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.ArgumentRelation;
+
+/**
+ * The PairHandler interface defines the behaviour of any class that wants
+ * to receive the argument pairs found by a {@link StreamingInputParser} as
+ * soon as they are read from the input.
+ * 
+ * @see StreamingInputParser
+ */
+public interface PairHandler {
+    
+    /**
+     * Receives an argument pair read from the input.
+     * 
+     * <p>
+     * The {@code response} node has {@code relation} as its target relation
+     * and {@code target} has it as one of its reply relations, but the nodes
+     * are not linked to the nodes of any other pair, and the parser keeps no
+     * reference to them once this method returns.
+     * </p>
+     * 
+     * @param topic the topic the pair belongs to
+     * @param response the ArgumentNode that replies to {@code target}
+     * @param target the ArgumentNode {@code response} replies to
+     * @param relation the ArgumentRelation between both nodes
+     */
+    public void handlePair(String topic, ArgumentNode response, 
+            ArgumentNode target, ArgumentRelation relation);
+    
+}
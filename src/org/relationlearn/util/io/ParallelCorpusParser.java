@@ -0,0 +1,313 @@
+package org.relationlearn.util.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.relationlearn.exception.AlreadyExistingNodeException;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.RelationDigraph;
+
+/**
+ * InputParser implementation that parses a whole corpus made of several
+ * XML files in the 
+ * <a href="http://www-sop.inria.fr/NoDE/NoDE-xml.html">NoDE</a> format
+ * concurrently, and merges the RelationDigraph objects found in them by
+ * topic.
+ * 
+ * <p>
+ * The URI given to {@link #parseInput(String)} can be a single file, a
+ * directory, in which case every {@code .xml} file directly inside it is 
+ * parsed, or a glob pattern such as {@code corpus/**}{@code /*.xml}, as
+ * defined by {@link java.nio.file.FileSystem#getPathMatcher(String)}. Each 
+ * file is parsed by a {@link StreamingInputParser} in a fixed size thread
+ * pool, and at most twice as many files as threads are parsed or waiting to
+ * be merged at the same time, so memory usage stays bounded.
+ * </p>
+ * <p>
+ * Files are merged in the order of their paths, no matter the order in 
+ * which they finish, so the result is always the same for the same input.
+ * When a topic of a file uses node ids already used by the same topic of a
+ * previous file, none of the nodes of that topic of the file are merged and
+ * a {@link NodeConflict} is reported instead.
+ * </p>
+ * <p>
+ * A topic merged from several files contains an argument tree for each of
+ * them, so when the corpus has more than one file the RelationDigraph 
+ * objects are built to traverse all their trees, in increasing order of 
+ * their root ids. A single file is parsed the same way 
+ * {@link StreamingInputParser#parseInput(String)} does.
+ * </p>
+ * 
+ * @see StreamingInputParser
+ * @see NodeConflict
+ */
+public class ParallelCorpusParser implements InputParser {
+    
+    private static final String XML_EXTENSION = ".xml";
+    
+    private static final String GLOB_CHARS = "*?[{";
+    
+    private static class ParseTask 
+            implements Callable<Map<String, RelationDigraph>> {
+        
+        private final File FILE;
+        private final boolean ALL_TREES;
+        
+        public ParseTask(File file, boolean allTrees) {
+            this.FILE = file;
+            this.ALL_TREES = allTrees;
+        }
+
+        @Override
+        public Map<String, RelationDigraph> call() {
+            return new StreamingInputParser().parseInput(
+                    FILE.getAbsolutePath(), ALL_TREES);
+        }
+        
+    }
+    
+    private final int THREADS;
+    
+    /**
+     * Constructs a new ParallelCorpusParser that uses as many threads as
+     * processors are available.
+     */
+    public ParallelCorpusParser() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Constructs a new ParallelCorpusParser that uses {@code threads} 
+     * threads to parse the files.
+     * 
+     * @param threads the number of files parsed at the same time
+     * 
+     * @throws IllegalArgumentException if {@code threads} is lower than 1
+     */
+    public ParallelCorpusParser(int threads) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("The number of threads must "
+                    + "be at least 1");
+        }
+        this.THREADS = threads;
+    }
+    
+    /**
+     * Parses all the XML files found at {@code uri} and returns a Map 
+     * containing the RelationDigraph of each topic found in them. Conflicts
+     * are written to the standard error output.
+     * 
+     * @param uri a file, a directory or a glob pattern
+     * @return a Map with a RelationDigraph for each topic of the corpus
+     * 
+     * @throws IllegalArgumentException if no file is found at {@code uri}
+     * or if any of the files isn't a valid NoDE document.
+     */
+    @Override
+    public Map<String, RelationDigraph> parseInput(String uri) {
+        List<NodeConflict> conflicts = new ArrayList<>();
+        Map<String, RelationDigraph> graphs = parseInput(uri, conflicts);
+        for(NodeConflict conflict : conflicts) {
+            System.err.println("Error " + conflict);
+        }
+        return graphs;
+    }
+    
+    /**
+     * Parses all the XML files found at {@code uri} and returns a Map 
+     * containing the RelationDigraph of each topic found in them, adding
+     * every conflict found while merging them to {@code conflicts}.
+     * 
+     * @param uri a file, a directory or a glob pattern
+     * @param conflicts the List where the conflicts found will be added
+     * @return a Map with a RelationDigraph for each topic of the corpus
+     * 
+     * @throws IllegalArgumentException if no file is found at {@code uri}
+     * or if any of the files isn't a valid NoDE document.
+     */
+    public Map<String, RelationDigraph> parseInput(String uri, 
+            List<NodeConflict> conflicts) {
+        List<File> files = findFiles(uri);
+        if(files.isEmpty()) {
+            throw new IllegalArgumentException("URI doesn't correspond to "
+                    + "any file: " + uri);
+        }
+        Map<String, RelationDigraph> graphs = new HashMap<>();
+        boolean allTrees = files.size() > 1;
+        int threads = Math.min(THREADS, files.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Queue<Future<Map<String, RelationDigraph>>> pending = 
+                new ArrayDeque<>();
+        try {
+            int next = 0, merged = 0;
+            while(merged < files.size()) {
+                while(next < files.size() && pending.size() < threads * 2) {
+                    pending.add(executor.submit(
+                            new ParseTask(files.get(next++), allTrees)));
+                }
+                mergeGraphs(graphs, waitForResult(pending.poll(), 
+                        files.get(merged)), files.get(merged), conflicts);
+                merged++;
+            }
+        } finally {
+            for(Future<?> future : pending) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+        return graphs;
+    }
+    
+    /**
+     * Returns the files found at {@code uri} sorted by path.
+     * 
+     * @param uri a file, a directory or a glob pattern
+     * @return the List of files, which may be empty
+     * 
+     * @throws IllegalArgumentException if the files can't be listed
+     */
+    public List<File> findFiles(String uri) {
+        List<File> files = new ArrayList<>();
+        try {
+            if(isGlob(uri)) {
+                findGlobFiles(uri, files);
+            } else {
+                File input = new File(uri);
+                if(input.isDirectory()) {
+                    File[] children = input.listFiles();
+                    if(children != null) {
+                        for(File child : children) {
+                            if(child.isFile() && child.getName()
+                                    .endsWith(XML_EXTENSION)) {
+                                files.add(child);
+                            }
+                        }
+                    }
+                } else if(input.canRead()) {
+                    files.add(input);
+                }
+            }
+        } catch (IOException ioex) {
+            throw new IllegalArgumentException("Error listing files: " 
+                    + ioex.getMessage());
+        }
+        Collections.sort(files);
+        return files;
+    }
+    
+    private void findGlobFiles(String glob, final List<File> files) 
+            throws IOException {
+        String pattern = glob.replace(File.separatorChar, '/');
+        int firstGlob = pattern.length();
+        for(char c : GLOB_CHARS.toCharArray()) {
+            int index = pattern.indexOf(c);
+            if(index >= 0 && index < firstGlob) {
+                firstGlob = index;
+            }
+        }
+        int baseEnd = pattern.lastIndexOf('/', firstGlob);
+        Path base = Paths.get(baseEnd < 0 ? "." : 
+                (baseEnd == 0 ? "/" : pattern.substring(0, baseEnd)));
+        String relativeGlob = pattern.substring(baseEnd + 1);
+        final Path root = base;
+        final PathMatcher matcher = FileSystems.getDefault()
+                .getPathMatcher("glob:" + relativeGlob);
+        if(!Files.isDirectory(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, 
+                    BasicFileAttributes attrs) {
+                if(attrs.isRegularFile() 
+                        && matcher.matches(root.relativize(file))) {
+                    files.add(file.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    private boolean isGlob(String uri) {
+        for(char c : GLOB_CHARS.toCharArray()) {
+            if(uri.indexOf(c) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private Map<String, RelationDigraph> waitForResult(
+            Future<Map<String, RelationDigraph>> future, File file) {
+        try {
+            return future.get();
+        } catch (ExecutionException exex) {
+            Throwable cause = exex.getCause();
+            throw new IllegalArgumentException("Error parsing file " + file 
+                    + ": " + cause.getMessage(), cause);
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing "
+                    + "file " + file, iex);
+        }
+    }
+    
+    private void mergeGraphs(Map<String, RelationDigraph> graphs, 
+            Map<String, RelationDigraph> parsed, File file, 
+            List<NodeConflict> conflicts) {
+        for(Entry<String, RelationDigraph> entry : parsed.entrySet()) {
+            RelationDigraph graph = graphs.get(entry.getKey());
+            if(graph == null) {
+                graphs.put(entry.getKey(), entry.getValue());
+            } else {
+                List<ArgumentNode> nodes = new ArrayList<>();
+                List<Integer> conflictIds = new ArrayList<>();
+                for(ArgumentNode node : entry.getValue()) {
+                    nodes.add(node);
+                    if(graph.containsNode(node.getNodeId())) {
+                        conflictIds.add(node.getNodeId());
+                    }
+                }
+                if(conflictIds.isEmpty()) {
+                    addNodes(graph, nodes);
+                } else {
+                    Collections.sort(conflictIds);
+                    conflicts.add(new NodeConflict(file, entry.getKey(), 
+                            conflictIds));
+                }
+            }
+        }
+    }
+    
+    private void addNodes(RelationDigraph graph, List<ArgumentNode> nodes) {
+        try {
+            for(ArgumentNode node : nodes) {
+                graph.addArgumentNode(node);
+            }
+        } catch (AlreadyExistingNodeException aenex) {
+            throw new IllegalStateException("Node ids changed while "
+                    + "merging", aenex);
+        }
+    }
+
+}
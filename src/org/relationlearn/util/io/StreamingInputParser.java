@@ -0,0 +1,296 @@
+package org.relationlearn.util.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.relationlearn.exception.AlreadyExistingNodeException;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.ArgumentRelation;
+import org.relationlearn.model.DigraphImpl;
+import org.relationlearn.model.NodeImpl;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.model.RelationImpl;
+import org.relationlearn.util.RelationType;
+
+/**
+ * InputParser implementation that reads an XML file written in the
+ * <a href="http://www-sop.inria.fr/NoDE/NoDE-xml.html">NoDE</a> format with
+ * a StAX stream reader, and hands each argument pair to a 
+ * {@link PairHandler} as soon as it has been read.
+ * 
+ * <p>
+ * Since every pair of the NoDE format contains the full text of both of its
+ * nodes, each pair is delivered with its own ArgumentNode objects and the
+ * parser doesn't keep any of them, so the memory used while parsing only
+ * depends on the size of a single pair, no matter how big the input is.
+ * This allows feature extraction and classification to start while the
+ * input is still being read.
+ * </p>
+ * <p>
+ * The {@link #parseInput(String)} method builds the same RelationDigraph
+ * objects {@link XMLFileParser} does, so this class can be used wherever
+ * an InputParser is expected.
+ * </p>
+ * 
+ * @see PairHandler
+ * @see javax.xml.stream.XMLStreamReader
+ */
+public class StreamingInputParser implements InputParser {
+    
+    private static final String PAIR_TAG = "pair";
+    private static final String TARGET_TAG = "h";
+    private static final String RESPONSE_TAG = "t";
+    
+    private static final String ID_ATTR = "id";
+    private static final String WEIGHT_ATTR = "weight";
+    private static final String TOPIC_ATTR = "topic";
+    private static final String ENTL_ATTR = "entailment";
+    
+    private static final String VALUE_NO = "NO";
+    private static final String VALUE_YES = "YES";
+    
+    private static class GraphBuilderHandler implements PairHandler {
+        
+        private final Map<String, RelationDigraph> GRAPHS;
+        private final boolean ALL_TREES;
+        
+        public GraphBuilderHandler(boolean allTrees) {
+            this.GRAPHS = new HashMap<>();
+            this.ALL_TREES = allTrees;
+        }
+
+        @Override
+        public void handlePair(String topic, ArgumentNode response, 
+                ArgumentNode target, ArgumentRelation relation) {
+            RelationDigraph graph = GRAPHS.get(topic);
+            if(graph == null) {
+                graph = new DigraphImpl(ALL_TREES);
+                GRAPHS.put(topic, graph);
+            }
+            try {
+                ArgumentNode argumentator = 
+                        graph.getArgumentNode(response.getNodeId());
+                if(argumentator == null) {
+                    argumentator = copyNode(response);
+                    graph.addArgumentNode(argumentator);
+                }
+                ArgumentNode targetNode = 
+                        graph.getArgumentNode(target.getNodeId());
+                if(targetNode == null) {
+                    targetNode = copyNode(target);
+                    graph.addArgumentNode(targetNode);
+                }
+                ArgumentRelation ar = new RelationImpl(
+                        relation.getArgumentRelationId(), argumentator, 
+                        targetNode, relation.getArgumentRelationType());
+                argumentator.addTargetRelation(ar);
+                targetNode.addReplyRelation(ar);
+            } catch (AlreadyExistingNodeException aenex) {
+                System.err.println("Error already existing node");
+            }
+        }
+        
+        public Map<String, RelationDigraph> getParsingResults() {
+            return GRAPHS;
+        }
+        
+        private ArgumentNode copyNode(ArgumentNode node) {
+            return new NodeImpl(node.getNodeId(), node.getNodeWeight(), 
+                    node.getArgumentNodeText());
+        }
+        
+    }
+    
+    private final XMLInputFactory FACTORY;
+    
+    /**
+     * Constructs a new StreamingInputParser.
+     */
+    public StreamingInputParser() {
+        this.FACTORY = XMLInputFactory.newInstance();
+        FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    }
+    
+    /**
+     * Parses a given XML file and returns a Map containing all RelationDigraph
+     * objects found in it.
+     * 
+     * @param uri the path of the XML file to parse
+     * @return a Map with all RelationDigraph objects parsed from the file
+     * 
+     * @throws IllegalArgumentException if the path doesn't correspond to a 
+     * valid XML file.
+     */
+    @Override
+    public Map<String, RelationDigraph> parseInput(String uri) {
+        return parseInput(uri, false);
+    }
+    
+    /*
+     * Builds graphs that traverse all their argument trees when 
+     * allTrees is true, so they can be merged with the ones of other files.
+     */
+    Map<String, RelationDigraph> parseInput(String uri, boolean allTrees) {
+        GraphBuilderHandler handler = new GraphBuilderHandler(allTrees);
+        parseInput(uri, handler);
+        return handler.getParsingResults();
+    }
+    
+    /**
+     * Parses a given XML file and passes every argument pair found in it to
+     * {@code handler}, in the same order they appear in the file.
+     * 
+     * @param uri the path of the XML file to parse
+     * @param handler the PairHandler that will receive the pairs
+     * 
+     * @throws IllegalArgumentException if the path doesn't correspond to a 
+     * valid XML file, or if the file isn't a valid NoDE document.
+     */
+    public void parseInput(String uri, PairHandler handler) {
+        File input = new File(uri);
+        if(input.canRead()) {
+            try (InputStream in = new BufferedInputStream(
+                    new FileInputStream(input))) {
+                parseInput(in, handler);
+            } catch (IOException ioex) {
+                throw new IllegalArgumentException("Error reading file: " 
+                        + ioex.getMessage());
+            }
+        } else {
+            throw new IllegalArgumentException("URI doens't "
+                    + "correspond to a valid file path");
+        }
+    }
+    
+    /**
+     * Parses the XML document read from {@code in} and passes every argument
+     * pair found in it to {@code handler}, in the same order they appear in 
+     * the document. The stream is not closed.
+     * 
+     * @param in the stream the XML document is read from
+     * @param handler the PairHandler that will receive the pairs
+     * 
+     * @throws IllegalArgumentException if the stream doesn't contain a 
+     * valid NoDE document.
+     */
+    public void parseInput(InputStream in, PairHandler handler) {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+            while(reader.hasNext()) {
+                if(reader.next() == XMLStreamConstants.START_ELEMENT 
+                        && PAIR_TAG.equals(reader.getLocalName())) {
+                    parsePair(reader, handler);
+                }
+            }
+        } catch (XMLStreamException xmlsex) {
+            throw new IllegalArgumentException("Error in XML stream: " 
+                    + xmlsex.getMessage());
+        } finally {
+            closeReader(reader);
+        }
+    }
+    
+    private void parsePair(XMLStreamReader reader, PairHandler handler) 
+            throws XMLStreamException {
+        String topic = reader.getAttributeValue(null, TOPIC_ATTR);
+        String strId = reader.getAttributeValue(null, ID_ATTR);
+        if(topic == null || strId == null) {
+            throw new XMLStreamException("id and topic attributes are "
+                    + "mandatory for the pair tag", reader.getLocation());
+        }
+        int relationId = parseInt(reader, strId);
+        RelationType type = parseRelationType(
+                reader.getAttributeValue(null, ENTL_ATTR));
+        ArgumentNode response = null;
+        ArgumentNode target = null;
+        int depth = 1;
+        while(depth > 0) {
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT) {
+                String tag = reader.getLocalName();
+                if(RESPONSE_TAG.equals(tag)) {
+                    response = parseNode(reader);
+                } else if(TARGET_TAG.equals(tag)) {
+                    target = parseNode(reader);
+                } else { // Other XML tags are ignored
+                    depth++;
+                }
+            } else if(event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        if(response == null || target == null) {
+            throw new XMLStreamException("Pair " + relationId 
+                    + " must contain both a t and an h tag", 
+                    reader.getLocation());
+        }
+        ArgumentRelation relation = 
+                new RelationImpl(relationId, response, target, type);
+        response.addTargetRelation(relation);
+        target.addReplyRelation(relation);
+        handler.handlePair(topic, response, target, relation);
+    }
+    
+    /*
+     * Reads the node attributes and text, leaving the reader at the node
+     * end tag.
+     */
+    private ArgumentNode parseNode(XMLStreamReader reader) 
+            throws XMLStreamException {
+        String strId = reader.getAttributeValue(null, ID_ATTR);
+        if(strId == null) {
+            throw new XMLStreamException("id attribute is mandatory for "
+                    + "the t and h tags", reader.getLocation());
+        }
+        int nodeId = parseInt(reader, strId);
+        String weight = reader.getAttributeValue(null, WEIGHT_ATTR);
+        int nodeWeight = (weight == null) ? 1 : parseInt(reader, weight);
+        String text = reader.getElementText();
+        return new NodeImpl(nodeId, nodeWeight, text);
+    }
+    
+    private RelationType parseRelationType(String entailment) {
+        if(null != entailment) switch (entailment) {
+            case VALUE_YES:
+                return RelationType.SUPPORT;
+            case VALUE_NO:
+                return RelationType.ATTACK;
+            default:
+                return RelationType.UNKNOWN;
+        } else {
+            return RelationType.UNKNOWN;
+        }
+    }
+    
+    private int parseInt(XMLStreamReader reader, String value) 
+            throws XMLStreamException {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException nfex) {
+            throw new XMLStreamException("Invalid number: " + value, 
+                    reader.getLocation());
+        }
+    }
+    
+    private void closeReader(XMLStreamReader reader) {
+        if(reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException xmlsex) {
+                System.err.println("Error closing XML stream: " 
+                        + xmlsex.getMessage());
+            }
+        }
+    }
+
+}
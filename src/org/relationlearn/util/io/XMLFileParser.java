@@ -80,10 +80,13 @@ public class XMLFileParser implements InputParser {
         private NodeBuilder currentArgumentator;
         private NodeBuilder currentTarget;
         
-        private String tempString;
+        // Text of the current node, SAX may deliver it in several chunks
+        private final StringBuilder textBuffer;
+        private boolean readingText;
         
         public SAXParserHelper() {
             this.relGraph = new HashMap<>();
+            this.textBuffer = new StringBuilder(256);
         }
         
         @Override
@@ -106,6 +109,7 @@ public class XMLFileParser implements InputParser {
                     break;
                 case TARGET_TAG:
                     nId = Integer.parseInt(strId);
+                    startText();
                     if(relGraph.get(currentGraph).containsNode(nId)) {
                         buildTarget = false;
                         currentRelation.tNode = 
@@ -118,6 +122,7 @@ public class XMLFileParser implements InputParser {
                     break;
                 case RESPONSE_TAG:
                     nId = Integer.parseInt(strId);
+                    startText();
                     if(relGraph.get(currentGraph).containsNode(nId)) {
                         buildArgumentator = false;
                         currentRelation.aNode = 
@@ -140,7 +145,9 @@ public class XMLFileParser implements InputParser {
         
         @Override
         public void characters(char[] ac, int i, int j) {
-            tempString = new String(ac, i, j);
+            if(readingText) {
+                textBuffer.append(ac, i, j);
+            }
         }
         
         @Override
@@ -177,13 +184,15 @@ public class XMLFileParser implements InputParser {
                     break;
                 case TARGET_TAG:
                     if(buildTarget) {
-                        currentTarget.nodeText = tempString;
+                        currentTarget.nodeText = textBuffer.toString();
                     }
+                    readingText = false;
                     break;
                 case RESPONSE_TAG:
                     if(buildArgumentator) {
-                        currentArgumentator.nodeText = tempString;
+                        currentArgumentator.nodeText = textBuffer.toString();
                     }
+                    readingText = false;
                     break;
                 default: // Other XML tags are ignored
                     break;
@@ -194,6 +203,11 @@ public class XMLFileParser implements InputParser {
             return this.relGraph;
         }
         
+        private void startText() {
+            textBuffer.setLength(0);
+            readingText = true;
+        }
+        
         private void parseRelation(Attributes attr) {
             currentRelation = new RelationBuilder();
             currentRelation.relationId = 
@@ -0,0 +1,183 @@
+package org.relationlearn.classifiers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Tests for the ConcurrentSVMClassifier class.
+ */
+public class ConcurrentSVMClassifierTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 5;
+
+    private Instances data;
+    private Instances missing;
+    private File model;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        FastVector attributes = new FastVector();
+        for(int a = 0; a < 4; a++) {
+            attributes.addElement(new Attribute("feature-" + a));
+        }
+        FastVector classes = new FastVector();
+        classes.addElement("ATTACK");
+        classes.addElement("SUPPORT");
+        attributes.addElement(new Attribute("class", classes));
+        data = new Instances("test", attributes, 0);
+        data.setClassIndex(4);
+        Random random = new Random(1);
+        for(int i = 0; i < 60; i++) {
+            double[] values = new double[5];
+            for(int a = 0; a < 4; a++) {
+                values[a] = random.nextDouble() * 4;
+            }
+            values[4] = values[0] > values[1] ? 0 : 1;
+            data.add(new Instance(1.0, values));
+        }
+        missing = new Instances(data);
+        for(int i = 0; i < missing.numInstances(); i += 3) {
+            missing.instance(i).setMissing(i % 4);
+        }
+        model = File.createTempFile("concurrent-svm-test", ".model");
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        model.delete();
+    }
+
+    /**
+     * Test that many threads classifying at the same time get the same
+     * predictions as a single SVMClassifier, both for the Instance objects
+     * classified with the shared model and for the ones that need a
+     * replica, and that every prediction is recorded in the metrics. The
+     * probability estimates of {@code -B} can't be computed with the shared
+     * model, so every prediction takes a copy of the whole classifier.
+     */
+    @Test
+    public void testConcurrentClassification() throws Exception {
+        String[][] optionSets = {{}, {"-Z"}, {"-B"}};
+        for(String[] options : optionSets) {
+            SVMClassifier classifier = new SVMClassifier();
+            classifier.setOptions(options.clone());
+            classifier.trainClassifier(data);
+            classifier.storeModel(model.getAbsolutePath());
+            assertConcurrentPredictions(options, 2);
+            classifier.storeLeanModel(model.getAbsolutePath());
+            assertConcurrentPredictions(options, 1);
+        }
+    }
+
+    /**
+     * Test that the predictions of the shared model and of the replicas
+     * are still the ones of a single SVMClassifier when a nominal Attribute
+     * with more than two values is converted to several binary ones.
+     */
+    @Test
+    public void testConcurrentClassificationNominal() throws Exception {
+        data = SVMClassifierTest.createNominalData(120);
+        missing = new Instances(data);
+        for(int i = 0; i < missing.numInstances(); i += 3) {
+            missing.instance(i).setMissing(i % 3);
+        }
+        String[][] optionSets = {{}, {"-K", "0"}, {"-Z"}};
+        for(String[] options : optionSets) {
+            SVMClassifier classifier = new SVMClassifier();
+            classifier.setOptions(options.clone());
+            classifier.trainClassifier(data);
+            assertTrue(classifier.getPredictor().changesAttributes(
+                    data.numAttributes()));
+            classifier.storeModel(model.getAbsolutePath());
+            assertConcurrentPredictions(options, 2);
+            classifier.storeLeanModel(model.getAbsolutePath());
+            assertConcurrentPredictions(options, 1);
+        }
+    }
+
+    /**
+     * Test that a ConcurrentSVMClassifier needs at least one replica.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoReplicas() throws Exception {
+        SVMClassifier classifier = new SVMClassifier();
+        classifier.trainClassifier(data);
+        classifier.storeLeanModel(model.getAbsolutePath());
+        new ConcurrentSVMClassifier(model, 0);
+    }
+
+    private void assertConcurrentPredictions(String[] options, int replicas)
+            throws Exception {
+        SVMClassifier reference = new SVMClassifier(model);
+        final List<Instance> instances = new ArrayList<>();
+        List<Double> expected = new ArrayList<>();
+        for(Instances set : new Instances[] {data, missing}) {
+            for(int i = 0; i < set.numInstances(); i++) {
+                instances.add(set.instance(i));
+                expected.add(reference.classifyInstance(set.instance(i)));
+            }
+        }
+        final ConcurrentSVMClassifier concurrent =
+                new ConcurrentSVMClassifier(model, replicas);
+        assertEquals(replicas, concurrent.getReplicaCount());
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<double[]>> futures = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(new Callable<double[]>() {
+                @Override
+                public double[] call() throws Exception {
+                    start.await();
+                    double[] results = 
+                            new double[ROUNDS * instances.size()];
+                    for(int i = 0; i < results.length; i++) {
+                        results[i] = concurrent.classifyInstance(
+                                instances.get(i % instances.size()));
+                    }
+                    return results;
+                }
+            }));
+        }
+        start.countDown();
+        for(Future<double[]> future : futures) {
+            double[] results = future.get();
+            for(int i = 0; i < results.length; i++) {
+                assertEquals("Options " + Arrays.toString(options), 
+                        expected.get(i % expected.size()), results[i], 0.0);
+            }
+        }
+        long requests = (long) THREADS * ROUNDS * instances.size();
+        assertEquals(requests, concurrent.getRequestCount());
+        assertEquals(0, concurrent.getActiveRequests());
+        assertEquals(0, concurrent.getQueueDepth());
+        assertTrue(concurrent.getMaxLatency() >= concurrent.getMeanLatency());
+        assertTrue(concurrent.getLatencyPercentile(50)
+                <= concurrent.getLatencyPercentile(100));
+        assertTrue(concurrent.getLatencyPercentile(100)
+                <= concurrent.getMaxLatency());
+        concurrent.resetMetrics();
+        assertEquals(0, concurrent.getRequestCount());
+        assertEquals(0, concurrent.getMeanLatency());
+        assertEquals(0, concurrent.getLatencyPercentile(100));
+    }
+
+}
@@ -0,0 +1,150 @@
+package org.relationlearn.classifiers;
+
+import java.io.File;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.filters.InstanceFormat;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+
+/**
+ * Tests for the SGDClassifier class.
+ */
+public class SGDClassifierTest {
+
+    private Instances data;
+    private Instances newData;
+    private File model;
+
+    @Before
+    public void setUp() throws Exception {
+        FastVector attributes = new FastVector();
+        attributes.addElement(new Attribute("ratio"));
+        attributes.addElement(new Attribute("count"));
+        FastVector classes = new FastVector();
+        classes.addElement("ATTACK");
+        classes.addElement("SUPPORT");
+        classes.addElement("UNKNOWN");
+        attributes.addElement(new Attribute("class", classes));
+        data = createData(attributes, new Random(1), 300);
+        newData = createData(attributes, new Random(2), 100);
+        model = File.createTempFile("sgd-classifier-test", ".model");
+    }
+
+    @After
+    public void tearDown() {
+        model.delete();
+    }
+
+    /**
+     * Test that the classifier learns a simple separable problem.
+     */
+    @Test
+    public void testTrainClassifier() throws Exception {
+        SGDClassifier classifier = new SGDClassifier();
+        classifier.setOptions(new String[] {"-sgd-epochs", "10"});
+        classifier.trainClassifier(data);
+        double[] predictions = classifier.classifyBatch(newData);
+        int correct = 0;
+        for(int i = 0; i < predictions.length; i++) {
+            if(predictions[i] == newData.instance(i).classValue()) {
+                correct++;
+            }
+        }
+        assertTrue(correct >= 90);
+        assertEquals(3000, classifier.getUpdateCount());
+    }
+
+    /**
+     * Test that a stored model is updated exactly as the classifier it was
+     * stored from.
+     */
+    @Test
+    public void testStoreAndUpdate() throws Exception {
+        SGDClassifier classifier = new SGDClassifier();
+        classifier.trainClassifier(data);
+        classifier.storeModel(model.getAbsolutePath());
+        SGDClassifier loaded = new SGDClassifier(model);
+        assertTrue(SGDClassifier.isSGDModel(model));
+        classifier.update(newData);
+        loaded.update(newData);
+        assertEquals(classifier.getUpdateCount(), loaded.getUpdateCount());
+        for(int i = 0; i < data.numInstances(); i++) {
+            Instance instance = data.instance(i);
+            assertArrayEquals(classifier.distributionForInstance(instance),
+                    loaded.distributionForInstance(instance), 0.0);
+        }
+    }
+
+    /**
+     * Test that LibSVM options are rejected instead of being taken as SGD
+     * options.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetOptionsRejectsUnknown() {
+        new SGDClassifier().setOptions(new String[] {"-E", "0.001"});
+    }
+
+    /**
+     * Test that a classifier trained and used with SparseInstance objects
+     * predicts the same values as one trained and used with dense ones.
+     */
+    @Test
+    public void testSparseAndDenseInstances() throws Exception {
+        Instances zeros = new Instances(data);
+        for(int i = 0; i < zeros.numInstances(); i += 3) {
+            zeros.instance(i).setValue(i % 2, 0);
+        }
+        Instances dense = copyWithFormat(zeros, InstanceFormat.DENSE);
+        Instances sparse = copyWithFormat(zeros, InstanceFormat.SPARSE);
+        Instances denseTest = copyWithFormat(newData, InstanceFormat.DENSE);
+        Instances sparseTest = copyWithFormat(newData, InstanceFormat.SPARSE);
+        assertTrue(sparse.instance(0) instanceof SparseInstance);
+        SGDClassifier denseClassifier = new SGDClassifier();
+        denseClassifier.trainClassifier(dense);
+        SGDClassifier sparseClassifier = new SGDClassifier();
+        sparseClassifier.trainClassifier(sparse);
+        double[] denseBatch = denseClassifier.classifyBatch(denseTest);
+        double[] sparseBatch = sparseClassifier.classifyBatch(sparseTest);
+        assertArrayEquals(denseBatch, sparseBatch, 0.0);
+        for(int i = 0; i < dense.numInstances(); i++) {
+            assertArrayEquals(
+                    denseClassifier.distributionForInstance(dense.instance(i)),
+                    sparseClassifier.distributionForInstance(
+                            sparse.instance(i)), 1e-12);
+        }
+    }
+
+    private static Instances copyWithFormat(Instances instances, 
+            InstanceFormat format) {
+        Instances copy = new Instances(instances, instances.numInstances());
+        for(int i = 0; i < instances.numInstances(); i++) {
+            Instance instance = instances.instance(i);
+            copy.add(format.createInstance(instance.weight(), 
+                    instance.toDoubleArray()));
+        }
+        return copy;
+    }
+
+    private static Instances createData(FastVector attributes,
+            Random random, int size) {
+        Instances instances = new Instances("test", attributes, size);
+        instances.setClassIndex(2);
+        for(int i = 0; i < size; i++) {
+            int type = random.nextInt(3);
+            double[] values = new double[3];
+            values[0] = type + random.nextDouble() * 0.5;
+            values[1] = (2 - type) * 10 + random.nextInt(5);
+            values[2] = type;
+            instances.add(new Instance(1.0, values));
+        }
+        return instances;
+    }
+
+}
@@ -0,0 +1,295 @@
+package org.relationlearn.classifiers;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.filters.InstanceFormat;
+import weka.classifiers.functions.LibSVM;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+
+/**
+ * Tests for the SVMClassifier class.
+ */
+public class SVMClassifierTest {
+
+    private Instances data;
+    private File fullModel;
+    private File leanModel;
+
+    @Before
+    public void setUp() throws Exception {
+        FastVector attributes = new FastVector();
+        for(int a = 0; a < 4; a++) {
+            attributes.addElement(new Attribute("feature-" + a));
+        }
+        FastVector classes = new FastVector();
+        classes.addElement("ATTACK");
+        classes.addElement("SUPPORT");
+        attributes.addElement(new Attribute("class", classes));
+        data = new Instances("test", attributes, 0);
+        data.setClassIndex(4);
+        Random random = new Random(1);
+        for(int i = 0; i < 60; i++) {
+            double[] values = new double[5];
+            for(int a = 0; a < 4; a++) {
+                values[a] = random.nextDouble() * 4;
+            }
+            values[4] = values[0] > values[1] ? 0 : 1;
+            data.add(new Instance(1.0, values));
+        }
+        fullModel = File.createTempFile("svm-classifier-test", ".model");
+        leanModel = File.createTempFile("svm-classifier-test", ".model");
+    }
+
+    @After
+    public void tearDown() {
+        fullModel.delete();
+        leanModel.delete();
+    }
+
+    /**
+     * Test that a lean model is smaller than a full one and predicts the
+     * same values once loaded.
+     */
+    @Test
+    public void testStoreLeanModel() throws Exception {
+        SVMClassifier classifier = new SVMClassifier();
+        classifier.setOptions(new String[] {"-Z"});
+        classifier.trainClassifier(data);
+        classifier.storeModel(fullModel.getAbsolutePath());
+        classifier.storeLeanModel(leanModel.getAbsolutePath());
+        assertTrue(leanModel.length() < fullModel.length());
+        SVMClassifier full = new SVMClassifier(fullModel);
+        SVMClassifier lean = new SVMClassifier(leanModel);
+        for(int i = 0; i < data.numInstances(); i++) {
+            Instance instance = data.instance(i);
+            double expected = full.classifyInstance(instance);
+            assertEquals(expected, lean.classifyInstance(instance), 0.0);
+            assertEquals(expected,
+                    classifier.classifyInstance(instance), 0.0);
+        }
+    }
+
+    /**
+     * Test that a lean model, and a lean model stored again from it, 
+     * evaluate Instance objects with the class priors of the full training
+     * dataset.
+     */
+    @Test
+    public void testLeanModelClassPriors() throws Exception {
+        data.instance(0).setWeight(2.5);
+        SVMClassifier classifier = new SVMClassifier();
+        classifier.trainClassifier(data);
+        classifier.storeLeanModel(leanModel.getAbsolutePath());
+        SVMClassifier lean = new SVMClassifier(leanModel);
+        lean.storeLeanModel(fullModel.getAbsolutePath());
+        SVMClassifier restored = new SVMClassifier(fullModel);
+        double[] expected = classifier.createEvaluation().getClassPriors();
+        assertArrayEquals(expected, 
+                lean.createEvaluation().getClassPriors(), 1e-12);
+        assertArrayEquals(expected, 
+                restored.createEvaluation().getClassPriors(), 1e-12);
+    }
+
+    /**
+     * Test that the batches classified calling LibSVM directly get the same
+     * predictions as LibSVM with the default RBF kernel, with and without
+     * normalization and with missing values.
+     */
+    @Test
+    public void testClassifyBatchRBF() throws Exception {
+        Instances missing = new Instances(data);
+        Random random = new Random(2);
+        for(int i = 0; i < missing.numInstances(); i++) {
+            if(random.nextInt(3) == 0) {
+                missing.instance(i).setMissing(random.nextInt(4));
+            }
+        }
+        Instances large = new Instances(data);
+        for(int i = 0; i < SVMClassifier.DEFAULT_CHUNK_SIZE; i++) {
+            large.add(missing.instance(i % missing.numInstances()));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for(String[] options : new String[][] {{}, {"-Z"}}) {
+                for(Instances train : new Instances[] {data, missing}) {
+                    LibSVM libSVM = new LibSVM();
+                    libSVM.setOptions(options.clone());
+                    libSVM.buildClassifier(train);
+                    SVMClassifier classifier = new SVMClassifier();
+                    classifier.setOptions(options.clone());
+                    classifier.trainClassifier(train);
+                    double[] batch = classifier.classifyBatch(large);
+                    double[] parallel = classifier.classifyBatch(large, pool);
+                    for(int i = 0; i < large.numInstances(); i++) {
+                        double expected = 
+                                libSVM.classifyInstance(large.instance(i));
+                        assertEquals(expected, batch[i], 0.0);
+                        assertEquals(expected, parallel[i], 0.0);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test that the batches classified calling LibSVM directly get the same
+     * predictions as LibSVM when a nominal Attribute with more than two
+     * values is converted to several binary ones before training.
+     */
+    @Test
+    public void testClassifyBatchNominal() throws Exception {
+        Instances nominal = createNominalData(300);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            String[][] optionSets = {{}, {"-K", "0"}, {"-K", "2"}, {"-Z"}};
+            for(String[] options : optionSets) {
+                LibSVM libSVM = new LibSVM();
+                libSVM.setOptions(options.clone());
+                libSVM.buildClassifier(nominal);
+                SVMClassifier classifier = new SVMClassifier();
+                classifier.setOptions(options.clone());
+                classifier.trainClassifier(nominal);
+                assertTrue(classifier.getPredictor().isDirect());
+                double[] batch = classifier.classifyBatch(nominal);
+                double[] parallel = classifier.classifyBatch(nominal, pool);
+                for(int i = 0; i < nominal.numInstances(); i++) {
+                    double expected = 
+                            libSVM.classifyInstance(nominal.instance(i));
+                    assertEquals(expected, batch[i], 0.0);
+                    assertEquals(expected, parallel[i], 0.0);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test that a compiled linear model predicts the same values as LibSVM.
+     */
+    @Test
+    public void testCompileLinearModel() throws Exception {
+        LibSVM libSVM = new LibSVM();
+        libSVM.setOptions(new String[] {"-K", "0"});
+        libSVM.buildClassifier(data);
+        SVMClassifier classifier = new SVMClassifier();
+        classifier.setOptions(new String[] {"-K", "0"});
+        classifier.trainClassifier(data);
+        CompiledLinearModel compiled = classifier.compileLinearModel();
+        double[] batch = classifier.classifyBatch(data);
+        for(int i = 0; i < data.numInstances(); i++) {
+            Instance instance = data.instance(i);
+            double expected = libSVM.classifyInstance(instance);
+            assertEquals(expected, classifier.classifyInstance(instance), 0.0);
+            assertEquals(expected, batch[i], 0.0);
+            assertEquals(expected,
+                    compiled.classify(instance.toDoubleArray()), 0.0);
+            assertEquals(expected, compiled.classify(instance), 0.0);
+        }
+    }
+
+    /**
+     * Test that a linear model isn't compiled when the nominal attributes
+     * of the training dataset are converted to several binary ones, since
+     * the weights wouldn't match the indexes of the attributes.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testCompileLinearModelNominal() throws Exception {
+        SVMClassifier classifier = new SVMClassifier();
+        classifier.setOptions(new String[] {"-K", "0"});
+        classifier.trainClassifier(createNominalData(60));
+        classifier.compileLinearModel();
+    }
+
+    /**
+     * Test that a classifier trained and used with SparseInstance objects
+     * predicts the same values as one trained and used with dense ones, 
+     * with the RBF and linear kernels and with normalization.
+     */
+    @Test
+    public void testSparseAndDenseInstances() throws Exception {
+        Instances zeros = new Instances(data);
+        for(int i = 0; i < zeros.numInstances(); i++) {
+            zeros.instance(i).setValue(2 + i % 2, 0);
+            if(i % 3 == 0) {
+                zeros.instance(i).setValue(i % 2, 0);
+            }
+        }
+        Instances dense = copyWithFormat(zeros, InstanceFormat.DENSE);
+        Instances sparse = copyWithFormat(zeros, InstanceFormat.SPARSE);
+        assertTrue(sparse.instance(0) instanceof SparseInstance);
+        for(String[] options : new String[][] {{}, {"-K", "0"}, {"-Z"}}) {
+            SVMClassifier denseClassifier = new SVMClassifier();
+            denseClassifier.setOptions(options.clone());
+            denseClassifier.trainClassifier(dense);
+            SVMClassifier sparseClassifier = new SVMClassifier();
+            sparseClassifier.setOptions(options.clone());
+            sparseClassifier.trainClassifier(sparse);
+            double[] denseBatch = denseClassifier.classifyBatch(dense);
+            double[] sparseBatch = sparseClassifier.classifyBatch(sparse);
+            for(int i = 0; i < dense.numInstances(); i++) {
+                double expected = 
+                        denseClassifier.classifyInstance(dense.instance(i));
+                assertEquals(expected, 
+                        sparseClassifier.classifyInstance(sparse.instance(i)),
+                        0.0);
+                assertEquals(expected, 
+                        denseClassifier.classifyInstance(sparse.instance(i)),
+                        0.0);
+                assertEquals(denseBatch[i], sparseBatch[i], 0.0);
+            }
+        }
+    }
+
+    static Instances createNominalData(int size) {
+        FastVector attributes = new FastVector();
+        attributes.addElement(new Attribute("feature-0"));
+        FastVector colours = new FastVector();
+        colours.addElement("red");
+        colours.addElement("green");
+        colours.addElement("blue");
+        attributes.addElement(new Attribute("colour", colours));
+        attributes.addElement(new Attribute("feature-1"));
+        FastVector classes = new FastVector();
+        classes.addElement("ATTACK");
+        classes.addElement("SUPPORT");
+        attributes.addElement(new Attribute("class", classes));
+        Instances nominal = new Instances("nominal", attributes, size);
+        nominal.setClassIndex(3);
+        Random random = new Random(3);
+        for(int i = 0; i < size; i++) {
+            double[] values = new double[4];
+            values[0] = random.nextDouble() * 4;
+            values[1] = random.nextInt(3);
+            values[2] = random.nextDouble() * 4;
+            double shift = values[1] == 1 ? 1.5 : values[1] == 2 ? -1 : 0;
+            values[3] = values[0] + shift + random.nextGaussian() > values[2]
+                    ? 0 : 1;
+            nominal.add(new Instance(1.0, values));
+        }
+        return nominal;
+    }
+
+    private static Instances copyWithFormat(Instances instances, 
+            InstanceFormat format) {
+        Instances copy = new Instances(instances, instances.numInstances());
+        for(int i = 0; i < instances.numInstances(); i++) {
+            Instance instance = instances.instance(i);
+            copy.add(format.createInstance(instance.weight(), 
+                    instance.toDoubleArray()));
+        }
+        return copy;
+    }
+
+}
@@ -0,0 +1,170 @@
+package org.relationlearn.classifiers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Tests for the SVMGridSearch class.
+ */
+public class SVMGridSearchTest {
+
+    private static final String[] C_VALUES = {"0.0001", "0.01", "1", "100"};
+    private static final String[] G_VALUES = {"0.01", "1"};
+
+    private Instances data;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        FastVector attributes = new FastVector();
+        for(int a = 0; a < 4; a++) {
+            attributes.addElement(new Attribute("feature-" + a));
+        }
+        FastVector classes = new FastVector();
+        classes.addElement("ATTACK");
+        classes.addElement("SUPPORT");
+        attributes.addElement(new Attribute("class", classes));
+        data = new Instances("test", attributes, 0);
+        data.setClassIndex(4);
+        Random random = new Random(1);
+        for(int i = 0; i < 60; i++) {
+            double[] values = new double[5];
+            for(int a = 0; a < 4; a++) {
+                values[a] = random.nextDouble() * 4;
+            }
+            values[4] = values[0] + random.nextGaussian() > values[1]
+                    ? 0 : 1;
+            data.add(new Instance(1.0, values));
+        }
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test that the grid points are every combination of the parameter
+     * values, with the last parameter added changing first.
+     */
+    @Test
+    public void testGetGridPoints() {
+        SVMGridSearch search = new SVMGridSearch(data);
+        assertEquals(1, search.getGridPoints().size());
+        assertEquals(0, search.getGridPoints().get(0).length);
+        search.addParameter("-C", "0.1", "1");
+        search.addParameter("-G", "0.01", "0.1", "1");
+        List<String[]> points = search.getGridPoints();
+        assertEquals(6, points.size());
+        int p = 0;
+        for(String c : new String[] {"0.1", "1"}) {
+            for(String g : new String[] {"0.01", "0.1", "1"}) {
+                assertArrayEquals(new String[] {"-C", c, "-G", g},
+                        points.get(p++));
+            }
+        }
+    }
+
+    /**
+     * Test that the best result is the first fully evaluated one with the
+     * highest accuracy, and that early stopped results are never selected.
+     */
+    @Test
+    public void testGetBestResult() {
+        List<GridSearchResult> results = new ArrayList<>();
+        results.add(new GridSearchResult(new String[] {"-C", "0.1"},
+                40, 60, 5, 5, 0));
+        results.add(new GridSearchResult(new String[] {"-C", "1"},
+                50, 60, 5, 5, 0));
+        results.add(new GridSearchResult(new String[] {"-C", "10"},
+                50, 60, 5, 5, 0));
+        results.add(new GridSearchResult(new String[] {"-C", "100"},
+                12, 12, 1, 5, 0));
+        GridSearchResult best = SVMGridSearch.getBestResult(results);
+        assertArrayEquals(new String[] {"-C", "1"}, best.getOptions());
+        assertNull(SVMGridSearch.getBestResult(
+                results.subList(3, 4)));
+    }
+
+    /**
+     * Test that a search with early stopping selects the same grid point
+     * as evaluating every point in full, both in parallel and with a
+     * single thread.
+     */
+    @Test
+    public void testEarlyStoppingSelectsFullEvaluationBest()
+            throws Exception {
+        SVMGridSearch search = createSearch();
+        search.addParameter("-G", G_VALUES);
+        search.addParameter("-C", C_VALUES);
+        List<String[]> points = search.getGridPoints();
+        List<GridSearchResult> full = new ArrayList<>();
+        for(String[] point : points) {
+            // a single point is never stopped early
+            SVMGridSearch single = createSearch();
+            single.addParameter(point[0], point[1]);
+            single.addParameter(point[2], point[3]);
+            List<GridSearchResult> result = single.search(executor);
+            assertFalse(result.get(0).isStoppedEarly());
+            full.add(result.get(0));
+        }
+        GridSearchResult expected = SVMGridSearch.getBestResult(full);
+        ExecutorService sequential = Executors.newSingleThreadExecutor();
+        try {
+            List<GridSearchResult> parallel = search.search(executor);
+            List<GridSearchResult> ordered = search.search(sequential);
+            for(List<GridSearchResult> results : Arrays.asList(parallel,
+                    ordered)) {
+                assertEquals(points.size(), results.size());
+                GridSearchResult best = SVMGridSearch.getBestResult(results);
+                assertArrayEquals(expected.getOptions(), best.getOptions());
+                assertEquals(expected.getAccuracy(), best.getAccuracy(),
+                        0.0);
+                for(int i = 0; i < results.size(); i++) {
+                    assertArrayEquals(points.get(i),
+                            results.get(i).getOptions());
+                    if(!results.get(i).isStoppedEarly()) {
+                        assertEquals(full.get(i).getAccuracy(),
+                                results.get(i).getAccuracy(), 0.0);
+                    }
+                }
+            }
+            // in grid order the weak points always stop early
+            boolean stopped = false;
+            for(GridSearchResult result : ordered) {
+                stopped |= result.isStoppedEarly();
+            }
+            assertTrue(stopped);
+        } finally {
+            sequential.shutdown();
+        }
+    }
+
+    /**
+     * Test that a search can't have more folds than Instance objects.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyFolds() {
+        new SVMGridSearch(new Instances(data, 0, 3), 5, 1L);
+    }
+
+    private SVMGridSearch createSearch() {
+        SVMGridSearch search = new SVMGridSearch(data, 5, 1L);
+        search.setBaseOptions(new String[] {"-K", "2"});
+        return search;
+    }
+
+}
@@ -0,0 +1,163 @@
+package org.relationlearn.filters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.BeforeClass;
+import org.relationlearn.util.AnalyzedText;
+import org.relationlearn.util.TextUtils;
+import org.relationlearn.util.TokenDictionary;
+
+/**
+ * Tests for the CommonWordsFilter class.
+ */
+public class CommonWordsFilterTest {
+    
+    private static final String[] VOCABULARY = { "guns", "Guns", "are", 
+        "bad", "the", "THE", "world", "is", "not", "I", "disagree", 
+        "however", "a", "b", "c", "x_1", "42" };
+    
+    private static final String[] SEPARATORS = { " ", "  ", ", ", ". ", 
+        "! ", "?", "\n", " - " };
+    
+    private static CommonWordsFilter filter;
+    
+    @BeforeClass
+    public static void setUp() {
+        filter = new CommonWordsFilter();
+    }
+    
+    /*
+     * Original implementation of the filter, used as reference.
+     */
+    private static double referenceRatio(String r, String h) {
+        List<String> rlst = new ArrayList<>(Arrays.asList(lowerCase(r)));
+        List<String> hlst = new ArrayList<>(Arrays.asList(lowerCase(h)));
+        int totalWords = 0, commonWords = 0;
+        String word;
+        for(int i = 0; i < rlst.size(); i++) {
+            word = rlst.get(i);
+            if(hlst.contains(word)) {
+                i--;
+                commonWords++;
+                totalWords++;
+                while(rlst.remove(word)){}
+                while(hlst.remove(word)){}
+            }
+        }
+        totalWords += (rlst.size() + hlst.size());
+        if(totalWords > 0) {
+            return ((double) commonWords / (double) totalWords);
+        } else {
+            return 0.0;
+        }
+    }
+    
+    private static String[] lowerCase(String text) {
+        String[] words = TextUtils.getWordsFromText(text);
+        for(int i = 0; i < words.length; i++) {
+            words[i] = words[i].toLowerCase(Locale.ENGLISH);
+        }
+        return words;
+    }
+    
+    private static String randomText(Random random, int maxWords) {
+        return randomText(random, maxWords, VOCABULARY);
+    }
+    
+    private static String randomText(Random random, int maxWords, 
+            String[] vocabulary) {
+        StringBuilder sb = new StringBuilder();
+        int words = random.nextInt(maxWords + 1);
+        for(int i = 0; i < words; i++) {
+            sb.append(vocabulary[random.nextInt(vocabulary.length)]);
+            sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test of filter method with empty texts, of class CommonWordsFilter.
+     */
+    @Test
+    public void testFilterEmptyTexts() {
+        assertEquals(0.0, filter.filter("", ""), 0.0);
+    }
+    
+    /**
+     * Test of filter method with a known pair, of class CommonWordsFilter.
+     */
+    @Test
+    public void testFilterKnownPair() {
+        // common: {the, world}, only in r: {hello, end, end}, only in h: {big}
+        double result = filter.filter("Hello the world, the end end", 
+                "THE world big");
+        assertEquals(2.0 / 6.0, result, 0.0);
+    }
+    
+    /**
+     * Test of filter method against the reference implementation using
+     * randomized texts, of class CommonWordsFilter.
+     */
+    @Test
+    public void testFilterMatchesReferenceOnRandomTexts() {
+        Random random = new Random(20150601L);
+        for(int i = 0; i < 2000; i++) {
+            String r = randomText(random, 40);
+            String h = randomText(random, 40);
+            assertEquals("Pair: [" + r + "] [" + h + "]", 
+                    referenceRatio(r, h), filter.filter(r, h), 0.0);
+        }
+    }
+    
+    /**
+     * Test of filter method against the reference implementation once the
+     * shared dictionary is full, with words registered after some of the
+     * texts were analyzed, of class CommonWordsFilter.
+     */
+    @Test
+    public void testFilterWithFullDictionary() {
+        TokenDictionary dictionary = TokenDictionary.getSharedDictionary();
+        for(int i = 0; dictionary.getId("filler-" + i) 
+                != TokenDictionary.UNKNOWN_ID; i++) {
+            // fills the dictionary
+        }
+        String[] unseen = { "qzxalpha", "Qzxbeta", "QZXGAMMA", "qzxdelta" };
+        String[] vocabulary = Arrays.copyOf(VOCABULARY, 
+                VOCABULARY.length + unseen.length);
+        System.arraycopy(unseen, 0, vocabulary, VOCABULARY.length, 
+                unseen.length);
+        Random random = new Random(20150602L);
+        AnalyzedText early = new AnalyzedText("Qzxalpha qzxepsilon");
+        filter.filter(early, early);
+        List<AnalyzedText> before = new ArrayList<>();
+        for(int i = 0; i < 200; i++) {
+            AnalyzedText text = new AnalyzedText(
+                    randomText(random, 20, vocabulary));
+            // caches the sorted words while the words are unknown
+            filter.filter(text, text);
+            before.add(text);
+        }
+        assertEquals(TokenDictionary.UNKNOWN_ID, 
+                dictionary.getId("qzxalpha"));
+        dictionary.register("qzxalpha");
+        dictionary.register("QZXGAMMA");
+        for(AnalyzedText r : before) {
+            AnalyzedText h = new AnalyzedText(
+                    randomText(random, 20, vocabulary));
+            assertEquals("Pair: [" + r.getText() + "] [" + h.getText() 
+                    + "]", referenceRatio(r.getText(), h.getText()), 
+                    filter.filter(r, h), 0.0);
+            assertEquals(referenceRatio(h.getText(), r.getText()), 
+                    filter.filter(h, r), 0.0);
+        }
+        // qzxalpha has an identifier only in the second text
+        assertEquals(1.0, filter.filter(early, 
+                new AnalyzedText("QZXALPHA qzxepsilon")), 0.0);
+    }
+    
+}
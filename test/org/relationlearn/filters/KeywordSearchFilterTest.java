@@ -0,0 +1,86 @@
+package org.relationlearn.filters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.util.AnalyzedText;
+
+/**
+ * Tests for the KeywordSearchFilter class.
+ */
+public class KeywordSearchFilterTest {
+
+    // overlapping keywords, and keywords that are prefixes or suffixes of
+    // other ones
+    private static final List<String> KEYWORDS = Arrays.asList("however",
+            "how", "ever", "he", "her", "hers", "she", "his", "is", "i",
+            "agree", "disagree", "aa", "aaa", "no", "not", "no,", " but");
+
+    private static final String[] VOCABULARY = { "however", "How", "ever",
+        "whenever", "she", "hers", "ushers", "his", "this", "I", "i",
+        "agree", "disagree", "aaaa", "a", "no", "not", "nothing", "but",
+        "butter", "é", "" };
+
+    private static final String[] SEPARATORS = { " ", "  ", ", ", ". ",
+        "", "\n", "-" };
+
+    private static String randomText(Random random, int maxWords) {
+        StringBuilder sb = new StringBuilder();
+        int words = random.nextInt(maxWords + 1);
+        for(int i = 0; i < words; i++) {
+            sb.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test of filter method against one WordSearchFilter per keyword using
+     * randomized texts, of class KeywordSearchFilter.
+     */
+    @Test
+    public void testFilterMatchesWordSearchFilters() {
+        KeywordSearchFilter filter = new KeywordSearchFilter("cue-",
+                KEYWORDS);
+        List<WordSearchFilter> references = new ArrayList<>();
+        for(String keyword : KEYWORDS) {
+            references.add(new WordSearchFilter("cue-" + keyword, keyword));
+        }
+        assertEquals(KEYWORDS.size(), filter.getMappedAttributes().size());
+        Random random = new Random(20150604L);
+        for(int i = 0; i < 2000; i++) {
+            String r = randomText(random, 12);
+            String h = randomText(random, 12);
+            double[] result = filter.filter(r, h);
+            double[] cached = filter.filter(new AnalyzedText(r),
+                    new AnalyzedText(h));
+            assertEquals(references.size(), result.length);
+            for(int k = 0; k < references.size(); k++) {
+                double expected = references.get(k).filter(r, h);
+                String message = "Keyword [" + KEYWORDS.get(k) + "] pair: ["
+                        + r + "] [" + h + "]";
+                assertEquals(message, expected, result[k], 0.0);
+                assertEquals(message, expected, cached[k], 0.0);
+            }
+        }
+    }
+
+    /**
+     * Test of filter method with missing texts, of class
+     * KeywordSearchFilter.
+     */
+    @Test
+    public void testFilterNullText() {
+        KeywordSearchFilter filter = new KeywordSearchFilter("cue-",
+                KEYWORDS);
+        WordSearchFilter reference = new WordSearchFilter("however");
+        double[] result = filter.filter(null, "however");
+        for(double value : result) {
+            assertEquals(reference.filter(null, "however"), value, 0.0);
+        }
+    }
+
+}
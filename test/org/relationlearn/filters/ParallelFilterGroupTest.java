@@ -0,0 +1,135 @@
+package org.relationlearn.filters;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.util.AnalyzedText;
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+
+/**
+ * Tests for the ParallelFilterGroup class.
+ */
+public class ParallelFilterGroupTest {
+
+    private static final String[] VOCABULARY = { "however", "I", "agree",
+        "disagree", "but", "guns", "are", "bad", "the", "The", "world",
+        "because", "so", "not", "x_1", "42", "é" };
+
+    private static final String[] SEPARATORS = { " ", ", ", ". ", "! ",
+        "? ", "; ", ": ", "\n", " - ", "... " };
+
+    private File config;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        config = File.createTempFile("parallel-filter-config", ".xml");
+        String classpath = new File(".").toURI().toString();
+        // the ids are not in file order, so the Attribute order is given
+        // by the sorting of the group and not by the parsing
+        String[][] filters = {
+            {"4", "PunctuationClassFilter"},
+            {"1", "WordRatioFilter"},
+            {"3", "KeywordSearchFilter", "cue-", "however,agree,but,so,not"},
+            {"2", "CommonWordsFilter"},
+            {"6", "PunctuationCounterFilter"},
+            {"5", "KeywordSearchFilter", "key-", "guns,world,the"}};
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(config), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<filters>\n");
+            for(String[] filter : filters) {
+                writer.write("<filter id=\"" + filter[0]
+                        + "\" local=\"no\" classpath=\"" + classpath
+                        + "\">\n");
+                writer.write("  org.relationlearn.filters." + filter[1]
+                        + "\n");
+                if(filter.length > 2) {
+                    writer.write("  <filter_params>\n");
+                    for(int i = 2; i < filter.length; i++) {
+                        writer.write("    <param>" + filter[i]
+                                + "</param>\n");
+                    }
+                    writer.write("  </filter_params>\n");
+                }
+                writer.write("</filter>\n");
+            }
+            writer.write("</filters>\n");
+        }
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        config.delete();
+    }
+
+    private static String randomText(Random random, int maxWords) {
+        StringBuilder sb = new StringBuilder();
+        int words = random.nextInt(maxWords + 1);
+        for(int i = 0; i < words; i++) {
+            sb.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test that the Instance objects created by a ParallelFilterGroup have
+     * the same Attribute objects, in the same order, and the same values as
+     * the ones created by a SequentialFilterGroup loaded from the same
+     * configuration file, with both the default and a given executor.
+     */
+    @Test
+    public void testCreateInstanceMatchesSequential() {
+        SequentialFilterGroup sequential =
+                new SequentialFilterGroup("test-dataset", config);
+        ParallelFilterGroup[] groups = {
+            new ParallelFilterGroup("test-dataset", config),
+            new ParallelFilterGroup("test-dataset", config, executor)};
+        FastVector expected = sequential.getGroupAttributes();
+        assertEquals(15, expected.size());
+        assertEquals("word-ratio", ((Attribute) expected.elementAt(0)).name());
+        for(ParallelFilterGroup group : groups) {
+            FastVector result = group.getGroupAttributes();
+            assertEquals(expected.size(), result.size());
+            for(int i = 0; i < expected.size(); i++) {
+                assertEquals(((Attribute) expected.elementAt(i)).name(),
+                        ((Attribute) result.elementAt(i)).name());
+            }
+        }
+        Random random = new Random(20150605L);
+        for(int i = 0; i < 500; i++) {
+            String r = randomText(random, 20);
+            String h = randomText(random, 20);
+            Instance reference = sequential.createInstanceUsingFilters(r, h);
+            for(ParallelFilterGroup group : groups) {
+                Instance instance = group.createInstanceUsingFilters(
+                        new AnalyzedText(r), new AnalyzedText(h));
+                assertEquals(reference.numAttributes(),
+                        instance.numAttributes());
+                for(int a = 0; a < reference.numAttributes(); a++) {
+                    assertEquals(reference.attribute(a).name(),
+                            instance.attribute(a).name());
+                    assertEquals("Pair: [" + r + "] [" + h + "] attribute "
+                            + reference.attribute(a).name(),
+                            reference.value(a), instance.value(a), 0.0);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.relationlearn.filters;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.util.AnalyzedText;
+
+/**
+ * Tests for the PunctuationClassFilter class.
+ */
+public class PunctuationClassFilterTest {
+
+    // ASCII and non ASCII characters, characters above and below the ones
+    // of the classes, and a surrogate pair
+    private static final String CLASSES = "! ?¿ …· \"“”«» ;:!ÿ 中� "
+            + "😀";
+
+    private static final String[] CHARACTERS = { "a", " ", "!", "?", "¿",
+        "…", "·", "\"", "“", "”", "«", "»", ";", ":", "ÿ", "þ",
+        "中", "文", "�", "￿", "\u0000", "\u007f", "\u0080",
+        "😀", "😁", "é", ".", "'", "\n" };
+
+    /*
+     * Per character counting of the texts, used as reference. Characters
+     * of several classes are counted in the first one, like CharacterSet
+     * does.
+     */
+    private static double[] referenceCounts(String[] classes, String r,
+            String h) {
+        double[] values = new double[classes.length];
+        StringBuilder seen = new StringBuilder();
+        for(int i = 0; i < classes.length; i++) {
+            for(int j = 0; j < classes[i].length(); j++) {
+                char c = classes[i].charAt(j);
+                if(seen.indexOf(String.valueOf(c)) < 0) {
+                    seen.append(c);
+                    values[i] += new AnalyzedText(r).getCharacterCount(c)
+                            + new AnalyzedText(h).getCharacterCount(c);
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String randomText(Random random, int maxCharacters) {
+        StringBuilder sb = new StringBuilder();
+        int characters = random.nextInt(maxCharacters + 1);
+        for(int i = 0; i < characters; i++) {
+            sb.append(CHARACTERS[random.nextInt(CHARACTERS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test of filter method with a known pair and the default classes, of
+     * class PunctuationClassFilter.
+     */
+    @Test
+    public void testFilterKnownPair() {
+        PunctuationClassFilter filter = new PunctuationClassFilter();
+        assertEquals(4, filter.getMappedAttributes().size());
+        double[] result = filter.filter("What?! No way!!",
+                "«Really…» he said? \"Yes\"");
+        assertArrayEquals(new double[] {3, 2, 1, 4}, result, 0.0);
+        assertArrayEquals(new double[] {0, 0, 0, 0}, filter.filter(
+                new AnalyzedText(null), new AnalyzedText(null)), 0.0);
+    }
+
+    /**
+     * Test of filter method against the per character counting using
+     * randomized texts, of class PunctuationClassFilter.
+     */
+    @Test
+    public void testFilterMatchesReferenceOnRandomTexts() {
+        PunctuationClassFilter filter = new PunctuationClassFilter("p-",
+                CLASSES);
+        String[] classes = CLASSES.split(" ");
+        assertEquals(classes.length, filter.getMappedAttributes().size());
+        Random random = new Random(20150607L);
+        for(int i = 0; i < 2000; i++) {
+            String r = randomText(random, 30);
+            String h = randomText(random, 30);
+            double[] expected = referenceCounts(classes, r, h);
+            assertArrayEquals("Pair: [" + r + "] [" + h + "]", expected,
+                    filter.filter(r, h), 0.0);
+            AnalyzedText rtext = new AnalyzedText(r);
+            AnalyzedText htext = new AnalyzedText(h);
+            // the second call uses the cached counts of each text
+            filter.filter(rtext, htext);
+            assertArrayEquals(expected, filter.filter(rtext, htext), 0.0);
+            assertArrayEquals(expected, filter.filter(htext, rtext), 0.0);
+        }
+    }
+
+}
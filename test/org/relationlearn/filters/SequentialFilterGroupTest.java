@@ -1,5 +1,11 @@
 package org.relationlearn.filters;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.junit.BeforeClass;
@@ -7,6 +13,7 @@ import weka.core.Attribute;
 import weka.core.FastVector;
 import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.SparseInstance;
 
 /**
  *
@@ -83,5 +90,118 @@ public class SequentialFilterGroupTest {
         Instance result = instance.createInstanceUsingFilters(str, str);
         assertTrue( ins.attribute(0).equals(result.attribute(0))
                 & (ins.value(0) == result.value(0)));         
-    } 
+    }
+    
+    /**
+     * Test that the Instance objects generated with every InstanceFormat 
+     * have the same values, that a wide group of keywords generates
+     * SparseInstance objects with the format AUTO, even for mostly non zero
+     * values, and that the default format is DENSE, of class 
+     * SequentialFilterGroup.
+     */
+    @Test
+    public void testInstanceFormat() {
+        StringBuilder keywords = new StringBuilder();
+        for(int i = 0; i < 200; i++) {
+            keywords.append(i > 0 ? "," : "").append("word").append(i);
+        }
+        SequentialFilterGroup instance = new SequentialFilterGroup();
+        instance.addFilter(new KeywordSearchFilter(keywords.toString()));
+        String r = "word3 and word150";
+        String h = "word42";
+        instance.setInstanceFormat(InstanceFormat.DENSE);
+        Instance dense = instance.createInstanceUsingFilters(r, h);
+        instance.setInstanceFormat(InstanceFormat.AUTO);
+        Instance auto = instance.createInstanceUsingFilters(r, h);
+        instance.setInstanceFormat(InstanceFormat.SPARSE);
+        Instance sparse = instance.createInstanceUsingFilters(r, h);
+        assertFalse(dense instanceof SparseInstance);
+        assertTrue(auto instanceof SparseInstance);
+        assertTrue(sparse instanceof SparseInstance);
+        assertTrue(auto.numValues() < dense.numValues() / 2);
+        for(int i = 0; i < dense.numAttributes(); i++) {
+            assertEquals(dense.value(i), auto.value(i), 0.0);
+            assertEquals(dense.value(i), sparse.value(i), 0.0);
+        }
+        instance.setInstanceFormat(InstanceFormat.AUTO);
+        String all = keywords.toString().replace(',', ' ');
+        assertTrue(instance.createInstanceUsingFilters(all, all) 
+                instanceof SparseInstance);
+        SequentialFilterGroup narrow = new SequentialFilterGroup();
+        narrow.addFilter(new KeywordSearchFilter("word3,word42"));
+        narrow.setInstanceFormat(InstanceFormat.AUTO);
+        assertFalse(narrow.createInstanceUsingFilters(r, h) 
+                instanceof SparseInstance);
+        if(System.getProperty(InstanceFormat.FORMAT_PROPERTY) == null) {
+            assertEquals(InstanceFormat.DENSE, InstanceFormat.getDefault());
+            assertEquals(InstanceFormat.DENSE, 
+                    new SequentialFilterGroup().getInstanceFormat());
+        }
+    }
+    
+    /**
+     * Test that repeated keywords are mapped to a single Attribute, of class
+     * SequentialFilterGroup.
+     */
+    @Test
+    public void testRepeatedKeywords() {
+        SequentialFilterGroup instance = new SequentialFilterGroup();
+        instance.addFilter(new KeywordSearchFilter("because, so,because,so"));
+        FastVector result = instance.getGroupAttributes();
+        assertEquals(2, result.size());
+        Instance ins = instance.createInstanceUsingFilters("because", "so");
+        assertEquals(2, ins.numAttributes());
+        assertNotEquals(((Attribute) result.elementAt(0)).name(),
+                ((Attribute) result.elementAt(1)).name());
+    }
+    
+    /**
+     * Test of the configuration file loading with a filter without 
+     * parameters and a filter with long, entity-heavy parameters, of class
+     * SequentialFilterGroup.
+     */
+    @Test
+    public void testLoadFiltersFromFile() throws IOException {
+        StringBuilder escaped = new StringBuilder();
+        StringBuilder decoded = new StringBuilder();
+        for(int i = 0; i < 500; i++) {
+            escaped.append(i > 0 ? "," : "").append("a&amp;b&lt;").append(i);
+            decoded.append(i > 0 ? "," : "").append("a&b<").append(i);
+        }
+        File config = File.createTempFile("filter-config", ".xml");
+        String classpath = new File(".").toURI().toString();
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(config), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<filters>\n");
+            writer.write("<filter id=\"2\" local=\"no\" classpath=\"" 
+                    + classpath + "\">\n");
+            writer.write("  org.relationlearn.filters.KeywordSearchFilter\n");
+            writer.write("  <filter_params>\n");
+            writer.write("    <param>k&amp;-</param>\n");
+            writer.write("    <param>" + escaped + "</param>\n");
+            writer.write("  </filter_params>\n");
+            writer.write("</filter>\n");
+            writer.write("<filter id=\"1\" local=\"no\" classpath=\"" 
+                    + classpath + "\">\n");
+            writer.write("  org.relationlearn.filters.WordRatioFilter\n");
+            writer.write("</filter>\n");
+            writer.write("</filters>\n");
+        }
+        SequentialFilterGroup instance;
+        try {
+            instance = new SequentialFilterGroup("test-dataset", config);
+        } finally {
+            config.delete();
+        }
+        FastVector result = instance.getGroupAttributes();
+        String[] keywords = decoded.toString().split(",");
+        assertEquals(keywords.length + 1, result.size());
+        assertEquals("word-ratio", ((Attribute) result.elementAt(0)).name());
+        for(int i = 0; i < keywords.length; i++) {
+            assertEquals("k&-" + keywords[i], 
+                    ((Attribute) result.elementAt(i + 1)).name());
+        }
+    }
+    
 }
@@ -0,0 +1,91 @@
+package org.relationlearn.filters;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.util.AnalyzedText;
+import org.relationlearn.util.TextUtils;
+
+/**
+ * Tests for the WordOcurrenceFilter class.
+ */
+public class WordOcurrenceFilterTest {
+
+    private static final List<String> LEXICON = Arrays.asList("guns",
+            "Guns", "the", "world", "the", "THE", "absent", "absent", "x_1",
+            "42", "the");
+
+    private static final String[] VOCABULARY = { "guns", "Guns", "GUNS",
+        "are", "bad", "the", "The", "THE", "world", "World", "is", "not",
+        "x_1", "x", "42", "4", "absentee" };
+
+    private static final String[] SEPARATORS = { " ", "  ", ", ", ". ",
+        "! ", "?", "\n", " - " };
+
+    /*
+     * Original implementation of the filter, used as reference.
+     */
+    private static double referenceRatio(List<String> words, String r,
+            String h) {
+        List<String> rlst = Arrays.asList(TextUtils.getWordsFromText(r));
+        List<String> hlst = Arrays.asList(TextUtils.getWordsFromText(h));
+        int foundWords = 0, totalWords = words.size();
+        for(String word : words) {
+            if(rlst.contains(word) || hlst.contains(word)) {
+                foundWords++;
+            }
+        }
+        return ((double) foundWords / (double) totalWords);
+    }
+
+    private static String randomText(Random random, int maxWords) {
+        StringBuilder sb = new StringBuilder();
+        int words = random.nextInt(maxWords + 1);
+        for(int i = 0; i < words; i++) {
+            sb.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test of filter method with a known pair, of class
+     * WordOcurrenceFilter. Repeated words of the list are counted as many
+     * times as they appear, and words are matched with their case.
+     */
+    @Test
+    public void testFilterKnownPair() {
+        WordOcurrenceFilter filter = new WordOcurrenceFilter("test", LEXICON);
+        // found: {Guns, the, the, the, world}, not found: {guns, THE, ...}
+        assertEquals(5.0 / 11.0, filter.filter("Guns and the",
+                "The world"), 0.0);
+        assertEquals(0.0, filter.filter("", ""), 0.0);
+    }
+
+    /**
+     * Test of filter method against the reference implementation using
+     * randomized texts, of class WordOcurrenceFilter.
+     */
+    @Test
+    public void testFilterMatchesReferenceOnRandomTexts() {
+        WordOcurrenceFilter filter = new WordOcurrenceFilter("test", LEXICON);
+        Random random = new Random(20150603L);
+        for(int i = 0; i < 2000; i++) {
+            String r = randomText(random, 20);
+            String h = randomText(random, 20);
+            double expected = referenceRatio(LEXICON, r, h);
+            assertEquals("Pair: [" + r + "] [" + h + "]", expected,
+                    filter.filter(r, h), 0.0);
+            // the cached results of each text give the same ratio
+            AnalyzedText rtext = new AnalyzedText(r);
+            AnalyzedText htext = new AnalyzedText(h);
+            assertEquals(expected, filter.filter(rtext, htext), 0.0);
+            assertEquals(expected, filter.filter(htext, rtext), 0.0);
+            assertEquals(referenceRatio(LEXICON, r, r),
+                    filter.filter(rtext, rtext), 0.0);
+        }
+    }
+
+}
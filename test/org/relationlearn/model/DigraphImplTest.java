@@ -0,0 +1,64 @@
+package org.relationlearn.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.util.RelationType;
+
+/**
+ * Tests for the DigraphImpl class.
+ */
+public class DigraphImplTest {
+
+    /**
+     * Test that a graph only traverses the tree of its first root by
+     * default, and every tree in increasing order of their root ids when
+     * constructed to traverse all of them, in both cases in postorder.
+     */
+    @Test
+    public void testIterator() throws Exception {
+        DigraphImpl single = new DigraphImpl();
+        DigraphImpl all = new DigraphImpl(true);
+        for(DigraphImpl graph : new DigraphImpl[] {single, all}) {
+            assertFalse(graph.iterator().hasNext());
+            // {response id, target id}, the trees of roots 10 and 1
+            int[][] pairs = {{11, 10}, {2, 1}, {3, 1}, {4, 2}};
+            for(int[] pair : pairs) {
+                addPair(graph, pair[0], pair[1]);
+            }
+        }
+        assertEquals(Arrays.asList(4, 2, 3, 1), getIds(single));
+        assertEquals(Arrays.asList(4, 2, 3, 1, 11, 10), getIds(all));
+        addPair(all, 5, 3);
+        assertEquals(Arrays.asList(4, 2, 5, 3, 1, 11, 10), getIds(all));
+    }
+
+    private void addPair(DigraphImpl graph, int responseId, int targetId)
+            throws Exception {
+        ArgumentNode response = graph.getArgumentNode(responseId);
+        if(response == null) {
+            response = new NodeImpl(responseId, 1, "text " + responseId);
+            graph.addArgumentNode(response);
+        }
+        ArgumentNode target = graph.getArgumentNode(targetId);
+        if(target == null) {
+            target = new NodeImpl(targetId, 1, "text " + targetId);
+            graph.addArgumentNode(target);
+        }
+        ArgumentRelation relation = new RelationImpl(responseId, response,
+                target, RelationType.SUPPORT);
+        response.addTargetRelation(relation);
+        target.addReplyRelation(relation);
+    }
+
+    private List<Integer> getIds(DigraphImpl graph) {
+        List<Integer> ids = new ArrayList<>();
+        for(ArgumentNode node : graph) {
+            ids.add(node.getNodeId());
+        }
+        return ids;
+    }
+
+}
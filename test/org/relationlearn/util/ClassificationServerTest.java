@@ -0,0 +1,185 @@
+package org.relationlearn.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.classifiers.SVMClassifier;
+import org.relationlearn.filters.SequentialFilterGroup;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Tests for the ClassificationServer class.
+ */
+public class ClassificationServerTest {
+
+    private static final String TOPIC = "test-topic";
+
+    private static final String[][] PAIRS = {
+        {"I agree, this is true", "Cars are fast", "SUPPORT"},
+        {"Yes, because they are fast", "Cars are useful", "SUPPORT"},
+        {"So it is true", "Trains are fast", "SUPPORT"},
+        {"However, that is wrong", "Cars are safe", "ATTACK"},
+        {"No, but they pollute", "Cars are clean", "ATTACK"},
+        {"However, trains are late", "Trains are useful", "ATTACK"},
+    };
+
+    private File directory;
+    private String prefix;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("classification-server", "");
+        directory.delete();
+        directory.mkdir();
+        prefix = directory.getAbsolutePath() + File.separator;
+    }
+
+    @After
+    public void tearDown() {
+        for(File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    /**
+     * Test that decoding an encoded field returns the original text, for
+     * texts with tabs, backslashes and line breaks.
+     */
+    @Test
+    public void testEncodeFieldRoundTrip() {
+        String[] texts = {"", "plain text", "a\tb", "line\nbreak\r\n",
+            "back\\slash", "trailing\\", "\\t is not a tab", "\\\\\t\\",
+            "\t\r\n\\"};
+        for(String text : texts) {
+            String encoded = ClassificationServer.encodeField(text);
+            assertEquals(-1, encoded.indexOf('\t'));
+            assertEquals(-1, encoded.indexOf('\n'));
+            assertEquals(-1, encoded.indexOf('\r'));
+            assertEquals(text, ClassificationServer.decodeField(encoded));
+        }
+        assertEquals("", ClassificationServer.encodeField(null));
+        assertEquals("trailing\\\\",
+                ClassificationServer.encodeField("trailing\\"));
+    }
+
+    /**
+     * Test that a field ending in a single backslash is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeFieldTrailingBackslash() {
+        ClassificationServer.decodeField("trailing\\");
+    }
+
+    /**
+     * Test that a field with an unknown escape sequence is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeFieldUnknownEscape() {
+        ClassificationServer.decodeField("unknown \\x escape");
+    }
+
+    /**
+     * Test that jobs with a wrong amount of fields, an unknown topic or a
+     * wrongly encoded field are answered with an error.
+     */
+    @Test
+    public void testHandleJobErrors() {
+        ClassificationServer server = new ClassificationServer(prefix,
+                prefix, 1);
+        String answer = server.handleJob("topic\tresponse");
+        assertTrue(answer.startsWith(ClassificationServer.ERROR_PREFIX));
+        assertTrue(answer.contains("found 2"));
+        answer = server.handleJob("topic\tresponse\ttarget\textra");
+        assertTrue(answer.startsWith(ClassificationServer.ERROR_PREFIX));
+        assertTrue(answer.contains("found 4"));
+        answer = server.handleJob("missing\tresponse\ttarget");
+        assertTrue(answer.startsWith(ClassificationServer.ERROR_PREFIX));
+        assertTrue(answer.contains("missing"));
+        answer = server.handleJob("topic\tresponse\\\ttarget");
+        assertTrue(answer.startsWith(ClassificationServer.ERROR_PREFIX));
+    }
+
+    /**
+     * Test that every job served gets the same answer as classifying its
+     * decoded fields, in the same order the jobs were read.
+     */
+    @Test
+    public void testServe() throws Exception {
+        writeTopic();
+        ClassificationServer server = new ClassificationServer(prefix,
+                prefix, 2);
+        StringBuilder jobs = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for(String[] pair : PAIRS) {
+            String response = pair[0] + "\n\tsaid\\so";
+            jobs.append(TOPIC).append(ClassificationServer.FIELD_SEPARATOR)
+                    .append(ClassificationServer.encodeField(response))
+                    .append(ClassificationServer.FIELD_SEPARATOR)
+                    .append(ClassificationServer.encodeField(pair[1]))
+                    .append('\n');
+            expected.append(server.classify(TOPIC, response, pair[1]))
+                    .append('\n');
+        }
+        jobs.append("missing\ta\tb\n");
+        StringWriter out = new StringWriter();
+        server.serve(new BufferedReader(new StringReader(jobs.toString())),
+                out);
+        String[] answers = out.toString().split("\n");
+        assertEquals(PAIRS.length + 1, answers.length);
+        assertEquals(expected.toString(), out.toString().substring(0,
+                expected.length()));
+        assertTrue(answers[PAIRS.length].startsWith(
+                ClassificationServer.ERROR_PREFIX));
+        assertEquals(1, server.getModelRegistry().getModelCount());
+    }
+
+    private void writeTopic() throws Exception {
+        File config = new File(prefix + TOPIC + ".xml");
+        String classpath = new File(".").toURI().toString();
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(config), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<filters>\n");
+            writer.write("<filter id=\"1\" local=\"no\" classpath=\""
+                    + classpath + "\">\n");
+            writer.write("  org.relationlearn.filters.WordRatioFilter\n");
+            writer.write("</filter>\n");
+            writer.write("<filter id=\"2\" local=\"no\" classpath=\""
+                    + classpath + "\">\n");
+            writer.write("  org.relationlearn.filters.KeywordSearchFilter\n");
+            writer.write("  <filter_params>\n");
+            writer.write("    <param>cue-</param>\n");
+            writer.write("    <param>however,but,no,yes,so,agree</param>\n");
+            writer.write("  </filter_params>\n");
+            writer.write("</filter>\n");
+            writer.write("</filters>\n");
+        }
+        SequentialFilterGroup filters = new SequentialFilterGroup(TOPIC,
+                config);
+        filters.addClassAttribute(null);
+        Instances data = filters.getGroupDataset();
+        for(String[] pair : PAIRS) {
+            Instance instance = filters.createInstanceUsingFilters(pair[0],
+                    pair[1]);
+            instance.setDataset(data);
+            instance.setClassValue(pair[2]);
+            data.add(instance);
+        }
+        SVMClassifier classifier = new SVMClassifier();
+        classifier.trainClassifier(data);
+        classifier.storeLeanModel(prefix + TOPIC + ".model");
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.relationlearn.util;
+
+import java.io.File;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.filters.CommonWordsFilter;
+import org.relationlearn.filters.FilterGroup;
+import org.relationlearn.filters.InstanceFormat;
+import org.relationlearn.filters.PunctuationCounterFilter;
+import org.relationlearn.filters.SequentialFilterGroup;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.ArgumentRelation;
+import org.relationlearn.model.DigraphImpl;
+import org.relationlearn.model.NodeImpl;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.model.RelationImpl;
+import weka.core.Instances;
+
+/**
+ * Tests for the FeatureStore class.
+ */
+public class FeatureStoreTest {
+    
+    private File directory;
+    private RelationDigraph graph;
+    private FilterGroup filters;
+    
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("feature-store-test", "");
+        directory.delete();
+        graph = new DigraphImpl();
+        ArgumentNode root = new NodeImpl(1, 1, "We should ban cars!");
+        graph.addArgumentNode(root);
+        addReply(root, new NodeImpl(2, 1, "Cars are useful, however."), 
+                RelationType.ATTACK);
+        addReply(root, new NodeImpl(3, 2, "Yes, we should ban them!!"), 
+                RelationType.SUPPORT);
+        filters = new SequentialFilterGroup("cars");
+        filters.addFilter(new CommonWordsFilter());
+        filters.addFilter(new PunctuationCounterFilter());
+        filters.addClassAttribute(null);
+    }
+    
+    @After
+    public void tearDown() {
+        File[] entries = directory.listFiles();
+        if(entries != null) {
+            for(File entry : entries) {
+                entry.delete();
+            }
+        }
+        directory.delete();
+    }
+    
+    /**
+     * Test that stored Instances are loaded back with the same values.
+     */
+    @Test
+    public void testStoreAndLoad() {
+        FeatureStore store = new FeatureStore(directory, "config");
+        Instances generated = new InstanceGenerator(graph, filters, store)
+                .getGraphInstances();
+        String key = store.computeKey(graph, filters);
+        Instances loaded = store.load(key, filters.getGroupDataset());
+        assertNotNull(loaded);
+        assertEquals(generated.numInstances(), loaded.numInstances());
+        assertEquals(generated.classIndex(), loaded.classIndex());
+        for(int i = 0; i < generated.numInstances(); i++) {
+            assertTrue(Arrays.equals(generated.instance(i).toDoubleArray(), 
+                    loaded.instance(i).toDoubleArray()));
+        }
+    }
+    
+    /**
+     * Test that changes in the configuration, the InstanceFormat or the 
+     * graph change the key.
+     */
+    @Test
+    public void testKeyChanges() throws Exception {
+        FeatureStore store = new FeatureStore(directory, "config");
+        String key = store.computeKey(graph, filters);
+        assertEquals(key, store.computeKey(graph, filters));
+        assertFalse(key.equals(new FeatureStore(directory, "other-config")
+                .computeKey(graph, filters)));
+        String format = System.getProperty(InstanceFormat.FORMAT_PROPERTY);
+        try {
+            // the opposite of the format the store packs the Instances with
+            InstanceFormat current = InstanceFormat.getDefault().resolve(
+                    filters.getGroupDataset().numAttributes());
+            System.setProperty(InstanceFormat.FORMAT_PROPERTY, 
+                    current == InstanceFormat.DENSE ? "sparse" : "dense");
+            assertFalse(key.equals(new FeatureStore(directory, "config")
+                    .computeKey(graph, filters)));
+        } finally {
+            if(format == null) {
+                System.clearProperty(InstanceFormat.FORMAT_PROPERTY);
+            } else {
+                System.setProperty(InstanceFormat.FORMAT_PROPERTY, format);
+            }
+        }
+        addReply(graph.getArgumentNode(1), new NodeImpl(4, 1, "No way."), 
+                RelationType.ATTACK);
+        assertFalse(key.equals(store.computeKey(graph, filters)));
+        assertNull(store.load(store.computeKey(graph, filters), 
+                filters.getGroupDataset()));
+    }
+    
+    private void addReply(ArgumentNode target, ArgumentNode reply, 
+            RelationType type) throws Exception {
+        graph.addArgumentNode(reply);
+        ArgumentRelation relation = new RelationImpl(reply.getNodeId(), 
+                reply, target, type);
+        reply.addTargetRelation(relation);
+        target.addReplyRelation(relation);
+    }
+
+}
@@ -0,0 +1,168 @@
+package org.relationlearn.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.filters.CommonWordsFilter;
+import org.relationlearn.filters.FilterGroup;
+import org.relationlearn.filters.PunctuationCounterFilter;
+import org.relationlearn.filters.SequentialFilterGroup;
+import org.relationlearn.filters.TextFilter;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.ArgumentRelation;
+import org.relationlearn.model.DigraphImpl;
+import org.relationlearn.model.NodeImpl;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.model.RelationImpl;
+import weka.core.Attribute;
+import weka.core.Instances;
+
+/**
+ * Tests for the InstanceGenerator class.
+ */
+public class InstanceGeneratorTest {
+
+    private static final int NODES = 5 * InstanceGenerator.DEFAULT_CHUNK_SIZE
+            + 7;
+
+    private static final String[] VOCABULARY = { "we", "should", "ban",
+        "cars", "however", "yes", "no", "they", "are", "useful", "!", "?",
+        ",", "." };
+
+    /*
+     * Returns the node id written at the start of the response text, so
+     * the order of the Instance objects can be checked.
+     */
+    private static class NodeIdFilter implements TextFilter {
+
+        private final Attribute FILTER_ATTR = new Attribute("node-id");
+
+        @Override
+        public Attribute getMappedAttribute() {
+            return FILTER_ATTR;
+        }
+
+        @Override
+        public double filter(String r, String h) {
+            return Integer.parseInt(r.substring(0, r.indexOf(' ')));
+        }
+    }
+
+    private RelationDigraph graph;
+    private FilterGroup filters;
+
+    @Before
+    public void setUp() throws Exception {
+        // a single tree rooted at node 1, so every node is traversed
+        graph = new DigraphImpl();
+        Random random = new Random(20150606L);
+        graph.addArgumentNode(new NodeImpl(1, 1, "1 " + randomText(random)));
+        for(int id = 2; id <= NODES; id++) {
+            ArgumentNode reply = new NodeImpl(id, 1, id + " "
+                    + randomText(random));
+            ArgumentNode target = graph.getArgumentNode(
+                    1 + random.nextInt(id - 1));
+            graph.addArgumentNode(reply);
+            ArgumentRelation relation = new RelationImpl(id, reply, target,
+                    random.nextBoolean() ? RelationType.ATTACK
+                            : RelationType.SUPPORT);
+            reply.addTargetRelation(relation);
+            target.addReplyRelation(relation);
+        }
+        filters = new SequentialFilterGroup("generator");
+        filters.addFilter(new NodeIdFilter());
+        filters.addFilter(new CommonWordsFilter());
+        filters.addFilter(new PunctuationCounterFilter());
+        filters.addClassAttribute(null);
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int words = 1 + random.nextInt(15);
+        for(int i = 0; i < words; i++) {
+            sb.append(VOCABULARY[random.nextInt(VOCABULARY.length)])
+                    .append(' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Test that the Instances generated in parallel, for a graph with
+     * several chunks of argument pairs, are identical to the ones generated
+     * sequentially, and that both keep the postorder of the graph.
+     */
+    @Test
+    public void testParallelMatchesSequential() {
+        Instances sequential = new InstanceGenerator(graph, filters)
+                .getGraphInstances();
+        List<Integer> expected = new ArrayList<>();
+        for(ArgumentNode node : graph) {
+            if(node.getTargetRelation() != null) {
+                expected.add(node.getNodeId());
+            }
+        }
+        assertEquals(NODES - 1, expected.size());
+        assertEquals(expected, getNodeIds(sequential));
+        assertPostorder(getNodeIds(sequential));
+        int[][] configurations = {{1, InstanceGenerator.DEFAULT_CHUNK_SIZE},
+            {4, InstanceGenerator.DEFAULT_CHUNK_SIZE}, {4, 1}, {3, 10}};
+        for(int[] configuration : configurations) {
+            ForkJoinPool pool = new ForkJoinPool(configuration[0]);
+            try {
+                Instances parallel = new InstanceGenerator(graph, filters,
+                        pool, configuration[1]).getGraphInstances();
+                assertEquals(sequential.numInstances(),
+                        parallel.numInstances());
+                assertEquals(sequential.classIndex(), parallel.classIndex());
+                for(int i = 0; i < sequential.numInstances(); i++) {
+                    assertTrue("Configuration "
+                            + Arrays.toString(configuration) + " instance "
+                            + i, Arrays.equals(
+                            sequential.instance(i).toDoubleArray(),
+                            parallel.instance(i).toDoubleArray()));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Test that a chunk size lower than 1 is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidChunkSize() {
+        new InstanceGenerator(graph, filters, null, 0, null);
+    }
+
+    /*
+     * Checks that every node comes after all of its replies.
+     */
+    private void assertPostorder(List<Integer> ids) {
+        Set<Integer> seen = new HashSet<>();
+        for(int id : ids) {
+            for(ArgumentRelation reply
+                    : graph.getArgumentNode(id).getReplyRelations()) {
+                assertTrue("Node " + id + " before its reply",
+                        seen.contains(reply.getArgumentator().getNodeId()));
+            }
+            seen.add(id);
+        }
+    }
+
+    private List<Integer> getNodeIds(Instances instances) {
+        List<Integer> ids = new ArrayList<>();
+        for(int i = 0; i < instances.numInstances(); i++) {
+            ids.add((int) instances.instance(i).value(0));
+        }
+        return ids;
+    }
+
+}
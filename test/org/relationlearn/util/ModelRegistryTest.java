@@ -0,0 +1,111 @@
+package org.relationlearn.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the ModelRegistry class.
+ */
+public class ModelRegistryTest {
+
+    private static class CountingLoader implements ModelRegistry.Loader<String> {
+
+        private final AtomicInteger LOADS = new AtomicInteger();
+        private final CountDownLatch RELEASE;
+
+        public CountingLoader(CountDownLatch release) {
+            this.RELEASE = release;
+        }
+
+        @Override
+        public String load(String topic) throws Exception {
+            LOADS.incrementAndGet();
+            RELEASE.await();
+            if(topic.startsWith("missing")) {
+                throw new IllegalArgumentException("No model for: " + topic);
+            }
+            return "model-" + topic;
+        }
+
+        @Override
+        public long sizeOf(String topic, String model) {
+            return 10;
+        }
+    }
+
+    /**
+     * Test that concurrent requests for the same topic share a single load.
+     */
+    @Test
+    public void testSingleLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingLoader loader = new CountingLoader(release);
+        final ModelRegistry<String> registry =
+                new ModelRegistry<>(loader, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for(int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return registry.get("cars");
+                    }
+                }));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for(Future<String> result : results) {
+                assertEquals("model-cars", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, loader.LOADS.get());
+        assertEquals(1, registry.getLoadCount());
+        assertEquals(8, registry.getHitCount() + registry.getMissCount());
+        assertEquals("model-cars", registry.get("cars"));
+        assertEquals(1, loader.LOADS.get());
+    }
+
+    /**
+     * Test that the least recently used models are evicted and that failed
+     * loads are tried again.
+     */
+    @Test
+    public void testEviction() throws Exception {
+        CountDownLatch release = new CountDownLatch(0);
+        CountingLoader loader = new CountingLoader(release);
+        ModelRegistry<String> registry = new ModelRegistry<>(loader, 20);
+        registry.get("a");
+        registry.get("b");
+        registry.get("a");
+        registry.get("c");
+        assertTrue(registry.contains("a"));
+        assertFalse(registry.contains("b"));
+        assertTrue(registry.contains("c"));
+        assertEquals(20, registry.getSize());
+        assertEquals(1, registry.getEvictionCount());
+        assertEquals(1, registry.getHitCount());
+        assertEquals(3, registry.getMissCount());
+        for(int i = 0; i < 2; i++) {
+            try {
+                registry.get("missing");
+                fail("Expected the load to fail");
+            } catch (IllegalArgumentException iaex) {
+                assertEquals("No model for: missing", iaex.getMessage());
+            }
+        }
+        assertEquals(2, registry.getLoadFailureCount());
+        assertEquals(2, registry.getModelCount());
+    }
+
+}
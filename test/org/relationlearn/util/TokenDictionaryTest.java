@@ -0,0 +1,36 @@
+package org.relationlearn.util;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the TokenDictionary class.
+ */
+public class TokenDictionaryTest {
+
+    /**
+     * Test that a full dictionary keeps the identifiers it has assigned,
+     * returns UNKNOWN_ID for new tokens and still registers new tokens.
+     */
+    @Test
+    public void testCapacity() {
+        TokenDictionary dictionary = new TokenDictionary(3);
+        int guns = dictionary.getId("Guns");
+        assertEquals(2, dictionary.size());
+        assertEquals(dictionary.lookup("guns"), 
+                dictionary.getLowerCaseId(guns));
+        int are = dictionary.getId("are");
+        assertEquals(3, dictionary.size());
+        assertEquals(TokenDictionary.UNKNOWN_ID, dictionary.getId("bad"));
+        assertEquals(TokenDictionary.UNKNOWN_ID, dictionary.lookup("bad"));
+        assertEquals(guns, dictionary.getId("Guns"));
+        assertEquals(are, dictionary.getId("are"));
+        int bad = dictionary.register("Bad");
+        assertEquals(5, dictionary.size());
+        assertEquals("Bad", dictionary.getToken(bad));
+        assertEquals(bad, dictionary.getId("Bad"));
+        assertEquals("bad", 
+                dictionary.getToken(dictionary.getLowerCaseId(bad)));
+    }
+
+}
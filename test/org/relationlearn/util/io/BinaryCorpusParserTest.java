@@ -0,0 +1,183 @@
+package org.relationlearn.util.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.ArgumentRelation;
+import org.relationlearn.model.RelationDigraph;
+
+/**
+ * Tests for the BinaryCorpusParser class.
+ */
+public class BinaryCorpusParserTest {
+
+    private static final String[] TOPICS = {"cars", "trains"};
+
+    private static final int PAIRS = 6;
+
+    private File xml;
+    private File binary;
+
+    @Before
+    public void setUp() throws IOException {
+        xml = File.createTempFile("binary-parser-test", ".xml");
+        binary = File.createTempFile("binary-parser-test", ".bin");
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(xml), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<entailment-corpus>\n");
+            int pairId = 1;
+            for(String topic : TOPICS) {
+                for(int i = 1; i <= PAIRS; i++) {
+                    writer.write("<pair id=\"" + pairId++ + "\" topic=\""
+                            + topic + "\" entailment=\""
+                            + (i % 2 == 0 ? "YES" : "NO") + "\">\n");
+                    writer.write("<t id=\"" + (i + 1) + "\">" + topic
+                            + " reply " + i + " &amp; été 中</t>\n");
+                    writer.write("<h id=\"" + (i + 1) / 2 + "\">" + topic
+                            + " target " + (i + 1) / 2 + "</h>\n");
+                    writer.write("</pair>\n");
+                }
+            }
+            writer.write("</entailment-corpus>\n");
+        }
+        BinaryCorpusConverter.main(new String[] {xml.getAbsolutePath(),
+            binary.getAbsolutePath()});
+    }
+
+    @After
+    public void tearDown() {
+        xml.delete();
+        binary.delete();
+    }
+
+    /**
+     * Test that a corpus converted from XML to the binary format is loaded
+     * with the same graphs, node texts, weights and relations as the XML
+     * file.
+     */
+    @Test
+    public void testConverterRoundTrip() {
+        assertTrue(BinaryCorpusParser.isBinaryCorpus(
+                binary.getAbsolutePath()));
+        assertFalse(BinaryCorpusParser.isBinaryCorpus(xml.getAbsolutePath()));
+        Map<String, RelationDigraph> expected =
+                new XMLFileParser().parseInput(xml.getAbsolutePath());
+        Map<String, RelationDigraph> result =
+                new BinaryCorpusParser().parseInput(binary.getAbsolutePath());
+        assertEquals(expected.keySet(), result.keySet());
+        for(String topic : TOPICS) {
+            RelationDigraph expectedGraph = expected.get(topic);
+            RelationDigraph graph = result.get(topic);
+            for(int id = 1; id <= PAIRS + 1; id++) {
+                ArgumentNode expectedNode = expectedGraph.getArgumentNode(id);
+                ArgumentNode node = graph.getArgumentNode(id);
+                assertNotNull(node);
+                assertEquals(expectedNode.getArgumentNodeText(),
+                        node.getArgumentNodeText());
+                assertEquals(expectedNode.getNodeWeight(),
+                        node.getNodeWeight());
+                assertEquals(expectedNode.getReplyRelations().size(),
+                        node.getReplyRelations().size());
+                ArgumentRelation expectedRelation =
+                        expectedNode.getTargetRelation();
+                ArgumentRelation relation = node.getTargetRelation();
+                if(expectedRelation == null) {
+                    assertNull(relation);
+                } else {
+                    assertEquals(expectedRelation.getArgumentRelationId(),
+                            relation.getArgumentRelationId());
+                    assertEquals(expectedRelation.getArgumentRelationType(),
+                            relation.getArgumentRelationType());
+                    assertSame(graph.getArgumentNode(
+                            expectedRelation.getTarget().getNodeId()),
+                            relation.getTarget());
+                }
+            }
+            assertFalse(graph.containsNode(PAIRS + 2));
+        }
+    }
+
+    /**
+     * Test that a truncated file is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedFile() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(binary, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        new BinaryCorpusParser().parseInput(binary.getAbsolutePath());
+    }
+
+    /**
+     * Test that a topic count whose section size overflows an int is
+     * rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testOverflowingTopicCount() throws IOException {
+        writeInt(8, Integer.MAX_VALUE);
+        new BinaryCorpusParser().parseInput(binary.getAbsolutePath());
+    }
+
+    /**
+     * Test that a relation pointing to a node out of the node section is
+     * rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRelationNodeOutOfRange() throws IOException {
+        writeInt(getRelationStart() + 8, Integer.MAX_VALUE);
+        new BinaryCorpusParser().parseInput(binary.getAbsolutePath());
+    }
+
+    /**
+     * Test that a relation with an unknown RelationType ordinal is
+     * rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRelationTypeOutOfRange() throws IOException {
+        writeInt(getRelationStart() + 12, 1000);
+        new BinaryCorpusParser().parseInput(binary.getAbsolutePath());
+    }
+
+    /**
+     * Test that a node text out of the text section is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNodeTextOutOfRange() throws IOException {
+        int nodeStart = BinaryCorpusFormat.HEADER_SIZE
+                + readInt(8) * BinaryCorpusFormat.TOPIC_SIZE;
+        writeInt(nodeStart + 12, Integer.MAX_VALUE);
+        new BinaryCorpusParser().parseInput(binary.getAbsolutePath());
+    }
+
+    private int getRelationStart() throws IOException {
+        return BinaryCorpusFormat.HEADER_SIZE
+                + readInt(8) * BinaryCorpusFormat.TOPIC_SIZE
+                + readInt(12) * BinaryCorpusFormat.NODE_SIZE;
+    }
+
+    private int readInt(long position) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(binary, "r")) {
+            file.seek(position);
+            return file.readInt();
+        }
+    }
+
+    private void writeInt(long position, int value) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(binary, "rw")) {
+            file.seek(position);
+            file.writeInt(value);
+        }
+    }
+
+}
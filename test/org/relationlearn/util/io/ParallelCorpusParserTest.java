@@ -0,0 +1,157 @@
+package org.relationlearn.util.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.RelationDigraph;
+
+/**
+ * Tests for the ParallelCorpusParser class.
+ */
+public class ParallelCorpusParserTest {
+
+    private File directory;
+    private File first;
+    private File second;
+    private File nested;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("parallel-parser-test", "");
+        directory.delete();
+        directory.mkdir();
+        File subdirectory = new File(directory, "sub");
+        subdirectory.mkdir();
+        // pairs as {topic, response id, target id}
+        first = writeCorpus(new File(directory, "a.xml"), new int[][] {
+            {0, 2, 1}, {0, 3, 1}});
+        second = writeCorpus(new File(directory, "c.xml"), new int[][] {
+            {0, 20, 2}, {1, 6, 5}});
+        nested = writeCorpus(new File(subdirectory, "b.xml"), new int[][] {
+            {0, 11, 10}, {0, 12, 11}, {1, 2, 1}});
+        writeCorpus(new File(directory, "notes.txt"), new int[][] {
+            {0, 30, 1}});
+    }
+
+    @After
+    public void tearDown() {
+        nested.delete();
+        nested.getParentFile().delete();
+        for(File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    /**
+     * Test that a directory lists the XML files directly inside it, and a
+     * glob pattern the matching files of every subdirectory, sorted by
+     * path.
+     */
+    @Test
+    public void testFindFiles() {
+        ParallelCorpusParser parser = new ParallelCorpusParser(2);
+        String prefix = directory.getPath() + File.separator;
+        assertEquals(Arrays.asList(first, second),
+                parser.findFiles(directory.getPath()));
+        assertEquals(Arrays.asList(first, second),
+                toAbsolute(parser.findFiles(prefix + "*.xml")));
+        assertEquals(Arrays.asList(first, second, nested),
+                toAbsolute(parser.findFiles(prefix + "**.xml")));
+        assertEquals(Arrays.asList(nested),
+                toAbsolute(parser.findFiles(prefix + "s?b/*.xml")));
+        assertEquals(Arrays.asList(first),
+                parser.findFiles(first.getPath()));
+        assertTrue(parser.findFiles(prefix + "*.json").isEmpty());
+    }
+
+    /**
+     * Test that the topics of every file are merged in path order, no
+     * matter the amount of threads, that a topic of a file reusing node ids
+     * of the merged topic is dropped and reported, and that the merged
+     * graphs traverse all their trees.
+     */
+    @Test
+    public void testParseInputMergesInPathOrder() {
+        String glob = directory.getPath() + File.separator + "**.xml";
+        for(int threads : new int[] {1, 2, 4}) {
+            List<NodeConflict> conflicts = new ArrayList<>();
+            Map<String, RelationDigraph> graphs =
+                    new ParallelCorpusParser(threads).parseInput(glob,
+                            conflicts);
+            assertEquals(2, graphs.size());
+            // c.xml is merged before sub/b.xml and after a.xml, so its
+            // node 2 of topic-0 conflicts and the whole topic is dropped
+            assertEquals(1, conflicts.size());
+            NodeConflict conflict = conflicts.get(0);
+            assertEquals(second, conflict.getFile());
+            assertEquals("topic-0", conflict.getTopic());
+            assertEquals(Arrays.asList(2), conflict.getNodeIds());
+            RelationDigraph topic0 = graphs.get("topic-0");
+            assertFalse(topic0.containsNode(20));
+            assertEquals(Arrays.asList(2, 3, 1, 12, 11, 10), getIds(topic0));
+            assertEquals("text 2",
+                    topic0.getArgumentNode(2).getArgumentNodeText());
+            // topics without conflicts are merged even for the same file
+            RelationDigraph topic1 = graphs.get("topic-1");
+            assertEquals(Arrays.asList(2, 1, 6, 5), getIds(topic1));
+        }
+    }
+
+    /**
+     * Test that a URI without any file is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInputNoFiles() {
+        new ParallelCorpusParser(2).parseInput(directory.getPath()
+                + File.separator + "*.json");
+    }
+
+    private List<Integer> getIds(RelationDigraph graph) {
+        List<Integer> ids = new ArrayList<>();
+        for(ArgumentNode node : graph) {
+            ids.add(node.getNodeId());
+        }
+        return ids;
+    }
+
+    private List<File> toAbsolute(List<File> files) {
+        List<File> absolute = new ArrayList<>();
+        for(File file : files) {
+            absolute.add(file.getAbsoluteFile());
+        }
+        return absolute;
+    }
+
+    private File writeCorpus(File file, int[][] pairs) throws IOException {
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<entailment-corpus>\n");
+            for(int[] pair : pairs) {
+                writer.write("<pair id=\"" + pair[1] + "\" topic=\"topic-"
+                        + pair[0] + "\" entailment=\"YES\">\n");
+                writer.write("<t id=\"" + pair[1] + "\">text " + pair[1]
+                        + "</t>\n");
+                writer.write("<h id=\"" + pair[2] + "\">text " + pair[2]
+                        + "</h>\n");
+                writer.write("</pair>\n");
+            }
+            writer.write("</entailment-corpus>\n");
+        }
+        return file.getAbsoluteFile();
+    }
+
+}
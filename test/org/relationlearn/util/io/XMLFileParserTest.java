@@ -0,0 +1,107 @@
+package org.relationlearn.util.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.relationlearn.model.ArgumentNode;
+import org.relationlearn.model.RelationDigraph;
+import org.relationlearn.util.RelationType;
+
+/**
+ * Tests for the XMLFileParser class.
+ */
+public class XMLFileParserTest {
+    
+    private static final String ESCAPED_CHUNK = "Tom &amp; Jerry &lt;said&gt; "
+            + "&quot;no&quot;, it&apos;s &#233;t&#xE9; &amp;&amp; more\n";
+    
+    private static final String DECODED_CHUNK = "Tom & Jerry <said> "
+            + "\"no\", it's été && more\n";
+    
+    private static final int REPETITIONS = 20000;
+    
+    private static File input;
+    private static String responseText;
+    private static String targetText;
+    
+    @BeforeClass
+    public static void setUp() throws IOException {
+        StringBuilder escaped = new StringBuilder();
+        StringBuilder decoded = new StringBuilder();
+        for(int i = 0; i < REPETITIONS; i++) {
+            escaped.append(i).append(' ').append(ESCAPED_CHUNK);
+            decoded.append(i).append(' ').append(DECODED_CHUNK);
+        }
+        responseText = decoded.toString();
+        targetText = "Short &amp; sweet";
+        input = File.createTempFile("xml-parser-test", ".xml");
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(input), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<entailment-corpus>\n");
+            writer.write("<pair id=\"1\" topic=\"test\" entailment=\"NO\">\n");
+            writer.write("<t id=\"2\">" + escaped + "</t>\n");
+            writer.write("<h id=\"1\">" + targetText + "</h>\n");
+            writer.write("</pair>\n");
+            writer.write("<pair id=\"2\" topic=\"test\" entailment=\"YES\">\n");
+            writer.write("<t id=\"3\"><![CDATA[a <b> & c]]> &amp; d</t>\n");
+            writer.write("<h id=\"2\">" + escaped + "</h>\n");
+            writer.write("</pair>\n");
+            writer.write("</entailment-corpus>\n");
+        }
+    }
+    
+    @AfterClass
+    public static void tearDown() {
+        input.delete();
+    }
+
+    /**
+     * Test of parseInput method with texts split in many chunks, of class
+     * XMLFileParser.
+     */
+    @Test
+    public void testParseInputLargeTexts() {
+        Map<String, RelationDigraph> graphs = 
+                new XMLFileParser().parseInput(input.getAbsolutePath());
+        RelationDigraph graph = graphs.get("test");
+        assertNotNull(graph);
+        ArgumentNode response = graph.getArgumentNode(2);
+        assertEquals(responseText, response.getArgumentNodeText());
+        assertEquals("Short & sweet", 
+                graph.getArgumentNode(1).getArgumentNodeText());
+        assertEquals("a <b> & c & d", 
+                graph.getArgumentNode(3).getArgumentNodeText());
+        assertEquals(RelationType.ATTACK, 
+                response.getTargetRelation().getArgumentRelationType());
+    }
+    
+    /**
+     * Test of parseInput method compared with the StreamingInputParser 
+     * results, of class XMLFileParser.
+     */
+    @Test
+    public void testParseInputSameAsStreaming() {
+        Map<String, RelationDigraph> expected = 
+                new StreamingInputParser().parseInput(input.getAbsolutePath());
+        Map<String, RelationDigraph> result = 
+                new XMLFileParser().parseInput(input.getAbsolutePath());
+        assertEquals(expected.keySet(), result.keySet());
+        for(int id = 1; id <= 3; id++) {
+            assertEquals(
+                    expected.get("test").getArgumentNode(id)
+                            .getArgumentNodeText(),
+                    result.get("test").getArgumentNode(id)
+                            .getArgumentNodeText());
+        }
+    }
+    
+}